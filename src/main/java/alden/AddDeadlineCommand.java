@@ -4,6 +4,7 @@ package alden;
  * A command that adds a deadline task to the task list.
  * This command parses the user input to extract the description and deadline date,
  * creates a new Deadline task, and adds it to the task list.
+ * A trailing /every clause makes the deadline repeat.
  */
 public class AddDeadlineCommand extends Command {
     private final String userInput; // The user input containing the description and deadline
@@ -22,7 +23,8 @@ public class AddDeadlineCommand extends Command {
 
     /**
      * Executes the command to add a deadline task to the task list.
-     * The input is expected to contain a description followed by a /by clause with the deadline.
+     * The input is expected to contain a description followed by a /by clause with the deadline,
+     * optionally followed by an /every clause such as "/every weekly /until 2099/12/31".
      * If the input is invalid (missing /by or description), an exception is thrown.
      *
      * @param tasks   The task list to which the new deadline task will be added.
@@ -43,16 +45,17 @@ public class AddDeadlineCommand extends Command {
             String description = parts[0].substring(9).trim(); // Extract description, starting after "deadline"
             assert !description.isEmpty() : "Task description cannot be empty";
 
-            String by = parts[1].trim();
+            String by = Recurrence.withoutRepetition(parts[1].trim());
             assert !by.isEmpty() : "Deadline cannot be empty";
 
-            Task newTask = new Deadline(description, by);
+            Deadline newTask = new Deadline(description, by);
+            Recurrence.applyTo(newTask, parts[1]);
             tasks.addTask(newTask);
             assert !tasks.isEmpty() : "Task list should not be empty after adding task";
             assert tasks.get(tasks.size() - 1) == newTask : "Last task should be the newly added task";
 
             ui.showTaskAdded(newTask, tasks.size());
-            storage.save(tasks.getTasks());
+            storage.saveAddedTask(tasks, newTask);
         }
     }
 }
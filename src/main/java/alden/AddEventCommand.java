@@ -1,9 +1,13 @@
 package alden;
 
+import java.util.ArrayList;
+
 /**
  * A command that adds an event task to the task list.
  * This command parses the user input to extract the description, start time, and end time,
  * creates a new Event task, and adds it to the task list.
+ * Existing events that overlap the new one are pointed out to the user, though the event is still added.
+ * A trailing /every clause makes the event repeat.
  */
 public class AddEventCommand extends Command {
     private final String userInput; // The user input containing the description, start time, and end time
@@ -22,7 +26,7 @@ public class AddEventCommand extends Command {
     /**
      * Executes the command to add an event task to the task list.
      * The input is expected to contain a description followed
-     * by /from and /to clauses for the event's start and end times.
+     * by /from and /to clauses for the event's start and end times, and optionally an /every clause.
      * If the input is invalid (missing /from, /to, or description), an exception is thrown.
      *
      * @param tasks   The task list to which the new event task will be added.
@@ -41,16 +45,23 @@ public class AddEventCommand extends Command {
         String[] parts = userInput.split("/from|/to", 3);
 
         // Get the event task from the split parts of the input
-        Task newTask = getTask(parts);
+        Event newTask = getTask(parts);
+
+        // Look for existing events that clash with the new one before it joins the list
+        ArrayList<Task> overlappingEvents = tasks.getOverlappingEvents(newTask.getStartDateTime(),
+                newTask.getEndDateTime());
 
         // Add the event task to the task list
         tasks.addTask(newTask);
 
-        // Display a message confirming the task was added
+        // Display a message confirming the task was added, followed by any clashes
         ui.showTaskAdded(newTask, tasks.size());
+        if (!overlappingEvents.isEmpty()) {
+            ui.showOverlapWarning(overlappingEvents);
+        }
 
         // Save the updated task list to storage
-        storage.save(tasks.getTasks());
+        storage.saveAddedTask(tasks, newTask);
     }
 
     /**
@@ -60,7 +71,7 @@ public class AddEventCommand extends Command {
      * @return The newly created Event task.
      * @throws AldenException If the parts are missing required information (description, /from, /to).
      */
-    private static Task getTask(String[] parts) throws AldenException {
+    private static Event getTask(String[] parts) throws AldenException {
         // Ensure that there are at least three parts: description, from time, and to time
         if (parts.length < 3) {
             throw new AldenException(
@@ -74,13 +85,15 @@ public class AddEventCommand extends Command {
         }
 
         String from = parts[1].trim();
-        String to = parts[2].trim();
+        String to = Recurrence.withoutRepetition(parts[2].trim());
 
         if (from.isEmpty() || to.isEmpty()) {
             throw new AldenException("Event times cannot be empty");
         }
 
         // Create and return the new Event task with the extracted details
-        return new Event(description, from, to);
+        Event event = new Event(description, from, to);
+        Recurrence.applyTo(event, parts[2]);
+        return event;
     }
 }
@@ -42,6 +42,6 @@ public class AddTodoCommand extends Command {
         ui.showTaskAdded(newTask, tasks.size());
 
         // Save the updated task list
-        storage.save(tasks.getTasks());
+        storage.saveAddedTask(tasks, newTask);
     }
 }
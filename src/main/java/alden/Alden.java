@@ -9,9 +9,12 @@ import java.util.Scanner;
  */
 public class Alden {
     private static final String FILE_PATH = "./data/Alden.txt";
+    private static final long FLUSH_INTERVAL_MS = 50; // How long saves may be coalesced before writing
+    private static final long SYNC_INTERVAL_MS = 1000; // How often written data is forced to disk
     private static final TaskList tasks = new TaskList(); // The list of tasks
     private static final Storage storage = new Storage(FILE_PATH); // The storage handler for tasks
     private static final Ui ui = new Ui(); // The user interface to interact with the user
+    private static final ReminderScheduler reminders = new ReminderScheduler(tasks, ui);
 
     /**
      * The main method that starts the Alden program.
@@ -21,14 +24,20 @@ public class Alden {
      * @param args Command line arguments (not used in this program)
      */
     public static void main(String[] args) {
-        // Load tasks from the storage file
+        // Load tasks from the storage file, then move later saves off the input loop
         storage.load(tasks);
+        storage.setDurability(DurabilityMode.PERIODIC, SYNC_INTERVAL_MS);
+        storage.enableAsyncWrites(FLUSH_INTERVAL_MS);
+        reminders.start();
 
         Scanner scanner = new Scanner(System.in);
         boolean isRunning = true;
 
         // Display the welcome message
         ui.showWelcome();
+        if (storage.shouldOfferMigration()) {
+            ui.showMigrationOffer(tasks.size());
+        }
 
         // Main input loop
         while (isRunning) {
@@ -37,10 +46,13 @@ public class Alden {
 
                 if (userInput.equalsIgnoreCase("bye")) {
                     isRunning = false;
+                    reminders.stop();
+                    storage.flush();
                     ui.showGoodbye();
                 } else {
                     // Parse the user input into a command and execute it
                     Command command = Parser.parse(userInput);
+                    tasks.markUndoPoint(); // Changes made by the command are undone together
                     command.execute(tasks, ui, storage);
                 }
             } catch (AldenException e) {
@@ -0,0 +1,576 @@
+package alden;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Encodes and decodes task snapshots in a compact, versioned binary format.
+ *
+ * <p>A snapshot starts with a four byte magic number, a varint format version, a varint task count,
+ * from version 2, the next free task ID as a big-endian long and, from version 4, a random snapshot ID as a
+ * big-endian long, which tells apart snapshots written at different times.
+ * Each task record then consists of a tag byte holding the task type and a packed done bit,
+ * a varint length followed by the UTF-8 description, one (Deadline) or two (Event)
+ * big-endian epoch-second longs and, from version 2, the task's ID as a big-endian long.
+ * From version 3, a repeating task has a flag in its tag and ends with a varint length followed by
+ * the UTF-8 text of its repetition, in the form written by {@link Recurrence#toFileFormat()}.
+ * Times are stored as wall-clock values in UTC so that they read back exactly as they were written,
+ * regardless of the local time zone. Older snapshots, written before tasks had IDs or could repeat,
+ * can still be read.</p>
+ *
+ * <p>The done bit lets a task be marked by rewriting the single tag byte of its record in place.
+ * The snapshot fingerprint, a CRC-32 over the whole file that a journal records to name the snapshot it
+ * belongs to, deliberately leaves the done bits out: it is computed as if every done bit were cleared, so a
+ * status written in place neither changes the fingerprint nor invalidates the journal. Two snapshots that
+ * differ only in the status of their tasks therefore share a fingerprint; from version 4 their snapshot
+ * IDs still tell them apart.</p>
+ */
+public class BinarySnapshotCodec {
+    public static final int FORMAT_VERSION = 4;
+
+    private static final int FIRST_VERSION_WITH_IDS = 2;
+    private static final int FIRST_VERSION_WITH_RECURRENCE = 3;
+    private static final int FIRST_VERSION_WITH_SNAPSHOT_ID = 4;
+
+    // The text format never starts with a NUL byte, so this prefix is enough to tell the formats apart
+    private static final byte[] MAGIC = {0, 'A', 'L', 'D'};
+    private static final int TYPE_TODO = 0;
+    private static final int TYPE_DEADLINE = 1;
+    private static final int TYPE_EVENT = 2;
+    private static final int TYPE_MASK = 0x03;
+    private static final int RECURRING_BIT = 0x04;
+    private static final int DONE_BIT = 0x80;
+
+    /**
+     * Returns whether the given file holds a binary snapshot.
+     *
+     * @param file File to inspect
+     * @return True if the file starts with the binary snapshot magic number
+     * @throws IOException if the file cannot be read
+     */
+    public static boolean isBinarySnapshot(File file) throws IOException {
+        byte[] prefix = new byte[MAGIC.length];
+        try (InputStream in = new FileInputStream(file)) {
+            return in.readNBytes(prefix, 0, prefix.length) == prefix.length && Arrays.equals(prefix, MAGIC);
+        }
+    }
+
+    /**
+     * Encodes the given tasks and streams them to the output through a fixed-size buffer, so that
+     * the size of a snapshot is not bounded by the size of an array.
+     * Each task is stamped with the location of its record under the given snapshot generation.
+     *
+     * @param tasks Tasks to encode
+     * @param nextId The next free task ID
+     * @param snapshotId Random ID of the snapshot
+     * @param out Stream to write the snapshot to
+     * @param generation Generation the written snapshot will have once it is in place
+     * @return Fingerprint of the written snapshot
+     * @throws IOException if writing fails
+     */
+    public static long write(List<Task> tasks, long nextId, long snapshotId, OutputStream out, int generation)
+            throws IOException {
+        Encoder encoder = new Encoder(out);
+        encoder.putBytes(MAGIC);
+        encoder.putVarint(FORMAT_VERSION);
+        encoder.putVarint(tasks.size());
+        encoder.putLong(nextId);
+        encoder.putLong(snapshotId);
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            TaskStore.setRecordLocation(tasks, i, task, generation, encoder.position());
+            encodeTask(task, encoder);
+        }
+        return encoder.finish();
+    }
+
+    /**
+     * Encodes a single task record.
+     *
+     * @param task Task to encode
+     * @param encoder Encoder to append the record to
+     * @throws IOException if writing fails
+     */
+    private static void encodeTask(Task task, Encoder encoder) throws IOException {
+        encoder.putTag(tagOf(task, false), task.isDone());
+
+        byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+        encoder.putVarint(description.length);
+        encoder.putBytes(description);
+
+        if (task instanceof Deadline deadline) {
+            encoder.putLong(toEpochSecond(deadline.getFirstDateTime()));
+        } else if (task instanceof Event event) {
+            encoder.putLong(toEpochSecond(event.getFirstStartDateTime()));
+            encoder.putLong(toEpochSecond(event.getFirstEndDateTime()));
+        }
+        encoder.putLong(task.getId());
+        if (task.getRecurrence() != null) {
+            byte[] recurrence = task.getRecurrence().toFileFormat().getBytes(StandardCharsets.UTF_8);
+            encoder.putVarint(recurrence.length);
+            encoder.putBytes(recurrence);
+        }
+    }
+
+    /**
+     * Returns the tag byte of a task's record.
+     *
+     * @param task Task whose record is tagged
+     * @param isDone Completion status to encode in the tag
+     * @return The tag byte
+     */
+    static byte tagOf(Task task, boolean isDone) {
+        int tag;
+        if (task instanceof Deadline) {
+            tag = TYPE_DEADLINE;
+        } else if (task instanceof Event) {
+            tag = TYPE_EVENT;
+        } else {
+            tag = TYPE_TODO;
+        }
+        if (task.getRecurrence() != null) {
+            tag |= RECURRING_BIT;
+        }
+        return (byte) (isDone ? tag | DONE_BIT : tag);
+    }
+
+    /**
+     * Reads a binary snapshot from the file and adds its tasks to the task list.
+     *
+     * @param file Binary snapshot file
+     * @param tasks TaskList to populate
+     * @param generation Generation of the snapshot, used to stamp the location of each record
+     * @return Statistics describing the load
+     * @throws IOException if the file cannot be read or is not a valid snapshot
+     */
+    public static LoadStats read(File file, TaskList tasks, int generation) throws IOException {
+        long startTime = System.nanoTime();
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        Header header = readHeader(buffer, file);
+        try {
+            for (int i = 0; i < header.getCount(); i++) {
+                int offset = buffer.position();
+                Task task = decodeTask(buffer, header.getVersion());
+                task.setRecordLocation(generation, offset);
+                tasks.addTask(task);
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt snapshot record: " + e.getMessage());
+        }
+        return new LoadStats(header.getCount(), bytes.length, System.nanoTime() - startTime);
+    }
+
+    /**
+     * Reads the header of a binary snapshot on disk.
+     *
+     * @param file Binary snapshot file
+     * @return The header
+     * @throws IOException if the file cannot be read or its header is invalid
+     */
+    public static Header readHeader(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            // Magic, two varints of at most five bytes each, the next free ID and the snapshot ID
+            return readHeader(ByteBuffer.wrap(in.readNBytes(MAGIC.length + 10 + 2 * Long.BYTES)), file);
+        }
+    }
+
+    /**
+     * Validates the snapshot header at the start of the buffer and advances past it.
+     *
+     * @param buffer Buffer positioned at the start of a snapshot, at index 0
+     * @param file File the buffer was read from, used in error messages
+     * @return The header
+     * @throws IOException if the header is missing, malformed or from a newer format version
+     */
+    static Header readHeader(ByteBuffer buffer, File file) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        if (buffer.remaining() < magic.length) {
+            throw new IOException("Truncated snapshot header");
+        }
+        buffer.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a binary snapshot: " + file.getPath());
+        }
+        try {
+            int version = getVarint(buffer);
+            if (version > FORMAT_VERSION) {
+                throw new IOException("Unsupported snapshot version: " + version);
+            }
+            int count = getVarint(buffer);
+            long nextId = version >= FIRST_VERSION_WITH_IDS ? buffer.getLong() : 0;
+            long snapshotId = version >= FIRST_VERSION_WITH_SNAPSHOT_ID ? buffer.getLong() : 0;
+            return new Header(version, count, nextId, snapshotId, buffer.position());
+        } catch (RuntimeException e) {
+            throw new IOException("Truncated snapshot header");
+        }
+    }
+
+    /**
+     * Decodes the task record at the buffer's current position and advances past it.
+     *
+     * @param buffer Buffer positioned at the start of a record
+     * @param version Format version of the snapshot
+     * @return The decoded task
+     */
+    static Task decodeTask(ByteBuffer buffer, int version) {
+        int tag = buffer.get() & 0xff;
+        byte[] description = new byte[getVarint(buffer)];
+        buffer.get(description);
+
+        Task task = switch (tag & TYPE_MASK) {
+        case TYPE_TODO -> new Todo(new String(description, StandardCharsets.UTF_8));
+        case TYPE_DEADLINE -> new Deadline(new String(description, StandardCharsets.UTF_8),
+                fromEpochSecond(buffer.getLong()));
+        case TYPE_EVENT -> new Event(new String(description, StandardCharsets.UTF_8),
+                fromEpochSecond(buffer.getLong()), fromEpochSecond(buffer.getLong()));
+        default -> throw new IllegalStateException("Unknown task type tag: " + tag);
+        };
+        if (version >= FIRST_VERSION_WITH_IDS) {
+            long id = buffer.getLong();
+            if (id > 0) {
+                task.setId(id);
+            }
+        }
+        if (hasRecurrence(tag, version)) {
+            byte[] recurrence = new byte[getVarint(buffer)];
+            buffer.get(recurrence);
+            try {
+                task.setRecurrence(Recurrence.fromFileFormat(new String(recurrence, StandardCharsets.UTF_8)));
+            } catch (AldenException e) {
+                throw new IllegalStateException(e.getMessage());
+            }
+        }
+        if ((tag & DONE_BIT) != 0) {
+            task.markAsDone();
+            task.clearDirty();
+        }
+        return task;
+    }
+
+    /**
+     * Advances the buffer past the task record at its current position without decoding it.
+     *
+     * @param buffer Buffer positioned at the start of a record
+     * @param version Format version of the snapshot
+     */
+    static void skipTask(ByteBuffer buffer, int version) {
+        int tag = buffer.get() & 0xff;
+        int length = getVarint(buffer);
+        buffer.position(buffer.position() + length + fixedFieldCount(tag, version) * Long.BYTES);
+        if (hasRecurrence(tag, version)) {
+            int recurrenceLength = getVarint(buffer);
+            buffer.position(buffer.position() + recurrenceLength);
+        }
+    }
+
+    /**
+     * Computes the fingerprint of a binary snapshot on disk, streaming it so that files of any size can be checked.
+     *
+     * @param file Binary snapshot file
+     * @return The fingerprint, matching the one returned when the snapshot was written
+     * @throws IOException if the file cannot be read or is truncated
+     */
+    public static long fingerprint(File file) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file), 1 << 16)) {
+            crc.update(in.readNBytes(MAGIC.length));
+            int version = readVarint(in, crc);
+            int count = readVarint(in, crc);
+            if (version >= FIRST_VERSION_WITH_IDS) {
+                crc.update(in.readNBytes(Long.BYTES)); // Next free ID
+            }
+            if (version >= FIRST_VERSION_WITH_SNAPSHOT_ID) {
+                crc.update(in.readNBytes(Long.BYTES));
+            }
+            byte[] scratch = new byte[256];
+            for (int i = 0; i < count; i++) {
+                int tag = readByte(in);
+                crc.update(tag & ~DONE_BIT);
+                int length = readVarint(in, crc) + fixedFieldCount(tag, version) * Long.BYTES;
+                if (scratch.length < length) {
+                    scratch = new byte[Math.max(length, scratch.length * 2)];
+                }
+                if (in.readNBytes(scratch, 0, length) != length) {
+                    throw new EOFException("Truncated snapshot record");
+                }
+                crc.update(scratch, 0, length);
+                if (hasRecurrence(tag, version)) {
+                    int recurrenceLength = readVarint(in, crc);
+                    byte[] recurrence = in.readNBytes(recurrenceLength);
+                    if (recurrence.length != recurrenceLength) {
+                        throw new EOFException("Truncated snapshot record");
+                    }
+                    crc.update(recurrence);
+                }
+            }
+            crc.update(in.readAllBytes());
+        }
+        return crc.getValue();
+    }
+
+    private static int readByte(InputStream in) throws IOException {
+        int b = in.read();
+        if (b == -1) {
+            throw new EOFException("Truncated snapshot");
+        }
+        return b;
+    }
+
+    /**
+     * Reads an unsigned LEB128 varint from the stream, adding its bytes to the checksum.
+     *
+     * @param in Stream positioned at the varint
+     * @param crc Checksum to update
+     * @return The decoded value
+     * @throws IOException if the stream ends or the varint is malformed
+     */
+    private static int readVarint(InputStream in, CRC32 crc) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = readByte(in);
+            crc.update(b);
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Returns the number of epoch-second fields that follow the description of a record.
+     *
+     * @param tag The tag byte of the record
+     * @return 0 for a Todo, 1 for a Deadline and 2 for an Event
+     */
+    private static int timeCount(int tag) {
+        return switch (tag & TYPE_MASK) {
+        case TYPE_DEADLINE -> 1;
+        case TYPE_EVENT -> 2;
+        default -> 0;
+        };
+    }
+
+    /**
+     * Returns the number of long fields that follow the description of a record: its times and its ID.
+     *
+     * @param tag The tag byte of the record
+     * @param version Format version of the snapshot
+     * @return The number of long fields
+     */
+    private static int fixedFieldCount(int tag, int version) {
+        return timeCount(tag) + (version >= FIRST_VERSION_WITH_IDS ? 1 : 0);
+    }
+
+    /**
+     * Returns whether a record ends with the text of a repetition.
+     *
+     * @param tag The tag byte of the record
+     * @param version Format version of the snapshot
+     * @return True if the record is of a repeating task
+     */
+    private static boolean hasRecurrence(int tag, int version) {
+        return version >= FIRST_VERSION_WITH_RECURRENCE && (tag & RECURRING_BIT) != 0;
+    }
+
+    /**
+     * Returns whether a record's tag byte has the done bit set.
+     *
+     * @param tag The tag byte at the start of a record
+     * @return True if the record is marked as done
+     */
+    static boolean isDoneTag(byte tag) {
+        return (tag & DONE_BIT) != 0;
+    }
+
+    private static long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime fromEpochSecond(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Reads an unsigned LEB128 varint from the buffer.
+     *
+     * @param buffer Buffer positioned at the varint
+     * @return The decoded value
+     */
+    private static int getVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = buffer.get() & 0xff;
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+
+    /**
+     * Fields of a snapshot header.
+     */
+    public static class Header {
+        private final int version;
+        private final int count;
+        private final long nextId;
+        private final long snapshotId;
+        private final int size;
+
+        Header(int version, int count, long nextId, long snapshotId, int size) {
+            this.version = version;
+            this.count = count;
+            this.nextId = nextId;
+            this.snapshotId = snapshotId;
+            this.size = size;
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * Returns the next free task ID recorded in the snapshot.
+         *
+         * @return The next free ID, or 0 if the snapshot predates task IDs
+         */
+        public long getNextId() {
+            return nextId;
+        }
+
+        /**
+         * Returns the random ID the snapshot was written with.
+         *
+         * @return The snapshot ID, or 0 if the snapshot predates snapshot IDs
+         */
+        public long getSnapshotId() {
+            return snapshotId;
+        }
+
+        /**
+         * Returns the length of the header, which is also the offset of the first record.
+         *
+         * @return The length in bytes
+         */
+        public int getSize() {
+            return size;
+        }
+    }
+
+    /**
+     * Buffer that streams a snapshot to its output as it is encoded and fingerprints it on the way.
+     * Tags are buffered with their done bits cleared, which are only set once the buffer has been
+     * fingerprinted and is about to be written.
+     */
+    private static class Encoder {
+        private static final int BUFFER_SIZE = 1 << 16;
+
+        private final OutputStream out;
+        private final byte[] bytes = new byte[BUFFER_SIZE];
+        private final CRC32 crc = new CRC32();
+        private int size;
+        private long flushed; // Bytes already written to the output
+        private int[] doneTags = new int[16]; // Positions in the buffer of the tags of done tasks
+        private int doneCount;
+
+        Encoder(OutputStream out) {
+            this.out = out;
+        }
+
+        /**
+         * Returns the offset in the snapshot of the next byte to be encoded.
+         *
+         * @return The offset
+         */
+        long position() {
+            return flushed + size;
+        }
+
+        private void ensureCapacity(int extra) throws IOException {
+            if (size + extra > bytes.length) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            crc.update(bytes, 0, size);
+            for (int i = 0; i < doneCount; i++) {
+                bytes[doneTags[i]] |= (byte) DONE_BIT;
+            }
+            out.write(bytes, 0, size);
+            flushed += size;
+            size = 0;
+            doneCount = 0;
+        }
+
+        /**
+         * Writes out what is left in the buffer.
+         *
+         * @return Fingerprint of the snapshot, with every done bit cleared
+         * @throws IOException if writing fails
+         */
+        long finish() throws IOException {
+            flush();
+            return crc.getValue();
+        }
+
+        void putTag(int tag, boolean isDone) throws IOException {
+            ensureCapacity(1);
+            if (isDone) {
+                if (doneCount == doneTags.length) {
+                    doneTags = Arrays.copyOf(doneTags, doneCount * 2);
+                }
+                doneTags[doneCount++] = size;
+            }
+            bytes[size++] = (byte) tag;
+        }
+
+        void putBytes(byte[] source) throws IOException {
+            ensureCapacity(source.length);
+            if (source.length > bytes.length) {
+                crc.update(source);
+                out.write(source);
+                flushed += source.length;
+                return;
+            }
+            System.arraycopy(source, 0, bytes, size, source.length);
+            size += source.length;
+        }
+
+        void putVarint(int value) throws IOException {
+            ensureCapacity(5);
+            while ((value & ~0x7f) != 0) {
+                bytes[size++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void putLong(long value) throws IOException {
+            ensureCapacity(Long.BYTES);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[size++] = (byte) (value >>> shift);
+            }
+        }
+    }
+}
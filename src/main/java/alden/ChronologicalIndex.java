@@ -0,0 +1,102 @@
+package alden;
+
+import java.util.TreeMap;
+
+/**
+ * Sorted view of the tasks in chronological order, kept up to date as tasks are added and removed.
+ *
+ * <p>Deadlines are placed at their due time and events at their start, in one sorted map keyed by
+ * epoch second. Todos have no time and come after every dated task. Tasks at the same time, and the
+ * todos among themselves, stay in list order, which their sequence numbers already give. The order is
+ * therefore total and stable, and reading it is a walk over the map with no comparisons.</p>
+ */
+public class ChronologicalIndex implements TaskIndex {
+    private static final long UNDATED = Long.MAX_VALUE; // Key of the todos, after every real time
+
+    private final TreeMap<Long, PostingList> byTime = new TreeMap<>();
+    private int size;
+
+    @Override
+    public void add(long sequence, Task task) {
+        byTime.computeIfAbsent(keyOf(task), key -> new PostingList()).add(sequence);
+        size++;
+    }
+
+    @Override
+    public void remove(long sequence, Task task) {
+        long key = keyOf(task);
+        PostingList postings = byTime.get(key);
+        if (postings != null && postings.contains(sequence)) {
+            postings.remove(sequence);
+            size--;
+            if (postings.isEmpty()) {
+                byTime.remove(key);
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        byTime.clear();
+        size = 0;
+    }
+
+    /**
+     * Returns the position of every task in chronological order.
+     *
+     * <p>One walk over the map fills an open-addressing table from sequence number to chronological slot,
+     * and one walk over the list puts each position, taken from a running count, into the slot of its task.
+     * Both walks and every table probe are O(1) per task on average, so the whole costs O(n).</p>
+     *
+     * @param listOrder Sequence numbers of every task in the index, in list order
+     * @return Positions of the tasks, earliest first
+     */
+    public int[] positions(long[] listOrder) {
+        assert listOrder.length == size : "Every task in the list must be in the index";
+        int mask = Integer.highestOneBit(Math.max(1, size) * 2) * 2 - 1; // Table at most half full
+        long[] keys = new long[mask + 1];
+        int[] slots = new int[mask + 1]; // Chronological slot plus one, or 0 for an empty entry
+        int slot = 0;
+        for (PostingList postings : byTime.values()) {
+            for (int i = 0; i < postings.size(); i++) {
+                long sequence = postings.get(i);
+                int entry = bucketOf(sequence, mask);
+                while (slots[entry] != 0) {
+                    entry = (entry + 1) & mask;
+                }
+                keys[entry] = sequence;
+                slots[entry] = ++slot;
+            }
+        }
+        int[] positions = new int[size];
+        for (int position = 0; position < listOrder.length; position++) {
+            int entry = bucketOf(listOrder[position], mask);
+            while (slots[entry] == 0 || keys[entry] != listOrder[position]) {
+                entry = (entry + 1) & mask;
+            }
+            positions[slots[entry] - 1] = position;
+        }
+        return positions;
+    }
+
+    private static int bucketOf(long sequence, int mask) {
+        // Sequence numbers are spaced by large powers of two, so mix their bits before taking the low ones
+        return (int) ((sequence * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    /**
+     * Returns the time a task is placed at: the due time of a deadline, the start of an event,
+     * or a key after every real time for a todo.
+     *
+     * @param task The task
+     * @return The key in epoch seconds
+     */
+    static long keyOf(Task task) {
+        if (task instanceof Deadline deadline) {
+            return TimeIndex.toEpochSecond(deadline.getDateTime());
+        } else if (task instanceof Event event) {
+            return TimeIndex.toEpochSecond(event.getStartDateTime());
+        }
+        return UNDATED;
+    }
+}
@@ -0,0 +1,412 @@
+package alden;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Task store that keeps tasks in parallel primitive columns rather than as objects.
+ *
+ * <p>Each task occupies a slot across the columns: a type byte, its ID, its times in epoch seconds,
+ * a bit in the done set, and the start and length of its description in a shared byte arena.
+ * That is a few dozen bytes per task besides the description, against the several objects a task
+ * and its dates take on the heap. As in {@link TreeTaskStore}, the order of the tasks is an
+ * {@link IndexedLongList} of slots.</p>
+ *
+ * <p>Reading a task builds a {@link Task} from its columns. Tasks read recently are kept in a bounded
+ * cache, so that what is recorded on the object returned by {@link #get(int)}, such as where its record
+ * was saved, is kept; that state is written back to the columns when the task leaves the cache.</p>
+ *
+ * <p>The columns are split into chunks of {@value #CHUNK_SIZE} slots. A snapshot shares the chunks and the
+ * order with the store, which copies a chunk before changing it once a snapshot has seen it, so that taking
+ * a snapshot and making the change after it each cost O(chunk size + n / chunk size) rather than O(n).
+ * The arena is only ever appended to, and is replaced when compacted, so snapshots share it as well.</p>
+ *
+ * <p>The few tasks that repeat keep their repetition in a side map of their chunk, and their columns hold
+ * the times of their first occurrence.</p>
+ */
+public class ColumnarTaskStore implements TaskStore {
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CACHE_SIZE = 1024;
+    private static final int MIN_ARENA_GARBAGE = 1 << 16; // Bytes of removed descriptions tolerated regardless
+
+    private static final byte FREE = 0;
+    private static final byte TODO = 'T';
+    private static final byte DEADLINE = 'D';
+    private static final byte EVENT = 'E';
+
+    private IndexedLongList order = new IndexedLongList(); // Slot of the task at each position
+    private final LinkedHashMap<Integer, Task> cache;
+    private Object owner = new Object(); // Chunks created under another owner are shared with a snapshot
+    private Chunk[] chunks = new Chunk[0];
+    private int slotCount; // Slots handed out so far, free or not
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private byte[] arena = new byte[1024]; // UTF-8 descriptions, back to back
+    private int arenaSize;
+    private int arenaGarbage; // Bytes of the arena held by removed tasks
+
+    /**
+     * Creates an empty store.
+     */
+    public ColumnarTaskStore() {
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Task> eldest) {
+                if (size() <= CACHE_SIZE) {
+                    return false;
+                }
+                writeBack(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    @Override
+    public Task get(int index) {
+        int slot = (int) order.get(index);
+        Task task = cache.get(slot);
+        if (task == null) {
+            task = materialize(chunkOf(chunks, slot), slot & (CHUNK_SIZE - 1), arena);
+            cache.put(slot, task);
+        }
+        return task;
+    }
+
+    @Override
+    public void add(Task task) {
+        order.add(store(task));
+    }
+
+    @Override
+    public void add(int index, Task task) {
+        order.add(index, store(task));
+    }
+
+    @Override
+    public void set(int index, Task task) {
+        int slot = (int) order.get(index);
+        writableChunk(slot).setRecurrence(slot & (CHUNK_SIZE - 1), task.getRecurrence());
+        writeBack(slot, task);
+        cache.put(slot, task);
+    }
+
+    @Override
+    public Task remove(int index) {
+        int slot = (int) order.remove(index);
+        Task task = cache.remove(slot);
+        Chunk chunk = writableChunk(slot);
+        int local = slot & (CHUNK_SIZE - 1);
+        if (task == null) {
+            task = materialize(chunk, local, arena);
+        }
+        chunk.types[local] = FREE;
+        chunk.setRecurrence(local, null);
+        arenaGarbage += chunk.descriptionLengths[local];
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+        if (arenaGarbage > MIN_ARENA_GARBAGE && arenaGarbage > arenaSize / 2) {
+            compactArena();
+        }
+        return task;
+    }
+
+    @Override
+    public int size() {
+        return order.size();
+    }
+
+    @Override
+    public void clear() {
+        // Snapshots may still read the old columns, so start from new ones rather than clearing them
+        order = new IndexedLongList();
+        cache.clear();
+        chunks = new Chunk[0];
+        slotCount = 0;
+        freeCount = 0;
+        arena = new byte[1024];
+        arenaSize = 0;
+        arenaGarbage = 0;
+    }
+
+    @Override
+    public List<Task> snapshot() {
+        // Cached tasks are shared with the snapshot, as they may hold state not yet in the columns
+        owner = new Object();
+        return new Snapshot(order.snapshot(), new HashMap<>(cache), chunks.clone(), arena);
+    }
+
+    private static Chunk chunkOf(Chunk[] chunks, int slot) {
+        return chunks[slot >>> CHUNK_BITS];
+    }
+
+    /**
+     * Returns the chunk holding a slot, copying it first if a snapshot may be reading it.
+     *
+     * @param slot Slot about to change
+     * @return The chunk, which the store alone holds
+     */
+    private Chunk writableChunk(int slot) {
+        Chunk chunk = chunks[slot >>> CHUNK_BITS];
+        if (chunk.owner != owner) {
+            chunk = new Chunk(owner, chunk);
+            chunks[slot >>> CHUNK_BITS] = chunk;
+        }
+        return chunk;
+    }
+
+    /**
+     * Writes a task into a free slot of the columns and caches it, so that reading it back
+     * returns the same object.
+     *
+     * @param task The task to store
+     * @return The slot holding the task
+     */
+    private int store(Task task) {
+        int slot = freeCount > 0 ? freeSlots[--freeCount] : newSlot();
+        Chunk chunk = writableChunk(slot);
+        int local = slot & (CHUNK_SIZE - 1);
+        if (task instanceof Todo) {
+            chunk.types[local] = TODO;
+        } else if (task instanceof Deadline deadline) {
+            chunk.types[local] = DEADLINE;
+            chunk.startTimes[local] = TimeIndex.toEpochSecond(deadline.getFirstDateTime());
+        } else if (task instanceof Event event) {
+            chunk.types[local] = EVENT;
+            chunk.startTimes[local] = TimeIndex.toEpochSecond(event.getFirstStartDateTime());
+            chunk.endTimes[local] = TimeIndex.toEpochSecond(event.getFirstEndDateTime());
+        } else {
+            throw new IllegalArgumentException("Unsupported task type: " + task.getClass().getName());
+        }
+        chunk.ids[local] = task.getId();
+        chunk.setRecurrence(local, task.getRecurrence());
+        byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+        if (arenaSize + description.length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + description.length));
+        }
+        System.arraycopy(description, 0, arena, arenaSize, description.length);
+        chunk.descriptionStarts[local] = arenaSize;
+        chunk.descriptionLengths[local] = description.length;
+        arenaSize += description.length;
+        writeBack(slot, task);
+        cache.put(slot, task);
+        return slot;
+    }
+
+    private int newSlot() {
+        if (slotCount == chunks.length * CHUNK_SIZE) {
+            chunks = Arrays.copyOf(chunks, chunks.length + 1);
+            chunks[chunks.length - 1] = new Chunk(owner);
+        }
+        return slotCount++;
+    }
+
+    /**
+     * Copies the parts of a task that can change after it is stored back into its slot.
+     *
+     * @param slot Slot of the task
+     * @param task The task
+     */
+    private void writeBack(int slot, Task task) {
+        Chunk chunk = writableChunk(slot);
+        int local = slot & (CHUNK_SIZE - 1);
+        chunk.done.set(local, task.isDone());
+        chunk.dirty.set(local, task.isDirty());
+        int generation = task.getRecordGeneration();
+        chunk.setRecordLocation(local, generation, task.getRecordOffset(generation));
+    }
+
+    /**
+     * Builds the task held in a slot of a chunk.
+     *
+     * @param chunk Chunk holding the slot
+     * @param local Position of the slot within the chunk
+     * @param arena Arena holding the descriptions of the chunk
+     * @return A new task
+     */
+    private static Task materialize(Chunk chunk, int local, byte[] arena) {
+        Task task = build(chunk.types[local], chunk.ids[local], chunk.startTimes[local], chunk.endTimes[local],
+                new String(arena, chunk.descriptionStarts[local], chunk.descriptionLengths[local],
+                        StandardCharsets.UTF_8));
+        task.setRecurrence(chunk.getRecurrence(local)); // Shared, as occurrences are only marked on copies
+        if (chunk.done.get(local)) {
+            task.markAsDone();
+        }
+        task.setDirty(chunk.dirty.get(local));
+        synchronized (chunk) {
+            task.setRecordLocation(chunk.recordGenerations[local], chunk.recordOffsets[local]);
+        }
+        return task;
+    }
+
+    private static Task build(byte type, long id, long start, long end, String description) {
+        Task task = switch (type) {
+        case TODO -> new Todo(description);
+        case DEADLINE -> new Deadline(description, fromEpochSecond(start));
+        case EVENT -> new Event(description, fromEpochSecond(start), fromEpochSecond(end));
+        default -> throw new IllegalStateException("No task in slot of type " + type);
+        };
+        if (id > 0) {
+            task.setId(id);
+        }
+        return task;
+    }
+
+    private static LocalDateTime fromEpochSecond(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Rewrites the arena without the descriptions of removed tasks. Snapshots keep the old arena.
+     */
+    private void compactArena() {
+        byte[] compacted = new byte[Math.max(1024, (arenaSize - arenaGarbage) * 2)];
+        int size = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            Chunk chunk = chunkOf(chunks, slot);
+            int local = slot & (CHUNK_SIZE - 1);
+            if (chunk.types[local] != FREE) {
+                chunk = writableChunk(slot);
+                System.arraycopy(arena, chunk.descriptionStarts[local], compacted, size,
+                        chunk.descriptionLengths[local]);
+                chunk.descriptionStarts[local] = size;
+                size += chunk.descriptionLengths[local];
+            }
+        }
+        arena = compacted;
+        arenaSize = size;
+        arenaGarbage = 0;
+    }
+
+    /**
+     * Columns of {@value #CHUNK_SIZE} consecutive slots.
+     *
+     * <p>A chunk shared with a snapshot never changes, except for the locations of its records: those are
+     * given to it by the snapshot when the snapshot is saved, which may happen on another thread, so they are
+     * read and written under the chunk's monitor.</p>
+     */
+    private static class Chunk {
+        private final Object owner; // Store state the chunk was created under
+        private final byte[] types;
+        private final long[] ids;
+        private final long[] startTimes; // Due time of a deadline or start of an event
+        private final long[] endTimes; // End of an event
+        private final BitSet done;
+        private final BitSet dirty;
+        private final int[] recordGenerations;
+        private final long[] recordOffsets;
+        private final int[] descriptionStarts;
+        private final int[] descriptionLengths;
+        private HashMap<Integer, Recurrence> recurrences; // Repetition of each repeating task, or null if none
+
+        Chunk(Object owner) {
+            this.owner = owner;
+            types = new byte[CHUNK_SIZE];
+            ids = new long[CHUNK_SIZE];
+            startTimes = new long[CHUNK_SIZE];
+            endTimes = new long[CHUNK_SIZE];
+            done = new BitSet(CHUNK_SIZE);
+            dirty = new BitSet(CHUNK_SIZE);
+            recordGenerations = new int[CHUNK_SIZE];
+            recordOffsets = new long[CHUNK_SIZE];
+            descriptionStarts = new int[CHUNK_SIZE];
+            descriptionLengths = new int[CHUNK_SIZE];
+        }
+
+        Chunk(Object owner, Chunk source) {
+            this.owner = owner;
+            types = source.types.clone();
+            ids = source.ids.clone();
+            startTimes = source.startTimes.clone();
+            endTimes = source.endTimes.clone();
+            done = (BitSet) source.done.clone();
+            dirty = (BitSet) source.dirty.clone();
+            synchronized (source) {
+                recordGenerations = source.recordGenerations.clone();
+                recordOffsets = source.recordOffsets.clone();
+            }
+            descriptionStarts = source.descriptionStarts.clone();
+            descriptionLengths = source.descriptionLengths.clone();
+            recurrences = source.recurrences == null ? null : new HashMap<>(source.recurrences);
+        }
+
+        Recurrence getRecurrence(int local) {
+            return recurrences == null ? null : recurrences.get(local);
+        }
+
+        void setRecurrence(int local, Recurrence recurrence) {
+            if (recurrence != null) {
+                if (recurrences == null) {
+                    recurrences = new HashMap<>();
+                }
+                recurrences.put(local, recurrence);
+            } else if (recurrences != null) {
+                recurrences.remove(local);
+            }
+        }
+
+        synchronized void setRecordLocation(int local, int generation, long offset) {
+            recordGenerations[local] = generation;
+            recordOffsets[local] = offset;
+        }
+    }
+
+    /**
+     * Point-in-time view of the store over the chunks and order it shared when taken, which can be read on
+     * another thread.
+     */
+    private class Snapshot extends AbstractList<Task> implements LocatedSnapshot {
+        private final IndexedLongList slots;
+        private final Map<Integer, Task> cached;
+        private final Chunk[] snapshotChunks;
+        private final byte[] snapshotArena;
+
+        Snapshot(IndexedLongList slots, Map<Integer, Task> cached, Chunk[] chunks, byte[] arena) {
+            this.slots = slots;
+            this.cached = cached;
+            this.snapshotChunks = chunks;
+            this.snapshotArena = arena;
+        }
+
+        @Override
+        public Task get(int index) {
+            int slot = (int) slots.get(index);
+            Task task = cached.get(slot);
+            return task != null ? task : materialize(chunkOf(snapshotChunks, slot), slot & (CHUNK_SIZE - 1),
+                    snapshotArena);
+        }
+
+        /**
+         * Records the location on the cached task the store shares, or else in the columns, provided the
+         * store has not changed the chunk since: a chunk it still holds has the same tasks with the same
+         * statuses as when the snapshot was taken. The location of a task in a changed chunk is dropped,
+         * and its status is then saved to the journal until the next snapshot is written.
+         */
+        @Override
+        public void setRecordLocation(int index, int generation, long offset) {
+            int slot = (int) slots.get(index);
+            Task task = cached.get(slot);
+            Chunk chunk = chunkOf(snapshotChunks, slot);
+            if (task != null) {
+                task.setRecordLocation(generation, offset);
+            } else if (slot < chunks.length * CHUNK_SIZE && chunkOf(chunks, slot) == chunk) {
+                chunk.setRecordLocation(slot & (CHUNK_SIZE - 1), generation, offset);
+            }
+        }
+
+        @Override
+        public int size() {
+            return slots.size();
+        }
+    }
+}
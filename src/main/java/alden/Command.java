@@ -1,5 +1,8 @@
 package alden;
 
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 /**
  * An abstract class representing a command in the Alden application.
  * This class defines the structure for all commands that can be executed in the system.
@@ -7,6 +10,8 @@ package alden;
  * the specific behavior of each command.
  */
 public abstract class Command {
+    // "page N" at the end of a command that lists tasks
+    private static final Pattern PAGE_SUFFIX = Pattern.compile("\\s+page\\s+(\\S+)\\s*$", Pattern.CASE_INSENSITIVE);
 
     /**
      * Executes the command, performing an action based on the user's input.
@@ -18,4 +23,65 @@ public abstract class Command {
      * @throws AldenException If an error occurs during the execution of the command.
      */
     public abstract void execute(TaskList tasks, Ui ui, Storage storage) throws AldenException;
+
+    /**
+     * Returns the page asked for at the end of a command that lists tasks, as in {@code list open page 2}.
+     *
+     * @param fullCommand The full command input by the user.
+     * @return The one-based page number, or 0 if the command does not ask for a page.
+     * @throws AldenException If the page number is not a number of one or more.
+     */
+    protected static int pageOf(String fullCommand) throws AldenException {
+        Matcher matcher = PAGE_SUFFIX.matcher(fullCommand);
+        if (!matcher.find()) {
+            return 0;
+        }
+        try {
+            int page = Integer.parseInt(matcher.group(1));
+            if (page < 1) {
+                throw new AldenException("Invalid page number.");
+            }
+            return page;
+        } catch (NumberFormatException e) {
+            throw new AldenException("Invalid page number.");
+        }
+    }
+
+    /**
+     * Returns a command that lists tasks without the page asked for at its end, if any.
+     *
+     * @param fullCommand The full command input by the user.
+     * @return The command without its page.
+     */
+    protected static String withoutPage(String fullCommand) {
+        return PAGE_SUFFIX.matcher(fullCommand).replaceFirst("").trim();
+    }
+
+    /**
+     * Resolves a task reference given by the user to the task's current index in the list.
+     * A reference is either the task's number as shown in the list, or its stable ID prefixed with '#'.
+     *
+     * @param tasks The task list the reference points into.
+     * @param reference The task number or '#' followed by the task ID.
+     * @return The zero-based index of the task.
+     * @throws AldenException If the reference is malformed or no task matches it.
+     */
+    protected static int resolveTaskIndex(TaskList tasks, String reference) throws AldenException {
+        try {
+            if (reference.startsWith("#")) {
+                int index = tasks.indexOfId(Long.parseLong(reference.substring(1)));
+                if (index < 0) {
+                    throw new AldenException("No task has the ID " + reference + ".");
+                }
+                return index;
+            }
+            int index = Integer.parseInt(reference) - 1;
+            if (index < 0 || index >= tasks.size()) {
+                throw new AldenException("Invalid task number.");
+            }
+            return index;
+        } catch (NumberFormatException e) {
+            throw new AldenException("Invalid task number.");
+        }
+    }
 }
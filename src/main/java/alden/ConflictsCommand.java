@@ -0,0 +1,23 @@
+package alden;
+
+import java.util.ArrayList;
+
+/**
+ * Represents a command to list every pair of events whose times overlap.
+ */
+public class ConflictsCommand extends Command {
+
+    /**
+     * Executes the command by finding the overlapping events and displaying them in pairs.
+     *
+     * @param tasks   The TaskList containing all tasks.
+     * @param ui      The user interface to interact with the user.
+     * @param storage The storage system (not used in this command).
+     * @throws AldenException If an error occurs during execution.
+     */
+    @Override
+    public void execute(TaskList tasks, Ui ui, Storage storage) throws AldenException {
+        ArrayList<Task[]> conflicts = tasks.getConflictingEvents();
+        ui.showConflicts(conflicts);
+    }
+}
@@ -0,0 +1,20 @@
+package alden;
+
+/**
+ * Represents a command to show how many tasks there are of each status and type.
+ */
+public class CountCommand extends Command {
+
+    /**
+     * Executes the command by displaying the task counts, which the task list keeps without scanning.
+     *
+     * @param tasks   The TaskList containing all tasks.
+     * @param ui      The user interface to interact with the user.
+     * @param storage The storage system (not used in this command).
+     * @throws AldenException If an error occurs during execution.
+     */
+    @Override
+    public void execute(TaskList tasks, Ui ui, Storage storage) throws AldenException {
+        ui.showTaskCounts(tasks);
+    }
+}
@@ -0,0 +1,92 @@
+package alden;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stretch of time named by a date argument of a command. A date on its own covers the whole day,
+ * while a date followed by a time covers just that minute, matching how dates are entered for tasks.
+ */
+public class DateSpan {
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HHmm");
+    private static final String FORMAT_ERROR = "Error: Invalid date format. Use yyyy/MM/dd or yyyy/MM/dd HHmm";
+
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+
+    private DateSpan(LocalDateTime start, LocalDateTime end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Parses a list of date arguments separated by spaces.
+     * Each argument is "today", "tomorrow" or a date in yyyy/MM/dd, optionally followed by a time in HHmm.
+     *
+     * @param text The arguments.
+     * @return The spans named by the arguments, in order.
+     * @throws AldenException If an argument is not a valid date.
+     */
+    public static List<DateSpan> parseAll(String text) throws AldenException {
+        String[] words = text.trim().split("\\s+");
+        ArrayList<DateSpan> spans = new ArrayList<>();
+        for (int i = 0; i < words.length; i++) {
+            if (words[i].isEmpty()) {
+                continue;
+            }
+            LocalDate date = parseDate(words[i]);
+            if (i + 1 < words.length && words[i + 1].matches("\\d{4}")) {
+                LocalDateTime time = date.atTime(parseTime(words[++i]));
+                spans.add(new DateSpan(time, time.plusMinutes(1)));
+            } else {
+                spans.add(new DateSpan(date.atStartOfDay(), date.plusDays(1).atStartOfDay()));
+            }
+        }
+        return spans;
+    }
+
+    private static LocalDate parseDate(String word) throws AldenException {
+        if (word.equalsIgnoreCase("today")) {
+            return LocalDate.now();
+        } else if (word.equalsIgnoreCase("tomorrow")) {
+            return LocalDate.now().plusDays(1);
+        }
+        try {
+            return LocalDate.parse(word, DATE_FORMAT);
+        } catch (DateTimeParseException e) {
+            throw new AldenException(FORMAT_ERROR);
+        }
+    }
+
+    private static LocalTime parseTime(String word) throws AldenException {
+        try {
+            return LocalTime.parse(word, TIME_FORMAT);
+        } catch (DateTimeParseException e) {
+            throw new AldenException(FORMAT_ERROR);
+        }
+    }
+
+    /**
+     * Returns the first moment of the span.
+     *
+     * @return The start, inclusive.
+     */
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    /**
+     * Returns the first moment after the span.
+     *
+     * @return The end, exclusive.
+     */
+    public LocalDateTime getEnd() {
+        return end;
+    }
+}
@@ -3,13 +3,15 @@ package alden;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 
 /**
- * Represents a task with a deadline. This class extends the {@link Task} class and adds functionality
+ * Represents a task with a deadline. This class extends the {@link RepeatableTask} class and adds functionality
  * to handle a specific deadline date and time associated with the task.
+ * A repeating deadline keeps the time of its first occurrence and stands for its first occurrence not yet done.
  */
-public class Deadline extends Task {
-    private final LocalDateTime dateTime; // The deadline date and time for the task
+public class Deadline extends RepeatableTask {
+    private final LocalDateTime dateTime; // The deadline date and time for the task, or its first occurrence
 
     /**
      * Constructs a new Deadline task with the specified description and deadline time.
@@ -29,6 +31,18 @@ public class Deadline extends Task {
                 "Deadline should not be in the past";
     }
 
+    /**
+     * Constructs a Deadline task with an already resolved deadline time, such as one read back from storage.
+     *
+     * @param description A brief description of the task.
+     * @param dateTime The deadline date and time.
+     */
+    public Deadline(String description, LocalDateTime dateTime) {
+        super(description);
+        assert dateTime != null : "Deadline time cannot be null";
+        this.dateTime = dateTime;
+    }
+
     /**
      * Parses the deadline string to determine the date and time of the deadline.
      * It handles specific keywords like "today" and "tomorrow",
@@ -64,7 +78,7 @@ public class Deadline extends Task {
 
     /**
      * Returns a string representation of the task in a format suitable for saving to a file.
-     * The format includes the task type (D), status, description, and the formatted deadline time.
+     * The format includes the task type (D), status, description, the formatted deadline time and the ID.
      *
      * @return A string representation of the task for file storage.
      */
@@ -73,9 +87,9 @@ public class Deadline extends Task {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy/MM/dd HHmm");
         String format = "D | " + (isDone ? "1" : "0") + " | " + description + " | "
                 +
-                dateTime.format(formatter);
+                dateTime.format(formatter); // The first occurrence of a repeating deadline
         assert format.split(" \\| ").length == 4 : "File format must have exactly 4 parts";
-        return format;
+        return format + idField();
     }
 
     /**
@@ -89,10 +103,69 @@ public class Deadline extends Task {
         return "[D][" + getStatusIcon()
                 + "] " + description + " (by: "
                 +
-                dateTime.format(DateTimeFormatter.ofPattern("MMM dd yyyy h:mm a")) + ")";
+                getDateTime().format(DateTimeFormatter.ofPattern("MMM dd yyyy h:mm a")) + ")"
+                + (getRecurrence() == null ? "" : " (" + getRecurrence() + ")");
     }
 
+    /**
+     * Returns the deadline time, which for a repeating deadline is that of its first occurrence not yet done,
+     * or of its last occurrence once all are done.
+     *
+     * @return The deadline date and time.
+     */
     public LocalDateTime getDateTime() {
-        return this.dateTime;
+        Recurrence recurrence = getRecurrence();
+        if (recurrence == null) {
+            return dateTime;
+        }
+        return recurrence.occurrenceAt(dateTime, recurrence.currentOccurrence(dateTime));
+    }
+
+    /**
+     * Returns the deadline time of the first occurrence, which is the deadline time of a task that does not repeat.
+     *
+     * @return The first deadline date and time.
+     */
+    public LocalDateTime getFirstDateTime() {
+        return dateTime;
+    }
+
+    @Override
+    protected LocalDateTime getFirstOccurrenceTime() {
+        return dateTime;
+    }
+
+    /**
+     * Returns the occurrences of this repeating deadline that are due within the given range, each as a
+     * deadline of its own with the ID of the series and the status of the occurrence.
+     * Only the occurrences in the range are computed, however long the series is.
+     *
+     * @param from The start of the range, inclusive, or null to start from the occurrence the deadline
+     *     currently stands for, leaving out the done occurrences before it.
+     * @param to The end of the range, exclusive.
+     * @return The occurrences in order of due time.
+     */
+    public ArrayList<Task> occurrencesBetween(LocalDateTime from, LocalDateTime to) {
+        Recurrence recurrence = getRecurrence();
+        assert recurrence != null && to != null : "Only a repeating deadline has occurrences in a bounded range";
+        int count = recurrence.countOccurrences(dateTime);
+        ArrayList<Task> occurrences = new ArrayList<>();
+        int first = from == null ? recurrence.currentOccurrence(dateTime) : recurrence.firstAtOrAfter(dateTime, from);
+        for (int n = first; n < count && recurrence.occurrenceAt(dateTime, n).isBefore(to); n++) {
+            occurrences.add(getOccurrence(n));
+        }
+        return occurrences;
+    }
+
+    @Override
+    Deadline copy() {
+        return copyStateTo(new Deadline(description, dateTime));
+    }
+
+    @Override
+    Deadline getOccurrence(int number) {
+        Deadline occurrence = new Deadline(description, getRecurrence().occurrenceAt(dateTime, number));
+        copyOccurrenceState(occurrence, number);
+        return occurrence;
     }
 }
@@ -11,7 +11,7 @@ public class DeleteTaskCommand extends Command {
     /**
      * Constructs a DeleteTaskCommand with the given user input.
      *
-     * @param userInput The user input containing the task number to be deleted.
+     * @param userInput The user input containing the task number, or '#' and the task ID, to be deleted.
      */
     public DeleteTaskCommand(String userInput) {
         this.userInput = userInput;
@@ -30,12 +30,9 @@ public class DeleteTaskCommand extends Command {
      */
     @Override
     public void execute(TaskList tasks, Ui ui, Storage storage) throws AldenException {
-        int taskNumber = Integer.parseInt(userInput.split(" ")[1]) - 1; // Parse task number from user input
-        if (taskNumber < 0 || taskNumber >= tasks.size()) {
-            throw new AldenException("Invalid task number.");
-        }
+        int taskNumber = resolveTaskIndex(tasks, userInput.split(" ")[1]); // Parse task number or ID from input
         Task removedTask = tasks.removeTask(taskNumber); // Remove the task from the list
         ui.showTaskRemoved(removedTask, tasks.size()); // Display task removal message
-        storage.save(tasks.getTasks()); // Save the updated task list
+        storage.saveDeletedTask(tasks, taskNumber); // Save the deletion to storage
     }
 }
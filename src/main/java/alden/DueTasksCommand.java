@@ -0,0 +1,64 @@
+package alden;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents a command to list the deadlines due within a time range, in order of due time.
+ * Supports {@code due before <date>} and {@code due between <date> <date>}, where the second form
+ * includes the whole of its last day unless a time is given.
+ */
+public class DueTasksCommand extends Command {
+    private static final String USAGE = "Use 'due before <date>' or 'due between <date> <date>'.";
+
+    private final DateSpan from;
+    private final DateSpan to;
+    private final int page; // Page of the deadlines to show, or 0 if none was asked for
+    private final String command; // The command without its page
+
+    /**
+     * Constructs a DueTasksCommand with the given user input, which may end with "page N" to show one page
+     * of the deadlines.
+     *
+     * @param fullCommand The full command input by the user.
+     * @throws AldenException If the range or its dates are invalid.
+     */
+    public DueTasksCommand(String fullCommand) throws AldenException {
+        this.page = pageOf(fullCommand);
+        this.command = withoutPage(fullCommand);
+        String arguments = command.substring(3).trim();
+        if (arguments.startsWith("before ")) {
+            List<DateSpan> dates = DateSpan.parseAll(arguments.substring(7));
+            if (dates.size() != 1) {
+                throw new AldenException("Invalid due range. " + USAGE);
+            }
+            this.from = null;
+            this.to = dates.get(0);
+        } else if (arguments.startsWith("between ")) {
+            List<DateSpan> dates = DateSpan.parseAll(arguments.substring(8));
+            if (dates.size() != 2) {
+                throw new AldenException("Invalid due range. " + USAGE);
+            }
+            this.from = dates.get(0);
+            this.to = dates.get(1);
+        } else {
+            throw new AldenException("Invalid due range. " + USAGE);
+        }
+    }
+
+    /**
+     * Executes the command by looking up the deadlines due within the range and displaying them.
+     *
+     * @param tasks   The TaskList containing all tasks.
+     * @param ui      The user interface to interact with the user.
+     * @param storage The storage system (not used in this command).
+     * @throws AldenException If an error occurs during execution.
+     */
+    @Override
+    public void execute(TaskList tasks, Ui ui, Storage storage) throws AldenException {
+        ArrayList<Task> dueTasks = from == null
+                ? tasks.getDeadlinesBetween(null, to.getStart())
+                : tasks.getDeadlinesBetween(from.getStart(), to.getEnd());
+        ui.showDueTasks(dueTasks, page, command);
+    }
+}
@@ -0,0 +1,14 @@
+package alden;
+
+/**
+ * Controls when saved data is forced from the operating system's cache to the disk.
+ * Stronger modes survive power loss at the cost of higher save latency.
+ */
+public enum DurabilityMode {
+    /** Never force data to disk; the operating system writes it back in its own time. */
+    NONE,
+    /** Force every snapshot and journal write to disk before the save completes. */
+    EVERY_SAVE,
+    /** Force outstanding writes to disk on a fixed interval, bounding how much can be lost. */
+    PERIODIC
+}
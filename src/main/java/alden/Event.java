@@ -1,19 +1,22 @@
 package alden;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 
 /**
  * Represents an event task with a start and end time.
  * The event is stored with its description and a time range (from and to).
- * This class extends the {@link Task} class and provides functionality
+ * This class extends the {@link RepeatableTask} class and provides functionality
  * to parse, display, and save event-related information.
+ * A repeating event keeps the times of its first occurrence and stands for its first occurrence not yet done.
  */
-public class Event extends Task {
-    private final LocalDateTime from; // Start time of the event
-    private final LocalDateTime to; // End time of the event
+public class Event extends RepeatableTask {
+    private final LocalDateTime from; // Start time of the event, or of its first occurrence
+    private final LocalDateTime to; // End time of the event, or of its first occurrence
 
     /**
      * Constructs an Event object with the given description and date-time range.
@@ -34,6 +37,20 @@ public class Event extends Task {
         assert !this.to.isBefore(this.from) : "End time cannot be before start time";
     }
 
+    /**
+     * Constructs an Event object with an already resolved time range, such as one read back from storage.
+     *
+     * @param description The description of the event.
+     * @param from The start date and time of the event.
+     * @param to The end date and time of the event.
+     */
+    public Event(String description, LocalDateTime from, LocalDateTime to) {
+        super(description);
+        assert from != null && to != null : "Event times cannot be null";
+        this.from = from;
+        this.to = to;
+    }
+
     /**
      * Parses the given date-time string and returns a {@link LocalDateTime} object.
      * The method tries to parse the date-time using both date and time. If only a date is provided,
@@ -70,14 +87,15 @@ public class Event extends Task {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM dd yyyy h:mm a");
         return "[E][" + getStatusIcon() + "] "
                 + description + " (from: "
-                + from.format(formatter)
+                + getStartDateTime().format(formatter)
                 + " to: "
-                + to.format(formatter) + ")";
+                + getEndDateTime().format(formatter) + ")"
+                + (getRecurrence() == null ? "" : " (" + getRecurrence() + ")");
     }
 
     /**
      * Returns a string representation of the event task in a format suitable for saving to a file.
-     * This includes the task type, status, description, start time, and end time.
+     * This includes the task type, status, description, start time, end time and ID.
      *
      * @return A string representing the event task in a file-friendly format.
      */
@@ -86,15 +104,92 @@ public class Event extends Task {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy/MM/dd HHmm");
         String format = "E | " + (isDone ? "1" : "0") + " | " + description + " | "
                 +
-                from.format(formatter) + " | " + to.format(formatter);
+                from.format(formatter) + " | " + to.format(formatter); // The first occurrence if repeating
         assert format.split(" \\| ").length == 5 : "File format must have exactly 5 parts";
-        return format;
+        return format + idField();
     }
 
+    /**
+     * Returns the start time, which for a repeating event is that of its first occurrence not yet done,
+     * or of its last occurrence once all are done.
+     *
+     * @return The start date and time.
+     */
     public LocalDateTime getStartDateTime() {
-        return this.from;
+        Recurrence recurrence = getRecurrence();
+        return recurrence == null ? from : recurrence.occurrenceAt(from, recurrence.currentOccurrence(from));
     }
+
+    /**
+     * Returns the end time, which for a repeating event is that of the occurrence it currently stands for.
+     *
+     * @return The end date and time.
+     */
     public LocalDateTime getEndDateTime() {
-        return this.to;
+        return getRecurrence() == null ? to : getStartDateTime().plus(Duration.between(from, to));
+    }
+
+    /**
+     * Returns the start time of the first occurrence, which is the start time of an event that does not repeat.
+     *
+     * @return The first start date and time.
+     */
+    public LocalDateTime getFirstStartDateTime() {
+        return from;
+    }
+
+    /**
+     * Returns the end time of the first occurrence, which is the end time of an event that does not repeat.
+     *
+     * @return The first end date and time.
+     */
+    public LocalDateTime getFirstEndDateTime() {
+        return to;
+    }
+
+    @Override
+    protected LocalDateTime getFirstOccurrenceTime() {
+        return from;
+    }
+
+    /**
+     * Returns the occurrences of this repeating event taking place at any time within the given range,
+     * each as an event of its own with the ID of the series and the status of the occurrence.
+     * Only the occurrences in the range are computed, however long the series is.
+     *
+     * @param rangeStart The start of the range, inclusive.
+     * @param rangeEnd The end of the range, exclusive.
+     * @return The occurrences in order of start time.
+     */
+    public ArrayList<Task> occurrencesBetween(LocalDateTime rangeStart, LocalDateTime rangeEnd) {
+        Recurrence recurrence = getRecurrence();
+        assert recurrence != null : "Only a repeating event has occurrences";
+        Duration duration = Duration.between(from, to);
+        int count = recurrence.countOccurrences(from);
+        ArrayList<Task> occurrences = new ArrayList<>();
+        // An occurrence starting a full duration before the range has ended by the time the range starts
+        for (int n = recurrence.firstAtOrAfter(from, rangeStart.minus(duration)); n < count; n++) {
+            LocalDateTime start = recurrence.occurrenceAt(from, n);
+            if (!start.isBefore(rangeEnd)) {
+                break;
+            }
+            if (start.plus(duration).isAfter(rangeStart) || !start.isBefore(rangeStart)) {
+                occurrences.add(getOccurrence(n));
+            }
+        }
+        return occurrences;
+    }
+
+    @Override
+    Event copy() {
+        return copyStateTo(new Event(description, from, to));
+    }
+
+    @Override
+    Event getOccurrence(int number) {
+        LocalDateTime start = getRecurrence().occurrenceAt(from, number);
+        Event occurrence = new Event(description, start, start.plus(Duration.between(from, to)));
+        copyOccurrenceState(occurrence, number);
+        return occurrence;
     }
 }
@@ -0,0 +1,45 @@
+package alden;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents a command to list the events taking place on a given day, in order of start time.
+ * An event counts if any part of it falls on that day.
+ */
+public class EventsOnCommand extends Command {
+    private final DateSpan day;
+    private final int page; // Page of the events to show, or 0 if none was asked for
+    private final String command; // The command without its page
+
+    /**
+     * Constructs an EventsOnCommand with the given user input, which may end with "page N" to show one page
+     * of the events.
+     *
+     * @param fullCommand The full command input by the user.
+     * @throws AldenException If the date is missing or invalid.
+     */
+    public EventsOnCommand(String fullCommand) throws AldenException {
+        this.page = pageOf(fullCommand);
+        this.command = withoutPage(fullCommand);
+        List<DateSpan> dates = DateSpan.parseAll(command.substring(9));
+        if (dates.size() != 1) {
+            throw new AldenException("Invalid date. Use 'events on <date>'.");
+        }
+        this.day = dates.get(0);
+    }
+
+    /**
+     * Executes the command by looking up the events overlapping the day and displaying them.
+     *
+     * @param tasks   The TaskList containing all tasks.
+     * @param ui      The user interface to interact with the user.
+     * @param storage The storage system (not used in this command).
+     * @throws AldenException If an error occurs during execution.
+     */
+    @Override
+    public void execute(TaskList tasks, Ui ui, Storage storage) throws AldenException {
+        ArrayList<Task> events = tasks.getEventsBetween(day.getStart(), day.getEnd());
+        ui.showEventsOn(events, page, command);
+    }
+}
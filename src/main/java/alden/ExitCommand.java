@@ -8,15 +8,16 @@ public class ExitCommand extends Command {
 
     /**
      * Executes the exit command by displaying the exit message.
-     * This method does not modify the task list or storage,
-     * as it is only responsible for handling the termination process.
+     * This method does not modify the task list, but blocks until all pending saves
+     * have reached the disk so that nothing is lost when the program terminates.
      *
      * @param tasks The current task list (not used in this command).
      * @param ui The UI object used to display messages.
-     * @param storage The storage object used to save tasks (not used in this command).
+     * @param storage The storage object whose pending saves are flushed.
      */
     @Override
     public void execute(TaskList tasks, Ui ui, Storage storage) {
+        storage.flush(); // Make sure every save is on disk before exiting
         ui.showExitMessage(); // Show exit message to the user
     }
 }
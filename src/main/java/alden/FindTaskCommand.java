@@ -5,23 +5,34 @@ import java.util.ArrayList;
 /**
  * Represents a command to find tasks in the task list that match a given keyword.
  * This command searches for tasks whose descriptions contain the keyword and displays them.
+ * A plain keyword is run as a {@link Query} of that one keyword, while a keyword starting with '~'
+ * is searched for fuzzily, so that tasks are found despite typos.
  */
 public class FindTaskCommand extends Command {
+    private static final String FUZZY_PREFIX = "~";
+
     private final String keyword;
+    private final int page; // Page of the matches to show, or 0 if none was asked for
+    private final String command; // The command without its page
 
     /**
      * Constructs a FindTaskCommand with the given user input.
-     * Extracts the keyword from the full command.
+     * Extracts the keyword from the full command, which may end with "page N" to show one page of the matches.
      *
      * @param fullCommand The full command input by the user.
      */
-    public FindTaskCommand(String fullCommand) {
-        this.keyword = fullCommand.substring(4).trim();
+    public FindTaskCommand(String fullCommand) throws AldenException {
+        this.page = pageOf(fullCommand);
+        this.command = withoutPage(fullCommand);
+        this.keyword = command.substring(4).trim();
+        if (keyword.startsWith(FUZZY_PREFIX) && keyword.substring(FUZZY_PREFIX.length()).isBlank()) {
+            throw new AldenException("Keyword cannot be empty for find command.");
+        }
     }
 
     /**
      * Executes the find task command by searching for tasks that contain the keyword.
-     * The matching tasks are then displayed to the user.
+     * The matching tasks are then displayed to the user, closest first for a fuzzy search.
      *
      * @param tasks   The TaskList containing all tasks.
      * @param ui      The user interface to interact with the user.
@@ -30,7 +41,9 @@ public class FindTaskCommand extends Command {
      */
     @Override
     public void execute(TaskList tasks, Ui ui, Storage storage) throws AldenException {
-        ArrayList<Task> matchingTasks = tasks.findTasks(keyword);
-        ui.showMatchingTasks(matchingTasks);
+        ArrayList<Task> matchingTasks = keyword.startsWith(FUZZY_PREFIX)
+                ? tasks.findTasksFuzzy(keyword.substring(FUZZY_PREFIX.length()))
+                : tasks.query(Query.matching(keyword));
+        ui.showMatchingTasks(matchingTasks, page, command);
     }
 }
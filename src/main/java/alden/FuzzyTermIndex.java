@@ -0,0 +1,256 @@
+package alden;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BK-tree over the distinct lowercased words of task descriptions, for finding the tasks whose words are
+ * within a small edit distance of a misspelt query word.
+ *
+ * <p>Each node holds one word, and its children are keyed by their Levenshtein distance to it. Since the
+ * distance obeys the triangle inequality, a search within distance k that is at distance d from a node only
+ * has to descend into the children keyed d - k to d + k, which leaves most of the vocabulary unvisited.
+ * The words are the same as those of the {@link TokenIndex}, and each node keeps the posting list of its word.</p>
+ *
+ * <p>A BK-tree cannot remove a word without rebuilding the subtree under it, so a word no task holds any
+ * longer stays in the tree with an empty posting list and is skipped by searches. Once such words make up
+ * most of the tree, it is rebuilt from the live words.</p>
+ */
+public class FuzzyTermIndex implements TaskIndex {
+    private static final int SHORT_WORD_LENGTH = 4; // Words up to this long only tolerate a single edit
+    private static final int MIN_REBUILD_SIZE = 1024; // Trees smaller than this are never rebuilt
+
+    private final HashMap<String, Node> nodes = new HashMap<>(); // Node of every word in the tree
+    private Node root;
+    private int emptyCount; // Nodes whose word no task holds any longer
+
+    @Override
+    public void add(long sequence, Task task) {
+        for (String word : TokenIndex.tokenize(task.getDescription().toLowerCase())) {
+            Node node = nodes.get(word);
+            if (node == null) {
+                node = new Node(word);
+                nodes.put(word, node);
+                insert(node);
+            } else if (node.postings.isEmpty()) {
+                emptyCount--;
+            }
+            node.postings.add(sequence);
+        }
+    }
+
+    @Override
+    public void remove(long sequence, Task task) {
+        for (String word : TokenIndex.tokenize(task.getDescription().toLowerCase())) {
+            Node node = nodes.get(word);
+            if (node != null && !node.postings.isEmpty()) {
+                node.postings.remove(sequence);
+                if (node.postings.isEmpty()) {
+                    emptyCount++;
+                }
+            }
+        }
+        if (nodes.size() >= MIN_REBUILD_SIZE && emptyCount > nodes.size() / 2) {
+            rebuild();
+        }
+    }
+
+    @Override
+    public void clear() {
+        nodes.clear();
+        root = null;
+        emptyCount = 0;
+    }
+
+    /**
+     * Returns the tasks holding, for every word of the query, a word within a small edit distance of it:
+     * one edit for words of up to {@value #SHORT_WORD_LENGTH} letters and two for longer ones.
+     * The tasks are ranked by the sum of those distances, closest first, and tasks at the same distance
+     * are in list order.
+     *
+     * @param query Lowercased query
+     * @return Sequence numbers of the matching tasks, closest first
+     */
+    public long[] closest(String query) {
+        List<String> words = TokenIndex.tokenize(query);
+        if (words.isEmpty() || root == null) {
+            return new long[0];
+        }
+        HashMap<Long, Integer> distances = null;
+        for (String word : words) {
+            HashMap<Long, Integer> wordDistances = search(word, maxDistanceFor(word));
+            if (distances == null) {
+                distances = wordDistances;
+                continue;
+            }
+            HashMap<Long, Integer> combined = new HashMap<>();
+            for (Map.Entry<Long, Integer> entry : distances.entrySet()) {
+                Integer distance = wordDistances.get(entry.getKey());
+                if (distance != null) {
+                    combined.put(entry.getKey(), entry.getValue() + distance);
+                }
+            }
+            distances = combined;
+        }
+        return rank(distances, 2 * words.size());
+    }
+
+    /**
+     * Returns the largest edit distance at which a word of the vocabulary still counts as a match.
+     *
+     * @param word Query word
+     * @return The distance
+     */
+    static int maxDistanceFor(String word) {
+        return word.length() <= SHORT_WORD_LENGTH ? 1 : 2;
+    }
+
+    /**
+     * Finds the tasks holding a word within the given distance of the query word.
+     *
+     * @param word Query word
+     * @param maxDistance Largest distance of a matching word
+     * @return The smallest distance of a matching word in each task, by sequence number
+     */
+    private HashMap<Long, Integer> search(String word, int maxDistance) {
+        HashMap<Long, Integer> distances = new HashMap<>();
+        int[] previous = new int[word.length() + 1];
+        int[] current = new int[word.length() + 1];
+        ArrayDeque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            int distance = distance(word, node.word, previous, current);
+            if (distance <= maxDistance) {
+                for (int i = 0; i < node.postings.size(); i++) {
+                    distances.merge(node.postings.get(i), distance, Math::min);
+                }
+            }
+            int last = Math.min(distance + maxDistance, node.children.length - 1);
+            for (int childDistance = Math.max(1, distance - maxDistance); childDistance <= last; childDistance++) {
+                if (node.children[childDistance] != null) {
+                    pending.push(node.children[childDistance]);
+                }
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * Orders the matching tasks by distance with a bucket per distance, as distances are small.
+     *
+     * @param distances Distance of each matching task, by sequence number
+     * @param maxDistance Largest distance any task can have
+     * @return Sequence numbers, closest first and in list order within a distance
+     */
+    private static long[] rank(HashMap<Long, Integer> distances, int maxDistance) {
+        long[][] buckets = new long[maxDistance + 1][];
+        int[] sizes = new int[maxDistance + 1];
+        for (int distance : distances.values()) {
+            sizes[distance]++;
+        }
+        for (int distance = 0; distance <= maxDistance; distance++) {
+            buckets[distance] = new long[sizes[distance]];
+            sizes[distance] = 0;
+        }
+        for (Map.Entry<Long, Integer> entry : distances.entrySet()) {
+            int distance = entry.getValue();
+            buckets[distance][sizes[distance]++] = entry.getKey();
+        }
+        long[] ranked = new long[distances.size()];
+        int offset = 0;
+        for (long[] bucket : buckets) {
+            Arrays.sort(bucket);
+            System.arraycopy(bucket, 0, ranked, offset, bucket.length);
+            offset += bucket.length;
+        }
+        return ranked;
+    }
+
+    /**
+     * Computes the Levenshtein distance between two words with two reusable rows of the usual table.
+     *
+     * @param word The query word, whose length the rows are sized for
+     * @param other The word to compare it with
+     * @param previous Scratch row
+     * @param current Scratch row
+     * @return The number of insertions, deletions and substitutions turning one word into the other
+     */
+    static int distance(String word, String other, int[] previous, int[] current) {
+        for (int i = 0; i <= word.length(); i++) {
+            previous[i] = i;
+        }
+        for (int j = 1; j <= other.length(); j++) {
+            current[0] = j;
+            char c = other.charAt(j - 1);
+            for (int i = 1; i <= word.length(); i++) {
+                int substitution = previous[i - 1] + (word.charAt(i - 1) == c ? 0 : 1);
+                current[i] = Math.min(substitution, Math.min(previous[i], current[i - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[word.length()];
+    }
+
+    private void insert(Node node) {
+        if (root == null) {
+            root = node;
+            return;
+        }
+        int[] previous = new int[node.word.length() + 1];
+        int[] current = new int[node.word.length() + 1];
+        Node parent = root;
+        while (true) {
+            int distance = distance(node.word, parent.word, previous, current);
+            if (distance >= parent.children.length) {
+                parent.children = Arrays.copyOf(parent.children, distance + 1);
+            }
+            if (parent.children[distance] == null) {
+                parent.children[distance] = node;
+                return;
+            }
+            parent = parent.children[distance];
+        }
+    }
+
+    /**
+     * Rebuilds the tree from the words some task still holds.
+     */
+    private void rebuild() {
+        ArrayList<Node> live = new ArrayList<>();
+        for (Node node : nodes.values()) {
+            if (!node.postings.isEmpty()) {
+                live.add(new Node(node.word, node.postings));
+            }
+        }
+        clear();
+        for (Node node : live) {
+            nodes.put(node.word, node);
+            insert(node);
+        }
+    }
+
+    /**
+     * Word of the vocabulary with the tasks holding it and its children by distance.
+     */
+    private static class Node {
+        private final String word;
+        private final PostingList postings;
+        private Node[] children = new Node[0]; // Child at each distance from this word, or null
+
+        Node(String word) {
+            this(word, new PostingList());
+        }
+
+        Node(String word, PostingList postings) {
+            this.word = word;
+            this.postings = postings;
+        }
+    }
+}
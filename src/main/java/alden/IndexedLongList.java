@@ -0,0 +1,445 @@
+package alden;
+
+import java.util.Arrays;
+
+/**
+ * List of longs held in a counted B+ tree, so that reading, inserting and removing at any position
+ * all take O(log n) instead of shifting the tail of an array.
+ *
+ * <p>Leaves hold runs of values and inner nodes know the number of values below each child, which
+ * is all that positional access needs. Each node also remembers its last value: when the values are
+ * kept in ascending order, that lets {@link #indexOf(long)} find a value's position by descending
+ * the tree as well.</p>
+ *
+ * <p>{@link #snapshot()} shares the tree with the copy it returns. Nodes remember the list that created
+ * them, and a list copies a node it did not create before changing it, so that a change after a snapshot
+ * copies only the path to the changed leaf.</p>
+ */
+public class IndexedLongList {
+    private static final int LEAF_CAPACITY = 128;
+    private static final int INNER_CAPACITY = 32;
+
+    private Object owner = new Object(); // Nodes created under another owner may be shared and are copied first
+    private Node root = new Leaf(owner);
+
+    /**
+     * Creates an empty list.
+     */
+    public IndexedLongList() {
+    }
+
+    /**
+     * Creates a list holding the first values of an array, packing them into full leaves.
+     *
+     * @param values Array holding the values
+     * @param count Number of values to take from the start of the array
+     */
+    public IndexedLongList(long[] values, int count) {
+        if (count == 0) {
+            return;
+        }
+        Node[] level = new Node[(count + LEAF_CAPACITY - 1) / LEAF_CAPACITY];
+        for (int i = 0; i < level.length; i++) {
+            Leaf leaf = new Leaf(owner);
+            leaf.size = Math.min(LEAF_CAPACITY, count - i * LEAF_CAPACITY);
+            System.arraycopy(values, i * LEAF_CAPACITY, leaf.values, 0, leaf.size);
+            level[i] = leaf;
+        }
+        while (level.length > 1) {
+            Node[] parents = new Node[(level.length + INNER_CAPACITY - 1) / INNER_CAPACITY];
+            for (int i = 0; i < parents.length; i++) {
+                Inner inner = new Inner(owner);
+                inner.childCount = Math.min(INNER_CAPACITY, level.length - i * INNER_CAPACITY);
+                System.arraycopy(level, i * INNER_CAPACITY, inner.children, 0, inner.childCount);
+                inner.recount();
+                parents[i] = inner;
+            }
+            level = parents;
+        }
+        root = level[0];
+    }
+
+    /**
+     * Returns the value at the given position.
+     *
+     * @param index Zero-based position
+     * @return The value
+     */
+    public long get(int index) {
+        checkIndex(index, size());
+        Node node = root;
+        while (node instanceof Inner inner) {
+            int child = 0;
+            while (index >= inner.children[child].size) {
+                index -= inner.children[child].size;
+                child++;
+            }
+            node = inner.children[child];
+        }
+        return ((Leaf) node).values[index];
+    }
+
+    /**
+     * Appends a value to the end of the list.
+     *
+     * @param value The value
+     */
+    public void add(long value) {
+        add(size(), value);
+    }
+
+    /**
+     * Inserts a value at the given position, moving later values up by one.
+     *
+     * @param index Zero-based position, at most the size of the list
+     * @param value The value
+     */
+    public void add(int index, long value) {
+        checkIndex(index, size() + 1);
+        root = root.writable(owner);
+        Node sibling = root.insert(owner, index, value);
+        if (sibling != null) {
+            Inner newRoot = new Inner(owner);
+            newRoot.children[0] = root;
+            newRoot.children[1] = sibling;
+            newRoot.childCount = 2;
+            newRoot.recount();
+            root = newRoot;
+        }
+    }
+
+    /**
+     * Removes the value at the given position, moving later values down by one.
+     *
+     * @param index Zero-based position
+     * @return The removed value
+     */
+    public long remove(int index) {
+        checkIndex(index, size());
+        root = root.writable(owner);
+        long value = root.remove(owner, index);
+        while (root instanceof Inner inner && inner.childCount == 1) {
+            root = inner.children[0];
+        }
+        return value;
+    }
+
+    /**
+     * Returns the position of a value, provided the list is in ascending order.
+     *
+     * @param value The value to look for
+     * @return The position of the value, or -1 if it is not in the list
+     */
+    public int indexOf(long value) {
+        int position = binarySearch(value);
+        return position >= 0 ? position : -1;
+    }
+
+    /**
+     * Searches for a value, provided the list is in ascending order, in the manner of
+     * {@link Arrays#binarySearch(long[], long)}.
+     *
+     * @param value The value to look for
+     * @return The position of the value, or (-(insertion point) - 1) if it is not in the list
+     */
+    public int binarySearch(long value) {
+        int position = 0;
+        Node node = root;
+        while (node instanceof Inner inner) {
+            int child = 0;
+            while (child < inner.childCount - 1 && inner.children[child].last() < value) {
+                position += inner.children[child].size;
+                child++;
+            }
+            node = inner.children[child];
+        }
+        Leaf leaf = (Leaf) node;
+        int found = Arrays.binarySearch(leaf.values, 0, leaf.size, value);
+        return found >= 0 ? position + found : found - position;
+    }
+
+    /**
+     * Returns the number of values in the list.
+     *
+     * @return The size of the list
+     */
+    public int size() {
+        return root.size;
+    }
+
+    /**
+     * Removes every value.
+     */
+    public void clear() {
+        root = new Leaf(owner);
+    }
+
+    /**
+     * Returns a copy of the list in O(1). The copy shares the tree with this list, and each of the two
+     * copies the nodes it changes from then on, so neither sees the changes of the other.
+     *
+     * @return The copy
+     */
+    public IndexedLongList snapshot() {
+        owner = new Object();
+        IndexedLongList copy = new IndexedLongList();
+        copy.root = root;
+        return copy;
+    }
+
+    /**
+     * Copies the values into a new array, in order.
+     *
+     * @return The values
+     */
+    public long[] toArray() {
+        long[] values = new long[size()];
+        root.copyTo(values, 0);
+        return values;
+    }
+
+    private static void checkIndex(int index, int bound) {
+        if (index < 0 || index >= bound) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + bound);
+        }
+    }
+
+    /**
+     * Node of the tree, knowing how many values lie below it.
+     */
+    private abstract static class Node {
+        protected final Object owner;
+        protected int size;
+
+        Node(Object owner) {
+            this.owner = owner;
+        }
+
+        /**
+         * Returns this node if it was created under the given owner, or else a copy created under it.
+         */
+        Node writable(Object writer) {
+            return owner == writer ? this : copy(writer);
+        }
+
+        abstract Node copy(Object writer);
+
+        /**
+         * Inserts a value below this node, which must belong to the given owner.
+         *
+         * @return A new right sibling holding the upper half if the node had to split, otherwise null
+         */
+        abstract Node insert(Object writer, int index, long value);
+
+        abstract long remove(Object writer, int index);
+
+        abstract long last();
+
+        abstract int copyTo(long[] target, int offset);
+
+        abstract boolean isSparse();
+
+        /**
+         * Moves the contents of the next sibling into this node, if they fit.
+         *
+         * @return True if the sibling was absorbed and can be dropped
+         */
+        abstract boolean absorb(Node next);
+    }
+
+    private static class Leaf extends Node {
+        private final long[] values = new long[LEAF_CAPACITY];
+
+        Leaf(Object owner) {
+            super(owner);
+        }
+
+        @Override
+        Node copy(Object writer) {
+            Leaf copy = new Leaf(writer);
+            System.arraycopy(values, 0, copy.values, 0, size);
+            copy.size = size;
+            return copy;
+        }
+
+        @Override
+        Node insert(Object writer, int index, long value) {
+            if (size < LEAF_CAPACITY) {
+                System.arraycopy(values, index, values, index + 1, size - index);
+                values[index] = value;
+                size++;
+                return null;
+            }
+            Leaf upper = new Leaf(writer);
+            int half = LEAF_CAPACITY / 2;
+            System.arraycopy(values, half, upper.values, 0, LEAF_CAPACITY - half);
+            upper.size = LEAF_CAPACITY - half;
+            size = half;
+            if (index <= half) {
+                insert(writer, index, value);
+            } else {
+                upper.insert(writer, index - half, value);
+            }
+            return upper;
+        }
+
+        @Override
+        long remove(Object writer, int index) {
+            long value = values[index];
+            System.arraycopy(values, index + 1, values, index, size - index - 1);
+            size--;
+            return value;
+        }
+
+        @Override
+        long last() {
+            return size == 0 ? Long.MIN_VALUE : values[size - 1];
+        }
+
+        @Override
+        int copyTo(long[] target, int offset) {
+            System.arraycopy(values, 0, target, offset, size);
+            return offset + size;
+        }
+
+        @Override
+        boolean isSparse() {
+            return size < LEAF_CAPACITY / 4;
+        }
+
+        @Override
+        boolean absorb(Node next) {
+            Leaf leaf = (Leaf) next;
+            if (size + leaf.size > LEAF_CAPACITY) {
+                return false;
+            }
+            System.arraycopy(leaf.values, 0, values, size, leaf.size);
+            size += leaf.size;
+            return true;
+        }
+    }
+
+    private static class Inner extends Node {
+        private final Node[] children = new Node[INNER_CAPACITY];
+        private int childCount;
+        private long last;
+
+        Inner(Object owner) {
+            super(owner);
+        }
+
+        @Override
+        Node copy(Object writer) {
+            Inner copy = new Inner(writer);
+            System.arraycopy(children, 0, copy.children, 0, childCount);
+            copy.childCount = childCount;
+            copy.size = size;
+            copy.last = last;
+            return copy;
+        }
+
+        @Override
+        Node insert(Object writer, int index, long value) {
+            int child = 0;
+            while (child < childCount - 1 && index > children[child].size) {
+                index -= children[child].size;
+                child++;
+            }
+            children[child] = children[child].writable(writer);
+            Node sibling = children[child].insert(writer, index, value);
+            size++;
+            if (sibling == null) {
+                last = children[childCount - 1].last();
+                return null;
+            }
+            if (childCount < INNER_CAPACITY) {
+                insertChild(child + 1, sibling);
+                return null;
+            }
+            Inner upper = new Inner(writer);
+            int half = INNER_CAPACITY / 2;
+            System.arraycopy(children, half, upper.children, 0, INNER_CAPACITY - half);
+            Arrays.fill(children, half, INNER_CAPACITY, null);
+            upper.childCount = INNER_CAPACITY - half;
+            childCount = half;
+            if (child < half) {
+                insertChild(child + 1, sibling);
+            } else {
+                upper.insertChild(child - half + 1, sibling);
+            }
+            recount();
+            upper.recount();
+            return upper;
+        }
+
+        @Override
+        long remove(Object writer, int index) {
+            int child = 0;
+            while (index >= children[child].size) {
+                index -= children[child].size;
+                child++;
+            }
+            children[child] = children[child].writable(writer);
+            long value = children[child].remove(writer, index);
+            size--;
+            if (children[child].isSparse()) {
+                // Merge with a neighbour when both fit in one node, so that removals keep the tree compact
+                int left = child > 0 ? child - 1 : child;
+                if (left + 1 < childCount) {
+                    children[left] = children[left].writable(writer);
+                    if (children[left].absorb(children[left + 1])) {
+                        System.arraycopy(children, left + 2, children, left + 1, childCount - left - 2);
+                        children[--childCount] = null;
+                    }
+                }
+            }
+            last = children[childCount - 1].last();
+            return value;
+        }
+
+        @Override
+        long last() {
+            return last;
+        }
+
+        @Override
+        int copyTo(long[] target, int offset) {
+            for (int i = 0; i < childCount; i++) {
+                offset = children[i].copyTo(target, offset);
+            }
+            return offset;
+        }
+
+        @Override
+        boolean isSparse() {
+            return childCount < INNER_CAPACITY / 4;
+        }
+
+        @Override
+        boolean absorb(Node next) {
+            Inner inner = (Inner) next;
+            if (childCount + inner.childCount > INNER_CAPACITY) {
+                return false;
+            }
+            System.arraycopy(inner.children, 0, children, childCount, inner.childCount);
+            childCount += inner.childCount;
+            recount();
+            return true;
+        }
+
+        private void insertChild(int position, Node child) {
+            System.arraycopy(children, position, children, position + 1, childCount - position);
+            children[position] = child;
+            childCount++;
+            recount();
+        }
+
+        void recount() {
+            size = 0;
+            for (int i = 0; i < childCount; i++) {
+                size += children[i].size;
+            }
+            last = children[childCount - 1].last();
+        }
+    }
+}
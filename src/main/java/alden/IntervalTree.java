@@ -0,0 +1,228 @@
+package alden;
+
+import java.util.ArrayList;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Interval tree over the time spans of events. Events are kept in a treap ordered by start time, with each
+ * node also holding the latest end time in its subtree, so that whole subtrees ending before a query range
+ * can be skipped. Finding the events that overlap a range therefore costs O(log n + k) for k matches.
+ * Two events overlap when each starts before the other ends, so an event ending exactly when another
+ * starts does not overlap it.
+ */
+public class IntervalTree implements TaskIndex {
+    private final Random random = new Random();
+    private Node root;
+    private int size;
+
+    @Override
+    public void add(long sequence, Task task) {
+        if (task instanceof Event event) {
+            root = insert(root, new Node(startOf(event), endOf(event), sequence, random.nextInt()));
+            size++;
+        }
+    }
+
+    @Override
+    public void remove(long sequence, Task task) {
+        if (task instanceof Event event) {
+            root = delete(root, startOf(event), sequence);
+        }
+    }
+
+    @Override
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    /**
+     * Returns the events whose spans overlap the given range, ordered by start time.
+     *
+     * @param from Start of the range in epoch seconds, inclusive
+     * @param to End of the range in epoch seconds, exclusive
+     * @return Sequence numbers of the overlapping events
+     */
+    public long[] overlapping(long from, long to) {
+        ArrayList<Node> matches = new ArrayList<>();
+        collectOverlapping(root, from, to, matches);
+        long[] sequences = new long[matches.size()];
+        for (int i = 0; i < sequences.length; i++) {
+            sequences[i] = matches.get(i).sequence;
+        }
+        return sequences;
+    }
+
+    /**
+     * Finds every pair of overlapping events with a sweep over the events in order of start time.
+     * Events still running when the sweep reaches a start overlap the starting event; the running events
+     * are kept in a heap by end time, so finished ones drop out in O(log n) each.
+     *
+     * @return Pairs of sequence numbers, the earlier-starting event first, ordered by the start of the second
+     */
+    public ArrayList<long[]> overlappingPairs() {
+        ArrayList<long[]> pairs = new ArrayList<>();
+        ArrayList<Node> ordered = new ArrayList<>(size);
+        collectInOrder(root, ordered);
+        PriorityQueue<Node> running = new PriorityQueue<>((a, b) -> Long.compare(a.end, b.end));
+        for (Node node : ordered) {
+            while (!running.isEmpty() && running.peek().end <= node.start) {
+                running.poll();
+            }
+            for (Node other : running) {
+                if (other.start < node.end) { // Fails only for an instant event starting together with another
+                    pairs.add(new long[] {other.sequence, node.sequence});
+                }
+            }
+            if (node.end > node.start) {
+                running.add(node);
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * Returns the number of indexed events.
+     *
+     * @return The number of events
+     */
+    public int size() {
+        return size;
+    }
+
+    private static long startOf(Event event) {
+        return TimeIndex.toEpochSecond(event.getStartDateTime());
+    }
+
+    private static long endOf(Event event) {
+        return TimeIndex.toEpochSecond(event.getEndDateTime());
+    }
+
+    private Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (added.compareTo(node.start, node.sequence) < 0) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        node.update();
+        return node;
+    }
+
+    private Node delete(Node node, long start, long sequence) {
+        if (node == null) {
+            return null;
+        }
+        int comparison = node.compareTo(start, sequence);
+        if (comparison > 0) {
+            node.left = delete(node.left, start, sequence);
+        } else if (comparison < 0) {
+            node.right = delete(node.right, start, sequence);
+        } else {
+            size--;
+            return merge(node.left, node.right);
+        }
+        node.update();
+        return node;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        } else if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+
+    private static void collectOverlapping(Node node, long from, long to, ArrayList<Node> matches) {
+        if (node == null || node.maxEnd <= from) {
+            return; // Everything below ends before the range starts
+        }
+        collectOverlapping(node.left, from, to, matches);
+        if (node.start < to) {
+            if (node.end > from) {
+                matches.add(node);
+            }
+            collectOverlapping(node.right, from, to, matches);
+        }
+    }
+
+    private static void collectInOrder(Node node, ArrayList<Node> ordered) {
+        if (node != null) {
+            collectInOrder(node.left, ordered);
+            ordered.add(node);
+            collectInOrder(node.right, ordered);
+        }
+    }
+
+    /**
+     * Treap node holding one event, ordered by start time and then by sequence number.
+     */
+    private static class Node {
+        private final long start;
+        private final long end;
+        private final long sequence;
+        private final int priority;
+        private long maxEnd;
+        private Node left;
+        private Node right;
+
+        Node(long start, long end, long sequence, int priority) {
+            this.start = start;
+            this.end = end;
+            this.sequence = sequence;
+            this.priority = priority;
+            this.maxEnd = end;
+        }
+
+        int compareTo(long otherStart, long otherSequence) {
+            int comparison = Long.compare(start, otherStart);
+            return comparison != 0 ? comparison : Long.compare(sequence, otherSequence);
+        }
+
+        void update() {
+            maxEnd = end;
+            if (left != null) {
+                maxEnd = Math.max(maxEnd, left.maxEnd);
+            }
+            if (right != null) {
+                maxEnd = Math.max(maxEnd, right.maxEnd);
+            }
+        }
+    }
+}
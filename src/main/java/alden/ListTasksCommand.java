@@ -1,14 +1,94 @@
 package alden;
 
 /**
- * Represents the command to list all tasks in the task list.
- * This command handles displaying the current tasks to the user.
+ * Represents the command to list the tasks in the task list.
+ * This command handles displaying either every task, one group of tasks such as the open ones,
+ * or one window of the list such as a page, in list order or by date.
  */
 public class ListTasksCommand extends Command {
+    private final TaskFilter filter; // Group of tasks to list, or null to list every task
+    private final boolean isByDate;
+    private final int windowStart; // Zero-based index of the first task to list, or -1 to list them all
+    private final int windowEnd; // Zero-based index after the last task to list
+    private final int page; // Page of a group or of the tasks by date, or 0 if none was asked for
+    private final String command; // The command without its page, for the hint to the next page
 
     /**
-     * Executes the list tasks command by displaying all tasks in the task list.
-     * This method invokes the UI to print all tasks, regardless of their completion status.
+     * Constructs a ListTasksCommand from the user input, which is "list" optionally followed by a group
+     * of tasks: done, open, todos, deadlines or events, or by "by date" to list every task chronologically,
+     * or by "page N" or "from A to B" to list only some of the tasks by their numbers.
+     * A group or the tasks by date may be followed by "page N" too, as in "list open page 2".
+     *
+     * @param userInput The user input containing the list command.
+     * @throws AldenException If the group of tasks or the page number is not recognised.
+     */
+    public ListTasksCommand(String userInput) throws AldenException {
+        String argument = userInput.substring(4).trim();
+        String[] words = argument.split("\\s+");
+        if (words.length == 2 && words[0].equalsIgnoreCase("page")) {
+            long listPage = parseNumber(words[1], "Invalid page number.");
+            windowStart = (int) Math.min((listPage - 1) * Ui.PAGE_SIZE, Integer.MAX_VALUE);
+            windowEnd = (int) Math.min(listPage * Ui.PAGE_SIZE, Integer.MAX_VALUE);
+            isByDate = false;
+            page = 0;
+            command = null;
+            filter = null;
+            return;
+        }
+        if (words.length == 4 && words[0].equalsIgnoreCase("from") && words[2].equalsIgnoreCase("to")) {
+            windowStart = parseNumber(words[1], "Invalid task number.") - 1;
+            windowEnd = parseNumber(words[3], "Invalid task number.");
+            if (windowEnd <= windowStart) {
+                throw new AldenException("The first task number must not be greater than the last.");
+            }
+            isByDate = false;
+            page = 0;
+            command = null;
+            filter = null;
+            return;
+        }
+        windowStart = -1;
+        windowEnd = -1;
+        page = pageOf(userInput);
+        command = withoutPage(userInput);
+        argument = command.substring(4).trim();
+        isByDate = argument.equalsIgnoreCase("by date");
+        if (argument.isEmpty() || isByDate) {
+            filter = null;
+            return;
+        }
+        filter = TaskFilter.fromKeyword(argument);
+        if (filter == null) {
+            throw new AldenException("Invalid list type. Use 'list', 'list by date', 'list page N', "
+                    + "'list from A to B', or 'list' followed by done, open, todos, deadlines or events.");
+        }
+    }
+
+    /**
+     * Parses a number of one or more.
+     *
+     * @param text The text of the number.
+     * @param errorMessage The message of the error thrown if the text is not such a number.
+     * @return The number.
+     * @throws AldenException If the text is not a number of one or more.
+     */
+    private static int parseNumber(String text, String errorMessage) throws AldenException {
+        try {
+            int number = Integer.parseInt(text);
+            if (number < 1) {
+                throw new AldenException(errorMessage);
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new AldenException(errorMessage);
+        }
+    }
+
+    /**
+     * Executes the list tasks command by displaying the requested tasks.
+     * A group of tasks is looked up in the task list's bitmaps, so only the tasks in it are read,
+     * and the chronological order is read from a view the task list maintains. A window of the list
+     * only reads and formats the tasks in it, and so does a page of a group or of the tasks by date.
      *
      * @param tasks The current task list to be displayed.
      * @param ui The UI object used to display the tasks.
@@ -17,6 +97,14 @@ public class ListTasksCommand extends Command {
      */
     @Override
     public void execute(TaskList tasks, Ui ui, Storage storage) throws AldenException {
-        ui.printTaskList(tasks); // Display the current task list
+        if (windowStart >= 0) {
+            ui.showTaskWindow(tasks, windowStart, windowEnd);
+        } else if (isByDate) {
+            ui.showTasksByDate(tasks, tasks.indexesByDate(), page, command);
+        } else if (filter == null) {
+            ui.printTaskList(tasks); // Display the current task list
+        } else {
+            ui.showFilteredTasks(tasks, tasks.indexesOf(filter), filter, page, command);
+        }
     }
 }
@@ -0,0 +1,55 @@
+package alden;
+
+/**
+ * Summary of a completed snapshot load, including its throughput.
+ */
+public class LoadStats {
+    private static final double BYTES_PER_MB = 1024.0 * 1024.0;
+
+    private final int taskCount;
+    private final long byteCount;
+    private final long elapsedNanos;
+
+    /**
+     * Creates load statistics.
+     *
+     * @param taskCount Number of tasks loaded
+     * @param byteCount Number of bytes read
+     * @param elapsedNanos Time taken in nanoseconds
+     */
+    public LoadStats(int taskCount, long byteCount, long elapsedNanos) {
+        this.taskCount = taskCount;
+        this.byteCount = byteCount;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getTaskCount() {
+        return taskCount;
+    }
+
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Returns the load throughput in megabytes per second.
+     *
+     * @return Throughput in MB/s, or 0 if no time was measured
+     */
+    public double getMegabytesPerSecond() {
+        if (elapsedNanos <= 0) {
+            return 0;
+        }
+        return (byteCount / BYTES_PER_MB) / (elapsedNanos / 1e9);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Loaded %d tasks (%.1f MB) in %d ms, %.1f MB/s", taskCount,
+                byteCount / BYTES_PER_MB, elapsedNanos / 1_000_000, getMegabytesPerSecond());
+    }
+}
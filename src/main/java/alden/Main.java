@@ -31,12 +31,15 @@ public class Main extends Application {
     private static final double SEND_BUTTON_WIDTH = 55.0;
     private static final double LAYOUT_PADDING = 1.0;
     private static final int EXIT_DELAY_MS = 1500;
+    private static final long FLUSH_INTERVAL_MS = 50;
+    private static final long SYNC_INTERVAL_MS = 1000; // How often written data is forced to disk
 
     private final Image userImage;
     private final Image aldenImage;
     private TaskList tasks;
     private Storage storage;
     private Ui ui;
+    private ReminderScheduler reminders;
     private ScrollPane scrollPane;
     private VBox dialogContainer;
     private TextField inputField;
@@ -72,6 +75,7 @@ public class Main extends Application {
         tasks = new TaskList();
         storage = new Storage(FILE_PATH);
         ui = new Ui();
+        reminders = new ReminderScheduler(tasks, ui);
         scrollPane = new ScrollPane();
         dialogContainer = new VBox();
         scrollPane.setContent(dialogContainer);
@@ -201,7 +205,13 @@ public class Main extends Application {
     private void loadTasksAndShowWelcome() {
         ui.setGuiMode(dialogContainer);
         storage.load(tasks);
+        storage.setDurability(DurabilityMode.PERIODIC, SYNC_INTERVAL_MS);
+        storage.enableAsyncWrites(FLUSH_INTERVAL_MS);
+        reminders.start();
         ui.showWelcome();
+        if (storage.shouldOfferMigration()) {
+            ui.showMigrationOffer(tasks.size());
+        }
     }
 
     /**
@@ -242,13 +252,16 @@ public class Main extends Application {
      */
     private void executeCommand(String input) throws AldenException {
         Command command = Parser.parse(input);
+        tasks.markUndoPoint(); // Changes made by the command are undone together
         command.execute(tasks, ui, storage);
     }
 
     /**
-     * Handles the exit command by showing goodbye message and scheduling application exit.
+     * Handles the exit command by flushing pending saves, showing goodbye message and scheduling application exit.
      */
     private void handleExitCommand() {
+        reminders.stop();
+        storage.flush();
         ui.showGoodbye();
         scheduleApplicationExit();
     }
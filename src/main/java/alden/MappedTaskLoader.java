@@ -0,0 +1,277 @@
+package alden;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Bulk loader that memory-maps the text storage file and parses it directly in bytes.
+ * Fields are located by scanning for the {@code " | "} delimiter and line ends instead of
+ * running a regular expression over every line, and only the field values themselves
+ * are turned into strings. The tasks produced are identical to those of the line-based loader.
+ * Tasks whose status field can be rewritten in place are stamped with the offset of their record.
+ * Each instance keeps its own scratch state, so concurrent parsers need separate instances.
+ */
+public class MappedTaskLoader {
+    private static final long MAX_WINDOW_SIZE = 1L << 30; // Largest region mapped at once
+    private static final int MAX_FIELDS = 8; // Fields beyond the seventh are never read
+
+    private final Storage storage;
+    private final int generation;
+    private final Charset charset = Charset.defaultCharset();
+    private final int[] fieldStarts = new int[MAX_FIELDS];
+    private final int[] fieldEnds = new int[MAX_FIELDS];
+    private byte[] scratch = new byte[256];
+    private ByteBuffer buffer;
+    private long bufferOffset; // Position of the mapped window in the file
+
+    /**
+     * Creates a loader that builds tasks through the given storage's record factory
+     * for the storage's current snapshot.
+     *
+     * @param storage Storage whose task factory and error reporting are used
+     */
+    public MappedTaskLoader(Storage storage) {
+        this(storage, storage.getSnapshotGeneration());
+    }
+
+    /**
+     * Creates a loader that builds tasks through the given storage's record factory
+     * for the snapshot of the given generation.
+     *
+     * @param storage Storage whose task factory and error reporting are used
+     * @param generation Generation of the snapshot being parsed, used to stamp record locations
+     */
+    public MappedTaskLoader(Storage storage, int generation) {
+        this.storage = storage;
+        this.generation = generation;
+    }
+
+    /**
+     * Loads every task in the file into the given task list.
+     *
+     * @param file Text storage file to load
+     * @param tasks TaskList to populate with loaded tasks
+     * @return Statistics describing the load
+     * @throws IOException if the file cannot be mapped
+     */
+    public LoadStats load(File file, TaskList tasks) throws IOException {
+        long startTime = System.nanoTime();
+        int sizeBefore = tasks.size();
+        long size;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            size = channel.size();
+            long windowStart = 0;
+            while (windowStart < size) {
+                MappedByteBuffer window = mapWindow(channel, windowStart);
+                int end = completeLinesEnd(window, windowStart + window.limit() == size);
+                parseRange(window, windowStart, 0, end, tasks::addTask);
+                windowStart += end;
+            }
+        } finally {
+            buffer = null;
+        }
+        return new LoadStats(tasks.size() - sizeBefore, size, System.nanoTime() - startTime);
+    }
+
+    /**
+     * Maps the next window of the file, starting at the given position.
+     * The window is extended to the end of the file if it would otherwise not hold a single complete line.
+     *
+     * @param channel Channel of the file being loaded
+     * @param windowStart Position of the first byte of the window
+     * @return The mapped window
+     * @throws IOException if the file cannot be mapped
+     */
+    static MappedByteBuffer mapWindow(FileChannel channel, long windowStart) throws IOException {
+        long size = channel.size();
+        long windowSize = Math.min(MAX_WINDOW_SIZE, size - windowStart);
+        MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowSize);
+        if (windowStart + windowSize < size && completeLinesEnd(window, false) == 0) {
+            // A single line spans the whole window; map the rest of the file in one go
+            window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, size - windowStart);
+        }
+        return window;
+    }
+
+    /**
+     * Returns the offset just past the last complete line in the window.
+     *
+     * @param window Mapped window of the file
+     * @param isLastWindow True if the window ends at the end of the file, so a trailing line is complete
+     * @return Offset just past the last line feed, or the window limit for the last window
+     */
+    static int completeLinesEnd(ByteBuffer window, boolean isLastWindow) {
+        int limit = window.limit();
+        if (isLastWindow) {
+            return limit;
+        }
+        for (int i = limit - 1; i >= 0; i--) {
+            if (window.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Parses every line in a byte range of a mapped window, handing each created task to the sink in order.
+     * The range must start at the beginning of a line and end just past a line feed or at the end of the file.
+     *
+     * @param window Mapped window of the file
+     * @param windowOffset Position of the window in the file
+     * @param start Offset of the first byte of the range
+     * @param end Offset just past the last byte of the range
+     * @param sink Receiver of the tasks created from the range
+     */
+    void parseRange(ByteBuffer window, long windowOffset, int start, int end, Consumer<Task> sink) {
+        buffer = window;
+        bufferOffset = windowOffset;
+        int lineStart = start;
+        for (int i = start; i < end; i++) {
+            if (buffer.get(i) == '\n') {
+                parseLine(lineStart, i, sink);
+                lineStart = i + 1;
+            }
+        }
+        if (lineStart < end) {
+            parseLine(lineStart, end, sink);
+        }
+    }
+
+    /**
+     * Parses the line occupying the given byte range of the mapped window.
+     *
+     * @param start Offset of the first byte of the line
+     * @param end Offset just past the last byte of the line, excluding the line feed
+     * @param sink Receiver of the parsed task
+     */
+    private void parseLine(int start, int end, Consumer<Task> sink) {
+        // Trim the same characters String.trim() does; multi-byte characters never fall in this range
+        while (start < end && (buffer.get(start) & 0xff) <= ' ') {
+            start++;
+        }
+        while (end > start && (buffer.get(end - 1) & 0xff) <= ' ') {
+            end--;
+        }
+        if (start == end || buffer.get(start) == '#') {
+            return; // Blank line or the snapshot header
+        }
+
+        int fieldCount = splitFields(start, end);
+        String type = typeOf();
+        Task task = storage.createTask(type, fieldCount, isDoneField(fieldCount),
+                fieldOrNull(2, fieldCount), fieldOrNull(3, fieldCount), fieldOrNull(4, fieldCount),
+                fieldOrNull(Storage.idFieldIndex(type), fieldCount),
+                fieldOrNull(Storage.recurrenceFieldIndex(type), fieldCount));
+        if (task != null) {
+            if (hasSingleByteStatus(start, fieldCount)) {
+                task.setRecordLocation(generation, bufferOffset + start);
+            }
+            sink.accept(task);
+        }
+    }
+
+    /**
+     * Returns whether the current line has the layout written by the storage, with a one-byte type
+     * and a one-byte status field, so that its status can later be rewritten in place.
+     *
+     * @param start Offset of the first byte of the trimmed line
+     * @param fieldCount Number of fields on the current line
+     * @return True if the status byte sits at a fixed offset from the start of the record
+     */
+    private boolean hasSingleByteStatus(int start, int fieldCount) {
+        return fieldCount > 1 && fieldEnds[0] == start + 1 && fieldStarts[1] == start + 4
+                && fieldEnds[1] == start + 5;
+    }
+
+    /**
+     * Locates the {@code " | "} delimited fields of a trimmed line, mirroring {@code String.split}.
+     *
+     * @param start Offset of the first byte of the line
+     * @param end Offset just past the last byte of the line
+     * @return Number of fields found, capped at {@link #MAX_FIELDS}
+     */
+    private int splitFields(int start, int end) {
+        int fieldCount = 0;
+        int fieldStart = start;
+        int i = start;
+        while (i + 2 < end && fieldCount < MAX_FIELDS - 1) {
+            if (buffer.get(i) == ' ' && buffer.get(i + 1) == '|' && buffer.get(i + 2) == ' ') {
+                fieldStarts[fieldCount] = fieldStart;
+                fieldEnds[fieldCount] = i;
+                fieldCount++;
+                i += 3;
+                fieldStart = i;
+            } else {
+                i++;
+            }
+        }
+        fieldStarts[fieldCount] = fieldStart;
+        fieldEnds[fieldCount] = end;
+        return fieldCount + 1;
+    }
+
+    /**
+     * Returns the task type code of the current line, reusing constants for the known codes.
+     *
+     * @return The type code
+     */
+    private String typeOf() {
+        if (fieldEnds[0] - fieldStarts[0] == 1) {
+            switch (buffer.get(fieldStarts[0])) {
+            case 'T':
+                return "T";
+            case 'D':
+                return "D";
+            case 'E':
+                return "E";
+            default:
+                break;
+            }
+        }
+        return decode(fieldStarts[0], fieldEnds[0]);
+    }
+
+    /**
+     * Returns whether the status field of the current line is exactly {@code "1"}.
+     *
+     * @param fieldCount Number of fields on the current line
+     * @return True if the task is marked as done
+     */
+    private boolean isDoneField(int fieldCount) {
+        return fieldCount > 1 && fieldEnds[1] - fieldStarts[1] == 1 && buffer.get(fieldStarts[1]) == '1';
+    }
+
+    /**
+     * Decodes the field at the given index of the current line, or returns null if it is absent.
+     *
+     * @param index Index of the field
+     * @param fieldCount Number of fields on the current line
+     * @return The decoded field, or null
+     */
+    private String fieldOrNull(int index, int fieldCount) {
+        return index < fieldCount ? decode(fieldStarts[index], fieldEnds[index]) : null;
+    }
+
+    /**
+     * Decodes a byte range of the mapped window into a string.
+     *
+     * @param start Offset of the first byte
+     * @param end Offset just past the last byte
+     * @return The decoded string
+     */
+    private String decode(int start, int end) {
+        int length = end - start;
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        buffer.get(start, scratch, 0, length);
+        return new String(scratch, 0, length, charset);
+    }
+}
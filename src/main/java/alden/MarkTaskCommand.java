@@ -1,17 +1,23 @@
 package alden;
 
+import java.util.List;
+
 /**
  * Represents the command to mark a task as done or not done.
  * This command handles updating the task's completion status based on user input.
+ * For a repeating task it marks a single occurrence: by default the first one not yet done, or when
+ * unmarking the last one done, and with "/on yyyy/MM/dd" the one falling on that day.
  */
 public class MarkTaskCommand extends Command {
+    private static final String ON = "/on";
+
     private final String userInput;
     private final boolean isDone;
 
     /**
      * Constructs a MarkTaskCommand instance.
      *
-     * @param userInput The user input that contains the task number to mark.
+     * @param userInput The user input that contains the task number, or '#' and the task ID, to mark.
      * @param isDone A boolean indicating whether to mark the task as done (true) or not done (false).
      */
     public MarkTaskCommand(String userInput, boolean isDone) {
@@ -30,18 +36,67 @@ public class MarkTaskCommand extends Command {
      */
     @Override
     public void execute(TaskList tasks, Ui ui, Storage storage) throws AldenException {
-        int taskNumber = Integer.parseInt(userInput.split(" ")[1]) - 1;
-        if (taskNumber < 0 || taskNumber >= tasks.size()) {
-            throw new AldenException("Invalid task number.");
+        int on = userInput.indexOf(ON);
+        String reference = (on < 0 ? userInput : userInput.substring(0, on)).trim().split(" ")[1];
+        int taskNumber = resolveTaskIndex(tasks, reference);
+        if (tasks.get(taskNumber) instanceof RepeatableTask repeating && repeating.getRecurrence() != null) {
+            String date = on < 0 ? null : userInput.substring(on + ON.length());
+            markOccurrence(tasks, ui, storage, taskNumber, repeating, date);
+            return;
         }
-        Task task = tasks.get(taskNumber);
+        if (on >= 0) {
+            throw new AldenException("Only a repeating task can be marked on a date.");
+        }
+        Task task = tasks.markTask(taskNumber, isDone);
         if (isDone) {
-            task.markAsDone();
             ui.showTaskMarkedAsDone(task);
         } else {
-            task.unmarkAsDone();
             ui.showTaskUnmarked(task);
         }
-        storage.save(tasks.getTasks()); // Save the updated task list to storage
+        storage.saveTaskStatus(tasks, taskNumber); // Save the updated task status to storage
+    }
+
+    /**
+     * Marks one occurrence of a repeating task, leaving the others as they are.
+     *
+     * @param tasks The task list to update.
+     * @param ui The UI object used to display the occurrence marked.
+     * @param storage The storage object used to save the change.
+     * @param taskNumber The index of the repeating task.
+     * @param task The repeating task.
+     * @param date The day of the occurrence to mark as given by the user, or null for the default occurrence.
+     * @throws AldenException If the date is invalid or no occurrence can be marked.
+     */
+    private void markOccurrence(TaskList tasks, Ui ui, Storage storage, int taskNumber, RepeatableTask task,
+            String date) throws AldenException {
+        Recurrence recurrence = task.getRecurrence();
+        int occurrence;
+        if (date != null) {
+            List<DateSpan> days = DateSpan.parseAll(date);
+            if (days.size() != 1) {
+                throw new AldenException("Invalid date. Use '" + (isDone ? "mark" : "unmark") + " N /on <date>'.");
+            }
+            occurrence = recurrence.occurrenceOn(task.getFirstOccurrenceTime(), days.get(0).getStart().toLocalDate());
+            if (occurrence < 0) {
+                throw new AldenException("This task does not fall on that day.");
+            }
+        } else if (isDone) {
+            occurrence = recurrence.firstOpen();
+            if (task.isDone()) {
+                throw new AldenException("Every occurrence of this task is already done.");
+            }
+        } else {
+            occurrence = recurrence.lastDone();
+            if (occurrence < 0) {
+                throw new AldenException("No occurrence of this task is done yet.");
+            }
+        }
+        RepeatableTask marked = tasks.markOccurrence(taskNumber, occurrence, isDone);
+        if (isDone) {
+            ui.showTaskMarkedAsDone(marked.getOccurrence(occurrence));
+        } else {
+            ui.showTaskUnmarked(marked.getOccurrence(occurrence));
+        }
+        storage.saveOccurrence(tasks, taskNumber, occurrence, isDone);
     }
 }
@@ -0,0 +1,22 @@
+package alden;
+
+/**
+ * Represents the command to convert the data file from the text format to the binary snapshot format.
+ * This is a one-shot migration; once converted, the data file stays in the binary format.
+ */
+public class MigrateCommand extends Command {
+
+    /**
+     * Executes the migrate command by rewriting the data file in the binary format.
+     *
+     * @param tasks The task list to write in the new format.
+     * @param ui The UI object used to confirm the migration.
+     * @param storage The storage handler that performs the migration.
+     * @throws AldenException If the data file is already in the binary format.
+     */
+    @Override
+    public void execute(TaskList tasks, Ui ui, Storage storage) throws AldenException {
+        storage.migrateToBinary(tasks);
+        ui.showStorageMigrated(tasks.size());
+    }
+}
@@ -0,0 +1,47 @@
+package alden;
+
+/**
+ * Represents a command to show the earliest open deadlines and events.
+ */
+public class NextCommand extends Command {
+    private static final int DEFAULT_COUNT = 10;
+
+    private final int count;
+
+    /**
+     * Constructs a NextCommand from the user input, which is "next" optionally followed by how many
+     * tasks to show.
+     *
+     * @param userInput The user input containing the next command.
+     * @throws AldenException If the number of tasks is not a number of one or more.
+     */
+    public NextCommand(String userInput) throws AldenException {
+        String argument = userInput.substring(4).trim();
+        if (argument.isEmpty()) {
+            count = DEFAULT_COUNT;
+            return;
+        }
+        try {
+            count = Integer.parseInt(argument);
+        } catch (NumberFormatException e) {
+            throw new AldenException("Invalid number of tasks. Use 'next' or 'next N'.");
+        }
+        if (count < 1) {
+            throw new AldenException("Invalid number of tasks. Use 'next' or 'next N'.");
+        }
+    }
+
+    /**
+     * Executes the command by displaying the earliest open deadlines and events.
+     * They are read from a heap the task list maintains, so the list is neither sorted nor rewritten.
+     *
+     * @param tasks   The TaskList containing all tasks.
+     * @param ui      The user interface to interact with the user.
+     * @param storage The storage system (not used in this command).
+     * @throws AldenException If an error occurs during execution.
+     */
+    @Override
+    public void execute(TaskList tasks, Ui ui, Storage storage) throws AldenException {
+        ui.showNextTasks(tasks, tasks.indexesOfNext(count));
+    }
+}
@@ -0,0 +1,400 @@
+package alden;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Task store that leaves tasks in the memory-mapped snapshot file and decodes them on demand.
+ *
+ * <p>Each position holds either the offset of a record in the snapshot or a reference to a task
+ * added since the file was opened. Decoded records are kept in a bounded least-recently-used cache.
+ * A cached task whose completion status was changed, or whose status is held by the journal rather than
+ * by its record, is moved to a separate table of modified tasks when it is evicted, so that changes are
+ * never lost to the cache bound.</p>
+ */
+public class PagedTaskStore implements TaskStore {
+    private static final long SEGMENT_SIZE = 1L << 30; // Largest region mapped at once
+    private static final int SEGMENT_OVERLAP = 1 << 20; // Records may extend this far past their segment
+    private static final int DEFAULT_CACHE_SIZE = 10_000;
+
+    private final MappedByteBuffer[] segments;
+    private final boolean isBinary;
+    private final int binaryVersion; // Format version of a binary snapshot
+    private final Storage storage;
+    private final int generation; // Snapshot generation of the mapped file
+    private final MappedTaskLoader parser;
+    private final LinkedHashMap<Long, Task> cache;
+    private final HashMap<Long, Task> modified = new HashMap<>();
+    private final ArrayList<Task> added = new ArrayList<>(); // Tasks not backed by a record in the file
+
+    // Non-negative slots are record offsets; negative slots are -(i + 1) for added.get(i)
+    private final IndexedLongList slots;
+
+    /**
+     * Creates a store over an already mapped snapshot.
+     *
+     * @param segments Mapped segments of the snapshot file
+     * @param isBinary True if the snapshot is in the binary format
+     * @param binaryVersion Format version of a binary snapshot, ignored for text
+     * @param offsets Offsets of the records in the snapshot, in list order
+     * @param storage Storage whose task factory is used to decode text records
+     * @param generation Snapshot generation of the mapped file, used to stamp record locations
+     * @param cacheSize Largest number of decoded tasks to keep cached
+     */
+    private PagedTaskStore(MappedByteBuffer[] segments, boolean isBinary, int binaryVersion, long[] offsets,
+            Storage storage, int generation, int cacheSize) {
+        this.segments = segments;
+        this.isBinary = isBinary;
+        this.binaryVersion = binaryVersion;
+        this.storage = storage;
+        this.generation = generation;
+        this.parser = new MappedTaskLoader(storage, generation);
+        this.slots = new IndexedLongList(offsets, offsets.length);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Task> eldest) {
+                if (size() <= cacheSize) {
+                    return false;
+                }
+                keepIfModified(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Opens a snapshot file lazily, reusing the persisted offset index when it is still valid
+     * and building and persisting a new one otherwise.
+     *
+     * @param file Snapshot file to open
+     * @param isBinary True if the snapshot is in the binary format
+     * @param snapshotId ID from the header of the snapshot, or 0 if it has none
+     * @param index Persisted offset index for the snapshot
+     * @param storage Storage whose task factory is used to decode text records
+     * @return A store over the snapshot
+     * @throws IOException if the snapshot cannot be mapped
+     */
+    public static PagedTaskStore open(File file, boolean isBinary, long snapshotId, TaskFileIndex index,
+            Storage storage) throws IOException {
+        MappedByteBuffer[] segments = mapSegments(file);
+        BinarySnapshotCodec.Header header = isBinary ? BinarySnapshotCodec.readHeader(segments[0].duplicate(), file)
+                : null;
+        long[] offsets = index.read(file, snapshotId, isBinary);
+        if (offsets == null) {
+            offsets = isBinary ? indexBinary(segments, header) : indexText(segments, file.length());
+            try {
+                index.write(file, snapshotId, isBinary, offsets);
+            } catch (IOException e) {
+                // The index only saves time on the next start; carry on without it
+            }
+        }
+        return new PagedTaskStore(segments, isBinary, isBinary ? header.getVersion() : 0, offsets, storage,
+                storage.getSnapshotGeneration(), DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Maps the file as a series of overlapping segments so that every record lies within one segment.
+     *
+     * @param file File to map
+     * @return The mapped segments
+     * @throws IOException if the file cannot be mapped
+     */
+    private static MappedByteBuffer[] mapSegments(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            int count = (int) Math.max(1, (size + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+            MappedByteBuffer[] segments = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long start = i * SEGMENT_SIZE;
+                long length = Math.min(size - start, SEGMENT_SIZE + SEGMENT_OVERLAP);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            }
+            return segments;
+        }
+    }
+
+    private static ByteBuffer segmentAt(MappedByteBuffer[] segments, long offset) {
+        return segments[(int) (offset / SEGMENT_SIZE)];
+    }
+
+    private static int localOffset(long offset) {
+        return (int) (offset % SEGMENT_SIZE);
+    }
+
+    /**
+     * Builds the offset index of a text snapshot, pointing at the first non-blank byte of each record.
+     * Lines that are blank or do not start with a known task type are left out, as the eager loaders skip them too.
+     *
+     * @param segments Mapped segments of the snapshot
+     * @param size Size of the snapshot in bytes
+     * @return Offsets of the records
+     */
+    private static long[] indexText(MappedByteBuffer[] segments, long size) {
+        long[] offsets = new long[1024];
+        int count = 0;
+        long recordStart = -1;
+        for (long pos = 0; pos < size; pos++) {
+            byte b = segmentAt(segments, pos).get(localOffset(pos));
+            if (b == '\n') {
+                recordStart = -1;
+            } else if (recordStart == -1 && (b & 0xff) > ' ') {
+                recordStart = pos;
+                if (isRecordStart(segments, pos, size)) {
+                    if (count == offsets.length) {
+                        offsets = Arrays.copyOf(offsets, count * 2);
+                    }
+                    offsets[count++] = pos;
+                }
+            }
+        }
+        return Arrays.copyOf(offsets, count);
+    }
+
+    /**
+     * Returns whether a text line starts with a task type code followed by the field delimiter.
+     *
+     * @param segments Mapped segments of the snapshot
+     * @param pos Offset of the first non-blank byte of the line
+     * @param size Size of the snapshot in bytes
+     * @return True if the line looks like a task record
+     */
+    private static boolean isRecordStart(MappedByteBuffer[] segments, long pos, long size) {
+        if (pos + 4 > size) {
+            return false;
+        }
+        ByteBuffer segment = segmentAt(segments, pos);
+        int local = localOffset(pos);
+        byte type = segment.get(local);
+        return (type == 'T' || type == 'D' || type == 'E')
+                && segment.get(local + 1) == ' ' && segment.get(local + 2) == '|' && segment.get(local + 3) == ' ';
+    }
+
+    /**
+     * Builds the offset index of a binary snapshot by walking its records without decoding them.
+     *
+     * @param segments Mapped segments of the snapshot
+     * @param header Header of the snapshot
+     * @return Offsets of the records
+     */
+    private static long[] indexBinary(MappedByteBuffer[] segments, BinarySnapshotCodec.Header header) {
+        long[] offsets = new long[header.getCount()];
+        long pos = header.getSize();
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = pos;
+            ByteBuffer record = segmentAt(segments, pos).duplicate();
+            int local = localOffset(pos);
+            record.position(local);
+            BinarySnapshotCodec.skipTask(record, header.getVersion());
+            pos += record.position() - local;
+        }
+        return offsets;
+    }
+
+    @Override
+    public Task get(int index) {
+        long slot = slots.get(index);
+        if (slot < 0) {
+            return added.get((int) (-slot - 1));
+        }
+        Task task = modified.get(slot);
+        if (task == null) {
+            task = cache.get(slot);
+        }
+        if (task == null) {
+            task = decode(slot, parser);
+            cache.put(slot, task);
+        }
+        return task;
+    }
+
+    @Override
+    public void add(Task task) {
+        added.add(task);
+        slots.add(-added.size());
+    }
+
+    @Override
+    public void add(int index, Task task) {
+        added.add(task);
+        slots.add(index, -added.size());
+    }
+
+    @Override
+    public void set(int index, Task task) {
+        long slot = slots.get(index);
+        if (slot < 0) {
+            added.set((int) (-slot - 1), task);
+        } else if (modified.containsKey(slot)) {
+            modified.put(slot, task);
+        } else {
+            cache.put(slot, task);
+        }
+    }
+
+    @Override
+    public Task remove(int index) {
+        Task task = get(index);
+        long slot = slots.remove(index);
+        if (slot < 0) {
+            added.set((int) (-slot - 1), null);
+        } else {
+            cache.remove(slot);
+            modified.remove(slot);
+        }
+        return task;
+    }
+
+    @Override
+    public int size() {
+        return slots.size();
+    }
+
+    @Override
+    public void clear() {
+        cache.clear();
+        modified.clear();
+        added.clear();
+        slots.clear();
+    }
+
+    @Override
+    public List<Task> snapshot() {
+        // Cached tasks may hold changes that only exist in memory, so capture those first
+        HashMap<Long, Task> changed = new HashMap<>(modified);
+        for (Map.Entry<Long, Task> entry : cache.entrySet()) {
+            if (isModified(entry.getKey(), entry.getValue())) {
+                changed.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return new Snapshot(slots.toArray(), added.toArray(new Task[0]), changed);
+    }
+
+    /**
+     * Keeps an evicted task in the table of modified tasks if it differs from its record on disk.
+     *
+     * @param offset Offset of the task's record
+     * @param task The evicted task
+     */
+    private void keepIfModified(long offset, Task task) {
+        if (isModified(offset, task)) {
+            modified.put(offset, task);
+        }
+    }
+
+    /**
+     * Returns whether a task may differ from its record on disk. The occurrences done of a repeating
+     * task are not cheap to compare, so a repeating task that has been read is always treated as modified.
+     * A task whose status was saved to the journal has lost its record location, so that its status is not
+     * written in place where replaying the journal would overwrite it. Decoding the record again would
+     * bring the location back, so such a task is kept too, even when its status matches the record.
+     *
+     * @param offset Offset of the task's record
+     * @param task The task read from the record
+     * @return True if the task has to be kept in memory
+     */
+    private boolean isModified(long offset, Task task) {
+        return task.getRecurrence() != null || task.isDone() != isDoneOnDisk(offset)
+                || task.getRecordGeneration() == generation && task.getRecordOffset(generation) < 0;
+    }
+
+    /**
+     * Returns the completion status stored in the record at the given offset.
+     *
+     * @param offset Offset of the record
+     * @return True if the record is marked as done
+     */
+    private boolean isDoneOnDisk(long offset) {
+        ByteBuffer segment = segmentAt(segments, offset);
+        int local = localOffset(offset);
+        if (isBinary) {
+            return BinarySnapshotCodec.isDoneTag(segment.get(local));
+        }
+        // Text records start with "X | " and are done when the next field is exactly "1"
+        if (local + 5 > segment.limit() || segment.get(local + 4) != '1') {
+            return false;
+        }
+        if (local + 5 == segment.limit()) {
+            return true;
+        }
+        byte next = segment.get(local + 5);
+        return next == '\n' || next == '\r' || local + 7 < segment.limit()
+                && next == ' ' && segment.get(local + 6) == '|' && segment.get(local + 7) == ' ';
+    }
+
+    /**
+     * Decodes the record at the given offset.
+     * A text record that cannot be decoded is surfaced as a todo holding the raw record,
+     * so that it can still be seen and deleted.
+     *
+     * @param offset Offset of the record
+     * @param recordParser Parser to decode text records with, owned by the calling thread
+     * @return The decoded task
+     */
+    private Task decode(long offset, MappedTaskLoader recordParser) {
+        ByteBuffer segment = segmentAt(segments, offset);
+        int local = localOffset(offset);
+        if (isBinary) {
+            ByteBuffer record = segment.duplicate();
+            record.position(local);
+            Task task = BinarySnapshotCodec.decodeTask(record, binaryVersion);
+            task.setRecordLocation(generation, offset);
+            return task;
+        }
+
+        int end = local;
+        while (end < segment.limit() && segment.get(end) != '\n') {
+            end++;
+        }
+        Task[] decoded = new Task[1];
+        recordParser.parseRange(segment, offset - local, local, end, task -> decoded[0] = task);
+        if (decoded[0] == null) {
+            byte[] raw = new byte[end - local];
+            segment.get(local, raw);
+            decoded[0] = new Todo(new String(raw).trim());
+        }
+        return decoded[0];
+    }
+
+    /**
+     * Point-in-time view of the store that decodes records independently of the live store,
+     * so that it can be read on another thread.
+     */
+    private class Snapshot extends AbstractList<Task> {
+        private final long[] snapshotSlots;
+        private final Task[] snapshotAdded;
+        private final Map<Long, Task> snapshotModified;
+        private final MappedTaskLoader snapshotParser = new MappedTaskLoader(storage, generation);
+
+        Snapshot(long[] slots, Task[] added, Map<Long, Task> modified) {
+            this.snapshotSlots = slots;
+            this.snapshotAdded = added;
+            this.snapshotModified = modified;
+        }
+
+        @Override
+        public Task get(int index) {
+            long slot = snapshotSlots[index];
+            if (slot < 0) {
+                return snapshotAdded[(int) (-slot - 1)];
+            }
+            Task task = snapshotModified.get(slot);
+            return task != null ? task : decode(slot, snapshotParser);
+        }
+
+        @Override
+        public int size() {
+            return snapshotSlots.length;
+        }
+    }
+}
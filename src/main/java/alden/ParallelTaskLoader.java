@@ -0,0 +1,116 @@
+package alden;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Loads large text storage files by parsing newline-aligned byte ranges of the mapped file in parallel.
+ * Each range is parsed on a fork-join pool by its own {@link MappedTaskLoader}, and the
+ * resulting tasks are appended to the task list in their original file order.
+ */
+public class ParallelTaskLoader {
+    private static final int CHUNKS_PER_THREAD = 4; // Extra chunks let fast workers steal from slow ones
+    private static final int MIN_CHUNK_SIZE = 1 << 20; // Smaller ranges cost more to schedule than to parse
+
+    private final Storage storage;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a loader that parses on the given pool and builds tasks through the given storage.
+     *
+     * @param storage Storage whose task factory and error reporting are used
+     * @param pool Fork-join pool to parse on
+     */
+    public ParallelTaskLoader(Storage storage, ForkJoinPool pool) {
+        this.storage = storage;
+        this.pool = pool;
+    }
+
+    /**
+     * Loads every task in the file into the given task list.
+     *
+     * @param file Text storage file to load
+     * @param tasks TaskList to populate with loaded tasks
+     * @return Statistics describing the load
+     * @throws IOException if the file cannot be mapped
+     */
+    public LoadStats load(File file, TaskList tasks) throws IOException {
+        long startTime = System.nanoTime();
+        int sizeBefore = tasks.size();
+        long size;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            size = channel.size();
+            long windowStart = 0;
+            while (windowStart < size) {
+                MappedByteBuffer window = MappedTaskLoader.mapWindow(channel, windowStart);
+                int end = MappedTaskLoader.completeLinesEnd(window, windowStart + window.limit() == size);
+                loadWindow(window, windowStart, end, tasks);
+                windowStart += end;
+            }
+        }
+        return new LoadStats(tasks.size() - sizeBefore, size, System.nanoTime() - startTime);
+    }
+
+    /**
+     * Parses the complete lines of one mapped window in parallel and merges the results in order.
+     *
+     * @param window Mapped window of the file
+     * @param windowStart Position of the window in the file
+     * @param end Offset just past the last complete line in the window
+     * @param tasks TaskList to append the parsed tasks to
+     */
+    private void loadWindow(ByteBuffer window, long windowStart, int end, TaskList tasks) {
+        int[] boundaries = splitAtLineEnds(window, end);
+        List<ForkJoinTask<ArrayList<Task>>> chunks = new ArrayList<>();
+        for (int i = 0; i + 1 < boundaries.length; i++) {
+            int chunkStart = boundaries[i];
+            int chunkEnd = boundaries[i + 1];
+            chunks.add(pool.submit(() -> {
+                ArrayList<Task> parsed = new ArrayList<>();
+                new MappedTaskLoader(storage).parseRange(window, windowStart, chunkStart, chunkEnd, parsed::add);
+                return parsed;
+            }));
+        }
+        for (ForkJoinTask<ArrayList<Task>> chunk : chunks) {
+            for (Task task : chunk.join()) {
+                tasks.addTask(task);
+            }
+        }
+    }
+
+    /**
+     * Splits the range {@code [0, end)} into roughly equal chunks whose boundaries fall just after line feeds.
+     *
+     * @param window Mapped window of the file
+     * @param end Offset just past the last complete line in the window
+     * @return Chunk boundaries, starting with 0 and ending with {@code end}
+     */
+    private int[] splitAtLineEnds(ByteBuffer window, int end) {
+        int targetChunks = pool.getParallelism() * CHUNKS_PER_THREAD;
+        int chunkCount = Math.max(1, Math.min(targetChunks, end / MIN_CHUNK_SIZE));
+        long chunkSize = (long) end / chunkCount;
+
+        int[] boundaries = new int[chunkCount + 1];
+        int count = 1;
+        for (int i = 1; i < chunkCount; i++) {
+            int boundary = (int) Math.max(chunkSize * i, boundaries[count - 1]);
+            while (boundary < end && window.get(boundary - 1) != '\n') {
+                boundary++;
+            }
+            if (boundary > boundaries[count - 1] && boundary < end) {
+                boundaries[count++] = boundary;
+            }
+        }
+        boundaries[count++] = end;
+        return count == boundaries.length ? boundaries : Arrays.copyOf(boundaries, count);
+    }
+}
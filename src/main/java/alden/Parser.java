@@ -21,6 +21,8 @@ public class Parser {
             return new AddTodoCommand(fullCommand); // Create a new AddTodoCommand
         } else if (fullCommand.startsWith("deadline")) {
             return new AddDeadlineCommand(fullCommand); // Create a new AddDeadlineCommand
+        } else if (fullCommand.startsWith("events on")) {
+            return new EventsOnCommand(fullCommand);
         } else if (fullCommand.startsWith("event")) {
             return new AddEventCommand(fullCommand); // Create a new AddEventCommand
         } else if (fullCommand.startsWith("mark")) {
@@ -29,16 +31,32 @@ public class Parser {
             return new MarkTaskCommand(fullCommand, false); // Create a new MarkTaskCommand to unmark as done
         } else if (fullCommand.startsWith("delete")) {
             return new DeleteTaskCommand(fullCommand); // Create a new DeleteTaskCommand
-        } else if (fullCommand.equalsIgnoreCase("list")) {
-            return new ListTasksCommand(); // Create a new ListTasksCommand
+        } else if (fullCommand.startsWith("list")) {
+            return new ListTasksCommand(fullCommand); // Create a new ListTasksCommand
         } else if (fullCommand.equalsIgnoreCase("bye")) {
             return new ExitCommand();
         } else if (fullCommand.startsWith("find")) {
             return new FindTaskCommand(fullCommand);
         } else if (fullCommand.isEmpty()) {
             throw new AldenException("Keyword cannot be empty for find command.");
+        } else if (fullCommand.equals("query") || fullCommand.startsWith("query ")) {
+            return new QueryCommand(fullCommand);
+        } else if (fullCommand.startsWith("due")) {
+            return new DueTasksCommand(fullCommand);
+        } else if (fullCommand.equalsIgnoreCase("undo")) {
+            return new UndoCommand(true);
+        } else if (fullCommand.equalsIgnoreCase("redo")) {
+            return new UndoCommand(false);
+        } else if (fullCommand.startsWith("next")) {
+            return new NextCommand(fullCommand);
+        } else if (fullCommand.equalsIgnoreCase("count")) {
+            return new CountCommand();
+        } else if (fullCommand.equalsIgnoreCase("conflicts")) {
+            return new ConflictsCommand();
         } else if (fullCommand.startsWith("sort")) {
             return new SortCommand(fullCommand);
+        } else if (fullCommand.equalsIgnoreCase("migrate")) {
+            return new MigrateCommand();
         } else {
             throw new AldenException("Invalid command: " + fullCommand); // Throw exception if the command is invalid
         }
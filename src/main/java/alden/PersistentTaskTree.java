@@ -0,0 +1,347 @@
+package alden;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Immutable sequence of tasks held in a counted B+ tree. Inserting, replacing or removing a task returns a new tree
+ * that copies only the nodes on the path to the change and shares every other node with the old tree,
+ * so each change costs O(log n) and every earlier version stays intact and readable.
+ *
+ * <p>Because a tree never changes once built, any number of threads can read a version while another
+ * thread derives the next one, without locking.</p>
+ */
+public final class PersistentTaskTree {
+    /** The tree holding no tasks. */
+    public static final PersistentTaskTree EMPTY = new PersistentTaskTree(new Leaf(new Task[0]));
+
+    private static final int LEAF_CAPACITY = 64;
+    private static final int INNER_CAPACITY = 32;
+    private static final int NODE_BYTES = 32; // Estimated size of a node and its array, besides the references
+    private static final int REFERENCE_BYTES = 4;
+
+    private final Node root;
+
+    private PersistentTaskTree(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Returns the task at the given position.
+     *
+     * @param index Zero-based position
+     * @return The task
+     */
+    public Task get(int index) {
+        checkIndex(index, size());
+        Node node = root;
+        while (node instanceof Inner inner) {
+            int child = 0;
+            while (index >= inner.children[child].size) {
+                index -= inner.children[child].size;
+                child++;
+            }
+            node = inner.children[child];
+        }
+        return ((Leaf) node).tasks[index];
+    }
+
+    /**
+     * Returns a tree with a task inserted at the given position.
+     *
+     * @param index Zero-based position, at most the size of the tree
+     * @param task The task to insert
+     * @return The new tree
+     */
+    public PersistentTaskTree insert(int index, Task task) {
+        checkIndex(index, size() + 1);
+        Node[] replacement = root.insert(index, task);
+        return new PersistentTaskTree(replacement.length == 1 ? replacement[0] : new Inner(replacement));
+    }
+
+    /**
+     * Returns a tree with a task in place of the one at the given position.
+     *
+     * @param index Zero-based position
+     * @param task The task to put there
+     * @return The new tree
+     */
+    public PersistentTaskTree set(int index, Task task) {
+        checkIndex(index, size());
+        return new PersistentTaskTree(root.set(index, task));
+    }
+
+    /**
+     * Returns a tree without the task at the given position.
+     *
+     * @param index Zero-based position
+     * @return The new tree
+     */
+    public PersistentTaskTree remove(int index) {
+        checkIndex(index, size());
+        Node node = root.remove(index);
+        while (node instanceof Inner inner && inner.children.length == 1) {
+            node = inner.children[0];
+        }
+        return new PersistentTaskTree(node);
+    }
+
+    /**
+     * Returns the number of tasks in the tree.
+     *
+     * @return The size of the tree
+     */
+    public int size() {
+        return root.size;
+    }
+
+    /**
+     * Estimates the memory taken by the nodes a change copies, which are those on one path from the root.
+     *
+     * @return The estimated size of one path in bytes
+     */
+    public long pathBytes() {
+        long bytes = 0;
+        Node node = root;
+        while (node instanceof Inner inner) {
+            bytes += NODE_BYTES + (long) REFERENCE_BYTES * inner.children.length;
+            node = inner.children[0];
+        }
+        return bytes + NODE_BYTES + (long) REFERENCE_BYTES * LEAF_CAPACITY;
+    }
+
+    /**
+     * Estimates the memory taken by the whole tree, not counting the tasks themselves.
+     * Nodes are assumed to be three quarters full on average.
+     *
+     * @return The estimated size of the tree in bytes
+     */
+    public long estimatedBytes() {
+        long leaves = size() / (LEAF_CAPACITY * 3 / 4) + 1;
+        return size() * (long) REFERENCE_BYTES * 4 / 3 + leaves * NODE_BYTES * 2;
+    }
+
+    /**
+     * Returns a read-only list view of this version of the tree.
+     *
+     * @return The tasks, in order
+     */
+    public List<Task> asList() {
+        return new AbstractList<>() {
+            @Override
+            public Task get(int index) {
+                return PersistentTaskTree.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return PersistentTaskTree.this.size();
+            }
+        };
+    }
+
+    private static void checkIndex(int index, int bound) {
+        if (index < 0 || index >= bound) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + bound);
+        }
+    }
+
+    /**
+     * Node of the tree, knowing how many tasks lie below it. Nodes are never modified once built.
+     */
+    private abstract static class Node {
+        protected final int size;
+
+        Node(int size) {
+            this.size = size;
+        }
+
+        /**
+         * Returns the nodes replacing this one after an insertion: one node, or two if it had to split.
+         */
+        abstract Node[] insert(int index, Task task);
+
+        /**
+         * Returns the node replacing this one after a removal.
+         */
+        abstract Node remove(int index);
+
+        /**
+         * Returns the node replacing this one after the task at the given position is replaced.
+         */
+        abstract Node set(int index, Task task);
+
+        abstract boolean isSparse();
+
+        /**
+         * Returns a node holding the contents of this node followed by those of the next sibling,
+         * or null if they do not fit in one node.
+         */
+        abstract Node mergeWith(Node next);
+    }
+
+    private static final class Leaf extends Node {
+        private final Task[] tasks;
+
+        Leaf(Task[] tasks) {
+            super(tasks.length);
+            this.tasks = tasks;
+        }
+
+        @Override
+        Node[] insert(int index, Task task) {
+            Task[] grown = new Task[tasks.length + 1];
+            System.arraycopy(tasks, 0, grown, 0, index);
+            grown[index] = task;
+            System.arraycopy(tasks, index, grown, index + 1, tasks.length - index);
+            if (grown.length <= LEAF_CAPACITY) {
+                return new Node[] {new Leaf(grown)};
+            }
+            int half = grown.length / 2;
+            Task[] lower = new Task[half];
+            Task[] upper = new Task[grown.length - half];
+            System.arraycopy(grown, 0, lower, 0, half);
+            System.arraycopy(grown, half, upper, 0, upper.length);
+            return new Node[] {new Leaf(lower), new Leaf(upper)};
+        }
+
+        @Override
+        Node remove(int index) {
+            Task[] shrunk = new Task[tasks.length - 1];
+            System.arraycopy(tasks, 0, shrunk, 0, index);
+            System.arraycopy(tasks, index + 1, shrunk, index, shrunk.length - index);
+            return new Leaf(shrunk);
+        }
+
+        @Override
+        Node set(int index, Task task) {
+            Task[] updated = tasks.clone();
+            updated[index] = task;
+            return new Leaf(updated);
+        }
+
+        @Override
+        boolean isSparse() {
+            return tasks.length < LEAF_CAPACITY / 4;
+        }
+
+        @Override
+        Node mergeWith(Node next) {
+            Leaf leaf = (Leaf) next;
+            if (tasks.length + leaf.tasks.length > LEAF_CAPACITY) {
+                return null;
+            }
+            Task[] merged = new Task[tasks.length + leaf.tasks.length];
+            System.arraycopy(tasks, 0, merged, 0, tasks.length);
+            System.arraycopy(leaf.tasks, 0, merged, tasks.length, leaf.tasks.length);
+            return new Leaf(merged);
+        }
+    }
+
+    private static final class Inner extends Node {
+        private final Node[] children;
+
+        Inner(Node[] children) {
+            super(totalSize(children));
+            this.children = children;
+        }
+
+        private static int totalSize(Node[] children) {
+            int size = 0;
+            for (Node child : children) {
+                size += child.size;
+            }
+            return size;
+        }
+
+        @Override
+        Node[] insert(int index, Task task) {
+            int child = 0;
+            while (child < children.length - 1 && index > children[child].size) {
+                index -= children[child].size;
+                child++;
+            }
+            Node[] replacement = children[child].insert(index, task);
+            Node[] updated = new Node[children.length + replacement.length - 1];
+            System.arraycopy(children, 0, updated, 0, child);
+            System.arraycopy(replacement, 0, updated, child, replacement.length);
+            System.arraycopy(children, child + 1, updated, child + replacement.length, children.length - child - 1);
+            if (updated.length <= INNER_CAPACITY) {
+                return new Node[] {new Inner(updated)};
+            }
+            int half = updated.length / 2;
+            Node[] lower = new Node[half];
+            Node[] upper = new Node[updated.length - half];
+            System.arraycopy(updated, 0, lower, 0, half);
+            System.arraycopy(updated, half, upper, 0, upper.length);
+            return new Node[] {new Inner(lower), new Inner(upper)};
+        }
+
+        @Override
+        Node remove(int index) {
+            int child = 0;
+            while (index >= children[child].size) {
+                index -= children[child].size;
+                child++;
+            }
+            Node replacement = children[child].remove(index);
+            if (replacement.size == 0) {
+                return new Inner(without(child));
+            }
+            Node[] updated = children.clone();
+            updated[child] = replacement;
+            if (replacement.isSparse() && updated.length > 1) {
+                // Merge with a neighbour when both fit in one node, so that removals keep the tree compact
+                int left = child > 0 ? child - 1 : child;
+                Node merged = updated[left].mergeWith(updated[left + 1]);
+                if (merged != null) {
+                    Node[] fewer = new Node[updated.length - 1];
+                    System.arraycopy(updated, 0, fewer, 0, left);
+                    fewer[left] = merged;
+                    System.arraycopy(updated, left + 2, fewer, left + 1, updated.length - left - 2);
+                    updated = fewer;
+                }
+            }
+            return new Inner(updated);
+        }
+
+        @Override
+        Node set(int index, Task task) {
+            int child = 0;
+            while (index >= children[child].size) {
+                index -= children[child].size;
+                child++;
+            }
+            Node[] updated = children.clone();
+            updated[child] = children[child].set(index, task);
+            return new Inner(updated);
+        }
+
+        private Node[] without(int child) {
+            if (children.length == 1) {
+                return new Node[] {new Leaf(new Task[0])};
+            }
+            Node[] fewer = new Node[children.length - 1];
+            System.arraycopy(children, 0, fewer, 0, child);
+            System.arraycopy(children, child + 1, fewer, child, fewer.length - child);
+            return fewer;
+        }
+
+        @Override
+        boolean isSparse() {
+            return children.length < INNER_CAPACITY / 4;
+        }
+
+        @Override
+        Node mergeWith(Node next) {
+            Inner inner = (Inner) next;
+            if (children.length + inner.children.length > INNER_CAPACITY) {
+                return null;
+            }
+            Node[] merged = new Node[children.length + inner.children.length];
+            System.arraycopy(children, 0, merged, 0, children.length);
+            System.arraycopy(inner.children, 0, merged, children.length, inner.children.length);
+            return new Inner(merged);
+        }
+    }
+}
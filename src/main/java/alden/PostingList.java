@@ -0,0 +1,133 @@
+package alden;
+
+import java.util.Arrays;
+
+/**
+ * Sorted set of task sequence numbers, stored in a growable primitive array.
+ * New tasks always receive the highest sequence number so far, which makes adding an append in the common case.
+ * Once the set grows large it moves into an {@link IndexedLongList}, so that removing a task from a common
+ * word or trigram does not shift a long array.
+ */
+public class PostingList {
+    private static final int TREE_THRESHOLD = 512; // Size beyond which values move into a tree
+
+    private long[] values = new long[4];
+    private int size;
+    private IndexedLongList tree; // Holds the values instead of the array once the set is large
+
+    /**
+     * Adds a sequence number, keeping the list sorted.
+     *
+     * @param sequence Sequence number of the task
+     */
+    public void add(long sequence) {
+        if (tree != null) {
+            addToTree(sequence);
+            return;
+        }
+        if (size == TREE_THRESHOLD) {
+            tree = new IndexedLongList(values, size);
+            values = null;
+            addToTree(sequence);
+            return;
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        if (size == 0 || values[size - 1] < sequence) {
+            values[size++] = sequence;
+            return;
+        }
+        int position = Arrays.binarySearch(values, 0, size, sequence);
+        if (position >= 0) {
+            return;
+        }
+        position = -position - 1;
+        System.arraycopy(values, position, values, position + 1, size - position);
+        values[position] = sequence;
+        size++;
+    }
+
+    /**
+     * Removes a sequence number if it is present.
+     *
+     * @param sequence Sequence number of the task
+     */
+    public void remove(long sequence) {
+        if (tree != null) {
+            int position = tree.indexOf(sequence);
+            if (position >= 0) {
+                tree.remove(position);
+            }
+            return;
+        }
+        int position = Arrays.binarySearch(values, 0, size, sequence);
+        if (position >= 0) {
+            System.arraycopy(values, position + 1, values, position, size - position - 1);
+            size--;
+        }
+    }
+
+    /**
+     * Returns whether the list holds the given sequence number.
+     *
+     * @param sequence Sequence number of the task
+     * @return True if the sequence number is in the list
+     */
+    public boolean contains(long sequence) {
+        if (tree != null) {
+            return tree.indexOf(sequence) >= 0;
+        }
+        return Arrays.binarySearch(values, 0, size, sequence) >= 0;
+    }
+
+    /**
+     * Returns the sequence number at the given position of the list.
+     *
+     * @param index Zero-based position in the list
+     * @return The sequence number
+     */
+    public long get(int index) {
+        return tree != null ? tree.get(index) : values[index];
+    }
+
+    /**
+     * Returns the number of sequence numbers in the list.
+     *
+     * @return The size of the list
+     */
+    public int size() {
+        return tree != null ? tree.size() : size;
+    }
+
+    /**
+     * Returns whether the list is empty.
+     *
+     * @return True if the list holds no sequence numbers
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Copies the sequence numbers into the array starting at the given offset.
+     *
+     * @param target Array to copy into
+     * @param offset Position of the first copied value in the array
+     */
+    public void copyTo(long[] target, int offset) {
+        if (tree != null) {
+            long[] all = tree.toArray();
+            System.arraycopy(all, 0, target, offset, all.length);
+        } else {
+            System.arraycopy(values, 0, target, offset, size);
+        }
+    }
+
+    private void addToTree(long sequence) {
+        int position = tree.binarySearch(sequence);
+        if (position < 0) {
+            tree.add(-position - 1, sequence);
+        }
+    }
+}
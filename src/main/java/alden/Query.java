@@ -0,0 +1,249 @@
+package alden;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Search over the tasks compiled from a line of terms that must all hold, such as
+ * {@code type:deadline done:false due<2099/12/01 text:report}.
+ *
+ * <p>The text is parsed once into {@link Predicate} objects, so running a query never looks at its text
+ * again. {@link TaskList#query(Query)} then plans it: each predicate can be answered by an index, and the
+ * one expected to yield the fewest candidates drives the search while the others are tested on those
+ * candidates only.</p>
+ */
+public class Query {
+    private static final String USAGE = "Use terms such as 'type:deadline', 'done:false', 'due<2099/12/01' "
+            + "and 'text:report'.";
+    private static final String[] DUE_OPERATORS = {"<=", ">=", "<", ">", "=", ":"}; // Longest first
+
+    private final ArrayList<Predicate> predicates;
+
+    private Query(ArrayList<Predicate> predicates) {
+        this.predicates = predicates;
+    }
+
+    /**
+     * Compiles a query from its terms, separated by spaces.
+     * A term is {@code type:todo|deadline|event}, {@code done:true|false}, {@code text:<word>} or
+     * {@code due} followed by {@code <, <=, >, >=} or {@code =} and a date. A word without a field
+     * is searched for in the descriptions, as with {@code text:}. Several {@code due} terms narrow
+     * down the same range.
+     *
+     * @param text The terms.
+     * @return The compiled query.
+     * @throws AldenException If the query is empty or a term is not valid.
+     */
+    public static Query compile(String text) throws AldenException {
+        ArrayList<Predicate> predicates = new ArrayList<>();
+        LocalDateTime dueFrom = null;
+        LocalDateTime dueTo = null;
+        boolean hasDue = false;
+        for (String term : text.trim().split("\\s+")) {
+            if (term.isEmpty()) {
+                continue;
+            }
+            String operator = dueOperatorOf(term);
+            if (operator != null) {
+                List<DateSpan> dates = DateSpan.parseAll(term.substring(3 + operator.length()));
+                if (dates.size() != 1) {
+                    throw new AldenException("Missing date in query term: " + term + ". " + USAGE);
+                }
+                DateSpan date = dates.get(0);
+                LocalDateTime from = operator.equals(">") ? date.getEnd()
+                        : operator.equals("<") || operator.equals("<=") ? null : date.getStart();
+                LocalDateTime to = operator.equals("<") ? date.getStart()
+                        : operator.equals(">") || operator.equals(">=") ? null : date.getEnd();
+                dueFrom = from == null || (dueFrom != null && dueFrom.isAfter(from)) ? dueFrom : from;
+                dueTo = to == null || (dueTo != null && dueTo.isBefore(to)) ? dueTo : to;
+                hasDue = true;
+            } else {
+                predicates.add(compileTerm(term));
+            }
+        }
+        if (hasDue) {
+            predicates.add(new DuePredicate(dueFrom, dueTo));
+        }
+        if (predicates.isEmpty()) {
+            throw new AldenException("Query cannot be empty. " + USAGE);
+        }
+        return new Query(predicates);
+    }
+
+    /**
+     * Creates the query of the find command: tasks whose descriptions contain the keyword, spaces included.
+     *
+     * @param keyword The keyword, in any case.
+     * @return The query.
+     */
+    public static Query matching(String keyword) {
+        assert keyword != null && !keyword.trim().isEmpty() : "Search keyword cannot be null or empty";
+        ArrayList<Predicate> predicates = new ArrayList<>();
+        predicates.add(new TextPredicate(keyword));
+        return new Query(predicates);
+    }
+
+    /**
+     * Returns the predicates a task must satisfy to match the query.
+     *
+     * @return The predicates, which cannot be modified.
+     */
+    public List<Predicate> getPredicates() {
+        return Collections.unmodifiableList(predicates);
+    }
+
+    /**
+     * Checks a task against every predicate of the query.
+     *
+     * @param task The task.
+     * @return True if the task matches the query.
+     */
+    public boolean test(Task task) {
+        for (Predicate predicate : predicates) {
+            if (!predicate.test(task)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String dueOperatorOf(String term) {
+        if (!term.toLowerCase().startsWith("due")) {
+            return null;
+        }
+        for (String operator : DUE_OPERATORS) {
+            if (term.startsWith(operator, 3)) {
+                return operator;
+            }
+        }
+        return null;
+    }
+
+    private static Predicate compileTerm(String term) throws AldenException {
+        int colon = term.indexOf(':');
+        if (colon < 0) {
+            return new TextPredicate(term);
+        }
+        String field = term.substring(0, colon).toLowerCase();
+        String value = term.substring(colon + 1).toLowerCase();
+        switch (field) {
+        case "type":
+            if (value.equals("todo") || value.equals("t")) {
+                return new FilterPredicate(TaskFilter.TODOS);
+            } else if (value.equals("deadline") || value.equals("d")) {
+                return new FilterPredicate(TaskFilter.DEADLINES);
+            } else if (value.equals("event") || value.equals("e")) {
+                return new FilterPredicate(TaskFilter.EVENTS);
+            }
+            throw new AldenException("Unknown task type in query: " + value + ". Use todo, deadline or event.");
+        case "done":
+            if (value.equals("true") || value.equals("false")) {
+                return new FilterPredicate(value.equals("true") ? TaskFilter.DONE : TaskFilter.OPEN);
+            }
+            throw new AldenException("Invalid done value in query: " + value + ". Use true or false.");
+        case "text":
+            if (value.isEmpty()) {
+                throw new AldenException("Missing word in query term: " + term + ". " + USAGE);
+            }
+            return new TextPredicate(value);
+        default:
+            throw new AldenException("Unknown query field: " + field + ". " + USAGE);
+        }
+    }
+
+    /**
+     * Condition on a single task, one of the terms of a query.
+     */
+    public abstract static class Predicate {
+        /**
+         * Checks a task against the condition.
+         *
+         * @param task The task.
+         * @return True if the task satisfies the condition.
+         */
+        public abstract boolean test(Task task);
+    }
+
+    /**
+     * Condition that a task belongs to a group kept by the {@link TaskBitmaps}.
+     */
+    public static class FilterPredicate extends Predicate {
+        private final TaskFilter filter;
+
+        FilterPredicate(TaskFilter filter) {
+            this.filter = filter;
+        }
+
+        public TaskFilter getFilter() {
+            return filter;
+        }
+
+        @Override
+        public boolean test(Task task) {
+            return filter.matches(task);
+        }
+    }
+
+    /**
+     * Condition that the description of a task contains a keyword, in any case.
+     */
+    public static class TextPredicate extends Predicate {
+        private final String keyword; // Lowercased
+
+        TextPredicate(String keyword) {
+            this.keyword = keyword.toLowerCase();
+        }
+
+        public String getKeyword() {
+            return keyword;
+        }
+
+        @Override
+        public boolean test(Task task) {
+            return task.getDescription() != null && task.getDescription().toLowerCase().contains(keyword);
+        }
+    }
+
+    /**
+     * Condition that a task is a deadline due within a range. A repeating deadline is judged by
+     * the occurrence it currently stands for.
+     */
+    public static class DuePredicate extends Predicate {
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+
+        DuePredicate(LocalDateTime from, LocalDateTime to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Returns the start of the range.
+         *
+         * @return The start, inclusive, or null for no lower bound.
+         */
+        public LocalDateTime getFrom() {
+            return from;
+        }
+
+        /**
+         * Returns the end of the range.
+         *
+         * @return The end, exclusive, or null for no upper bound.
+         */
+        public LocalDateTime getTo() {
+            return to;
+        }
+
+        @Override
+        public boolean test(Task task) {
+            if (!(task instanceof Deadline deadline)) {
+                return false;
+            }
+            LocalDateTime due = deadline.getDateTime();
+            return (from == null || !due.isBefore(from)) && (to == null || due.isBefore(to));
+        }
+    }
+}
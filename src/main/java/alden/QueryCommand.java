@@ -0,0 +1,38 @@
+package alden;
+
+/**
+ * Represents a command to list the tasks matching a query, such as
+ * {@code query type:deadline done:false due<2099/12/01 text:report}.
+ * The query is compiled when the command is parsed, so mistakes in it are reported before anything runs.
+ */
+public class QueryCommand extends Command {
+    private final Query query;
+    private final int page; // Page of the matches to show, or 0 if none was asked for
+    private final String command; // The command without its page
+
+    /**
+     * Constructs a QueryCommand with the given user input, which may end with "page N" to show one page
+     * of the matches.
+     *
+     * @param fullCommand The full command input by the user.
+     * @throws AldenException If the query is empty or one of its terms is not valid.
+     */
+    public QueryCommand(String fullCommand) throws AldenException {
+        this.page = pageOf(fullCommand);
+        this.command = withoutPage(fullCommand);
+        this.query = Query.compile(command.substring("query".length()));
+    }
+
+    /**
+     * Executes the command by running the query against the task list and displaying the matches.
+     *
+     * @param tasks   The TaskList containing all tasks.
+     * @param ui      The user interface to interact with the user.
+     * @param storage The storage system (not used in this command).
+     * @throws AldenException If an error occurs during execution.
+     */
+    @Override
+    public void execute(TaskList tasks, Ui ui, Storage storage) throws AldenException {
+        ui.showMatchingTasks(tasks.query(query), page, command);
+    }
+}
@@ -0,0 +1,372 @@
+package alden;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Rule by which a deadline or event repeats, together with which of its occurrences are done.
+ *
+ * <p>Occurrences are numbered from 0, the task's own date, and are never stored: the time of occurrence n
+ * is computed from the first one, and the occurrences in a range are found by computing the number of
+ * the first one in it. Monthly occurrences keep the day of the month of the first one where the month
+ * has it, and fall on the month's last day otherwise.</p>
+ *
+ * <p>Done occurrences are kept as runs of consecutive numbers, so that a series ticked off in order
+ * takes one run however long it grows, and marking one occurrence touches no other.</p>
+ */
+public class Recurrence {
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+    private static final DateTimeFormatter DISPLAY_FORMAT = DateTimeFormatter.ofPattern("MMM dd yyyy");
+    private static final String EVERY = "/every";
+
+    /**
+     * How often a task repeats.
+     */
+    public enum Frequency {
+        DAILY("daily", "day", ChronoUnit.DAYS),
+        WEEKLY("weekly", "week", ChronoUnit.WEEKS),
+        MONTHLY("monthly", "month", ChronoUnit.MONTHS);
+
+        private final String keyword;
+        private final String unitName;
+        private final ChronoUnit unit;
+
+        Frequency(String keyword, String unitName, ChronoUnit unit) {
+            this.keyword = keyword;
+            this.unitName = unitName;
+            this.unit = unit;
+        }
+
+        /**
+         * Returns the frequency with the given keyword.
+         *
+         * @param keyword The keyword, such as "weekly"
+         * @return The frequency, or null if no frequency has the keyword
+         */
+        public static Frequency fromKeyword(String keyword) {
+            for (Frequency frequency : values()) {
+                if (frequency.keyword.equalsIgnoreCase(keyword)) {
+                    return frequency;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final Frequency frequency;
+    private final LocalDate until; // Last day an occurrence may fall on, or null if the task repeats forever
+    private final TreeMap<Integer, Integer> doneRuns = new TreeMap<>(); // First done occurrence to end of run
+
+    /**
+     * Creates a rule with no occurrence done.
+     *
+     * @param frequency How often the task repeats
+     * @param until The last day an occurrence may fall on, or null to repeat forever
+     */
+    public Recurrence(Frequency frequency, LocalDate until) {
+        assert frequency != null : "Frequency cannot be null";
+        this.frequency = frequency;
+        this.until = until;
+    }
+
+    /**
+     * Parses the rule the user gave after "/every", such as "weekly" or "daily /until 2099/12/31".
+     *
+     * @param text The text after "/every"
+     * @return The rule
+     * @throws AldenException If the frequency or the end date is not recognised
+     */
+    public static Recurrence parse(String text) throws AldenException {
+        String[] parts = text.trim().split("\\s*/until\\s*", 2);
+        Frequency frequency = Frequency.fromKeyword(parts[0].trim());
+        if (frequency == null) {
+            throw new AldenException("Invalid repetition. Use '/every daily', '/every weekly' or '/every monthly', "
+                    + "optionally followed by '/until yyyy/MM/dd'.");
+        }
+        return new Recurrence(frequency, parts.length > 1 ? parseDate(parts[1].trim()) : null);
+    }
+
+    /**
+     * Separates the repetition from the last part of a deadline or event command, which may end with
+     * "/every" followed by a rule, and makes the task repeat by it.
+     *
+     * @param task The task created from the command without the repetition
+     * @param text The last part of the command, holding the repetition if there is one
+     * @throws AldenException If the rule is invalid or ends before the task's first occurrence
+     */
+    static void applyTo(RepeatableTask task, String text) throws AldenException {
+        int every = text.indexOf(EVERY);
+        if (every < 0) {
+            return;
+        }
+        Recurrence recurrence = parse(text.substring(every + EVERY.length()));
+        if (recurrence.countOccurrences(task.getFirstOccurrenceTime()) == 0) {
+            throw new AldenException("The repetition cannot end before the task first falls due.");
+        }
+        task.setRecurrence(recurrence);
+    }
+
+    /**
+     * Returns the part of a deadline or event command before its repetition, if it has one.
+     *
+     * @param text The last part of the command
+     * @return The text before "/every", or the whole text if there is no repetition
+     */
+    static String withoutRepetition(String text) {
+        int every = text.indexOf(EVERY);
+        return every < 0 ? text : text.substring(0, every).trim();
+    }
+
+    /**
+     * Reads a rule back from the form written by {@link #toFileFormat()}.
+     *
+     * @param text The stored rule
+     * @return The rule
+     * @throws AldenException If the stored rule is malformed
+     */
+    public static Recurrence fromFileFormat(String text) throws AldenException {
+        String[] words = text.trim().split(" ");
+        Frequency frequency = Frequency.fromKeyword(words[0]);
+        if (frequency == null) {
+            throw new AldenException("Invalid repetition in file: " + text);
+        }
+        int next = 1;
+        LocalDate until = null;
+        if (next + 1 < words.length && words[next].equals("until")) {
+            until = parseDate(words[next + 1]);
+            next += 2;
+        }
+        Recurrence recurrence = new Recurrence(frequency, until);
+        if (next + 1 < words.length && words[next].equals("done")) {
+            try {
+                for (String run : words[next + 1].split(",")) {
+                    int dash = run.indexOf('-');
+                    int first = Integer.parseInt(dash < 0 ? run : run.substring(0, dash));
+                    int last = dash < 0 ? first : Integer.parseInt(run.substring(dash + 1));
+                    recurrence.doneRuns.put(first, last + 1); // Runs are stored apart and in order
+                }
+            } catch (NumberFormatException e) {
+                throw new AldenException("Invalid repetition in file: " + text);
+            }
+        }
+        return recurrence;
+    }
+
+    private static LocalDate parseDate(String text) throws AldenException {
+        try {
+            return LocalDate.parse(text, DATE_FORMAT);
+        } catch (DateTimeParseException e) {
+            throw new AldenException("Error: Invalid date format. Use yyyy/MM/dd");
+        }
+    }
+
+    /**
+     * Returns the rule in the form stored in the data file: the frequency, the end date if any,
+     * and the runs of done occurrences, such as "weekly until 2099/12/31 done 0-4,6".
+     *
+     * @return The stored form of the rule
+     */
+    public String toFileFormat() {
+        StringBuilder format = new StringBuilder(frequency.keyword);
+        if (until != null) {
+            format.append(" until ").append(until.format(DATE_FORMAT));
+        }
+        if (!doneRuns.isEmpty()) {
+            format.append(" done ");
+            boolean isFirst = true;
+            for (Map.Entry<Integer, Integer> run : doneRuns.entrySet()) {
+                format.append(isFirst ? "" : ",").append(run.getKey());
+                if (run.getValue() - run.getKey() > 1) {
+                    format.append('-').append(run.getValue() - 1);
+                }
+                isFirst = false;
+            }
+        }
+        return format.toString();
+    }
+
+    /**
+     * Describes the rule for the user, such as "every week until Dec 31 2099".
+     *
+     * @return The description
+     */
+    @Override
+    public String toString() {
+        return "every " + frequency.unitName + (until == null ? "" : " until " + until.format(DISPLAY_FORMAT));
+    }
+
+    /**
+     * Returns the time of an occurrence.
+     *
+     * @param first The time of the first occurrence
+     * @param occurrence The number of the occurrence
+     * @return The time of the occurrence
+     */
+    public LocalDateTime occurrenceAt(LocalDateTime first, int occurrence) {
+        return first.plus(occurrence, frequency.unit);
+    }
+
+    /**
+     * Returns the number of occurrences, which is unbounded for a rule without an end date.
+     *
+     * @param first The time of the first occurrence
+     * @return The number of occurrences, or {@link Integer#MAX_VALUE} if there is no end
+     */
+    public int countOccurrences(LocalDateTime first) {
+        if (until == null) {
+            return Integer.MAX_VALUE;
+        }
+        LocalDateTime end = until.plusDays(1).atStartOfDay(); // Occurrences fall before the day after the end
+        return firstAtOrAfter(first, end);
+    }
+
+    /**
+     * Returns the number of the first occurrence at or after the given time, without visiting earlier ones.
+     * The result may be at or beyond the number of occurrences of a rule with an end date.
+     *
+     * @param first The time of the first occurrence
+     * @param time The time to search from
+     * @return The number of the occurrence
+     */
+    public int firstAtOrAfter(LocalDateTime first, LocalDateTime time) {
+        if (!time.isAfter(first)) {
+            return 0;
+        }
+        long estimate = Math.min(frequency.unit.between(first, time), Integer.MAX_VALUE - 2);
+        int occurrence = (int) Math.max(0, estimate);
+        while (occurrence > 0 && !occurrenceAt(first, occurrence - 1).isBefore(time)) {
+            occurrence--;
+        }
+        while (occurrenceAt(first, occurrence).isBefore(time)) {
+            occurrence++;
+        }
+        return occurrence;
+    }
+
+    /**
+     * Returns the number of the occurrence falling on the given day.
+     *
+     * @param first The time of the first occurrence
+     * @param date The day
+     * @return The number of the occurrence, or -1 if none falls on the day
+     */
+    public int occurrenceOn(LocalDateTime first, LocalDate date) {
+        int occurrence = firstAtOrAfter(first, date.atStartOfDay());
+        boolean isOnDate = occurrence < countOccurrences(first)
+                && occurrenceAt(first, occurrence).toLocalDate().equals(date);
+        return isOnDate ? occurrence : -1;
+    }
+
+    /**
+     * Returns whether an occurrence is done.
+     *
+     * @param occurrence The number of the occurrence
+     * @return True if the occurrence is done
+     */
+    public boolean isDone(int occurrence) {
+        Map.Entry<Integer, Integer> run = doneRuns.floorEntry(occurrence);
+        return run != null && occurrence < run.getValue();
+    }
+
+    /**
+     * Marks an occurrence as done or not done, merging or splitting runs of done occurrences.
+     *
+     * @param occurrence The number of the occurrence
+     * @param isDone True to mark the occurrence as done
+     */
+    public void setDone(int occurrence, boolean isDone) {
+        if (isDone == isDone(occurrence)) {
+            return;
+        }
+        if (isDone) {
+            int start = occurrence;
+            int end = occurrence + 1;
+            Map.Entry<Integer, Integer> before = doneRuns.floorEntry(occurrence - 1);
+            if (before != null && before.getValue() == occurrence) {
+                start = before.getKey();
+            }
+            Integer afterEnd = doneRuns.remove(end);
+            if (afterEnd != null) {
+                end = afterEnd;
+            }
+            doneRuns.put(start, end);
+        } else {
+            Map.Entry<Integer, Integer> run = doneRuns.floorEntry(occurrence);
+            doneRuns.remove(run.getKey());
+            if (run.getKey() < occurrence) {
+                doneRuns.put(run.getKey(), occurrence);
+            }
+            if (occurrence + 1 < run.getValue()) {
+                doneRuns.put(occurrence + 1, run.getValue());
+            }
+        }
+    }
+
+    /**
+     * Returns the number of the first occurrence from the given one on that is not done, skipping a run
+     * of done occurrences in one step.
+     *
+     * @param occurrence The number of the occurrence to start from
+     * @return The number of the occurrence, which may be at or beyond the number of occurrences
+     */
+    public int firstOpenFrom(int occurrence) {
+        Map.Entry<Integer, Integer> run = doneRuns.floorEntry(occurrence);
+        return run != null && occurrence < run.getValue() ? run.getValue() : occurrence;
+    }
+
+    /**
+     * Returns the number of the first occurrence that is not done, which is the one the task currently
+     * stands for. Once every occurrence of a rule with an end date is done, this is the number of occurrences.
+     *
+     * @return The number of the occurrence
+     */
+    public int firstOpen() {
+        return firstOpenFrom(0);
+    }
+
+    /**
+     * Returns the number of the latest done occurrence.
+     *
+     * @return The number of the occurrence, or -1 if none is done
+     */
+    public int lastDone() {
+        return doneRuns.isEmpty() ? -1 : doneRuns.lastEntry().getValue() - 1;
+    }
+
+    /**
+     * Returns the number of the occurrence the task currently stands for: the first one not done,
+     * or the last one once every occurrence is done.
+     *
+     * @param first The time of the first occurrence
+     * @return The number of the occurrence
+     */
+    public int currentOccurrence(LocalDateTime first) {
+        return Math.max(0, Math.min(firstOpen(), countOccurrences(first) - 1));
+    }
+
+    /**
+     * Returns whether every occurrence is done, which can only happen for a rule with an end date.
+     *
+     * @param first The time of the first occurrence
+     * @return True if no occurrence is left to do
+     */
+    public boolean isComplete(LocalDateTime first) {
+        return firstOpen() >= countOccurrences(first);
+    }
+
+    /**
+     * Returns a copy of the rule, with the same occurrences done.
+     *
+     * @return The copy
+     */
+    public Recurrence copy() {
+        Recurrence copy = new Recurrence(frequency, until);
+        copy.doneRuns.putAll(doneRuns);
+        return copy;
+    }
+}
@@ -0,0 +1,62 @@
+package alden;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background scheduler that reminds the user of deadlines coming due and events about to start.
+ * Once a second it moves the task list's {@link ReminderWheel} on to the current time and posts the
+ * reminders that fired to the {@link Ui}. A tick that fires nothing costs the same however long the list is.
+ */
+public class ReminderScheduler {
+    private static final long TICK_MILLIS = 1000;
+
+    private final TaskList tasks;
+    private final Ui ui;
+    private final ScheduledExecutorService executor;
+
+    /**
+     * Creates a scheduler for the given task list. Nothing is reminded of until it is started.
+     *
+     * @param tasks The task list holding the deadlines and events
+     * @param ui The user interface to post reminders to
+     */
+    public ReminderScheduler(TaskList tasks, Ui ui) {
+        this.tasks = tasks;
+        this.ui = ui;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "alden-reminders");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Sets up the reminders of the loaded tasks and starts ticking. Only reminders after the current
+     * time are kept, so tasks that came due while the application was closed are not reminded of.
+     */
+    public void start() {
+        tasks.pollReminders(LocalDateTime.now());
+        executor.scheduleAtFixedRate(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops ticking. Reminders due after this are not shown.
+     */
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    private void tick() {
+        try {
+            for (Task task : tasks.pollReminders(LocalDateTime.now())) {
+                ui.showReminder(task);
+            }
+        } catch (RuntimeException e) {
+            // An exception would cancel every later tick, so report it and carry on
+            System.out.println("Failed to check reminders: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package alden;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Hashed timing wheel holding the reminders of the open deadlines and events, one tick per second.
+ *
+ * <p>A deadline is reminded of when it comes due and an event {@value #EVENT_LEAD_MINUTES} minutes before it
+ * starts. The wheel has a bucket for each second of the next {@value #WHEEL_SIZE} seconds; reminders further
+ * ahead wait in a sorted overflow map and drop into their bucket once it comes within reach of the wheel.
+ * Every reminder in the wheel is therefore due in the current turn, so a tick only has to take the one bucket
+ * under the cursor and compare the earliest overflow time, which costs O(1) however many reminders are
+ * waiting, plus the work of the reminders it actually moves or fires.</p>
+ *
+ * <p>Reminders whose time has already passed are not added. Buckets are doubly linked lists, so a reminder
+ * can be cancelled in O(1) when its task is deleted or marked as done.</p>
+ *
+ * <p>A repeating task has one reminder at a time, for its next open occurrence. When it fires, the
+ * reminder of the following open occurrence takes its place, so a series is never expanded ahead.</p>
+ */
+public class ReminderWheel implements TaskIndex {
+    /** Minutes before an event starts at which it is reminded of. */
+    public static final int EVENT_LEAD_MINUTES = 15;
+
+    private static final int WHEEL_SIZE = 1 << 12; // Seconds covered by the wheel, a little over an hour
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    private final Reminder[] buckets = new Reminder[WHEEL_SIZE]; // Head of the list of reminders for each second
+    private final TreeMap<Long, ArrayList<Reminder>> overflow = new TreeMap<>(); // Reminders beyond the wheel
+    private final HashMap<Long, Reminder> reminders = new HashMap<>(); // Reminder of each sequence number
+    private long currentTime; // Last second ticked, in epoch seconds
+    private long earliestOverflow = Long.MAX_VALUE; // Time of the first reminder in the overflow map
+
+    /**
+     * Creates an empty wheel.
+     *
+     * @param currentTime The current time in epoch seconds. Reminders due at or before it are not added.
+     */
+    public ReminderWheel(long currentTime) {
+        this.currentTime = currentTime;
+    }
+
+    @Override
+    public void add(long sequence, Task task) {
+        if (task.isDone() || reminders.containsKey(sequence)) {
+            return;
+        }
+        Reminder reminder = task instanceof RepeatableTask repeating && task.getRecurrence() != null
+                ? nextOccurrenceReminder(sequence, repeating, 0)
+                : new Reminder(sequence, task, -1, reminderTimeOf(task));
+        if (reminder != null && reminder.time > currentTime) {
+            reminders.put(sequence, reminder);
+            schedule(reminder);
+        }
+    }
+
+    @Override
+    public void remove(long sequence, Task task) {
+        Reminder reminder = reminders.remove(sequence);
+        if (reminder == null) {
+            return;
+        }
+        if (reminder.isInWheel) {
+            unlink(reminder);
+        } else {
+            ArrayList<Reminder> waiting = overflow.get(reminder.time);
+            waiting.remove(reminder);
+            if (waiting.isEmpty()) {
+                overflow.remove(reminder.time);
+                if (reminder.time == earliestOverflow) {
+                    earliestOverflow = overflow.isEmpty() ? Long.MAX_VALUE : overflow.firstKey();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(buckets, null);
+        overflow.clear();
+        reminders.clear();
+        earliestOverflow = Long.MAX_VALUE;
+    }
+
+    /**
+     * Moves the wheel on to the given time and takes out the reminders due by then.
+     * After a long pause, such as when the computer slept, every overdue reminder fires at once.
+     *
+     * @param now The current time in epoch seconds
+     * @return The tasks whose reminders fired, in order of reminder time. A repeating task is given as
+     *     the occurrence reminded of.
+     */
+    public ArrayList<Task> advance(long now) {
+        ArrayList<Reminder> fired = new ArrayList<>();
+        if (now - currentTime > WHEEL_SIZE) {
+            // Everything in the wheel is overdue, so take it all and refill the wheel from the overflow
+            for (Reminder head : buckets) {
+                for (Reminder reminder = head; reminder != null; reminder = reminder.next) {
+                    fired.add(reminder);
+                }
+            }
+            Arrays.fill(buckets, null);
+            currentTime = now;
+            while (earliestOverflow <= now) {
+                fired.addAll(takeEarliestOverflow());
+            }
+            while (earliestOverflow <= now + WHEEL_SIZE) {
+                for (Reminder entering : takeEarliestOverflow()) {
+                    link(entering);
+                }
+            }
+            fired.sort(Comparator.comparingLong(reminder -> reminder.time));
+            for (Reminder reminder : fired) {
+                reminders.remove(reminder.sequence);
+                scheduleNextOccurrence(reminder);
+            }
+        }
+        while (currentTime < now) {
+            currentTime++;
+            Reminder reminder = buckets[(int) (currentTime & WHEEL_MASK)];
+            buckets[(int) (currentTime & WHEEL_MASK)] = null;
+            while (reminder != null) {
+                Reminder next = reminder.next; // Read first, as scheduling the next occurrence relinks it
+                reminders.remove(reminder.sequence);
+                fired.add(reminder);
+                scheduleNextOccurrence(reminder);
+                reminder = next;
+            }
+            // The bucket just emptied now stands for one turn later; bring in the reminders for that second
+            if (earliestOverflow == currentTime + WHEEL_SIZE) {
+                for (Reminder entering : takeEarliestOverflow()) {
+                    link(entering);
+                }
+            }
+        }
+        ArrayList<Task> tasks = new ArrayList<>(fired.size());
+        for (Reminder reminder : fired) {
+            tasks.add(reminder.occurrence >= 0 && reminder.task instanceof RepeatableTask repeating
+                    ? repeating.getOccurrence(reminder.occurrence) : reminder.task);
+        }
+        return tasks;
+    }
+
+    /**
+     * Returns the number of reminders waiting to fire.
+     *
+     * @return The number of reminders
+     */
+    public int size() {
+        return reminders.size();
+    }
+
+    /**
+     * Returns the last second the wheel ticked.
+     *
+     * @return The time in epoch seconds
+     */
+    public long getCurrentTime() {
+        return currentTime;
+    }
+
+    /**
+     * Returns the time at which a task is reminded of: the due time of a deadline, or shortly before
+     * the start of an event.
+     *
+     * @param task The task
+     * @return The time in epoch seconds, or {@link Long#MIN_VALUE} if the task has no reminder
+     */
+    static long reminderTimeOf(Task task) {
+        if (task instanceof Deadline deadline) {
+            return TimeIndex.toEpochSecond(deadline.getDateTime());
+        } else if (task instanceof Event event) {
+            return TimeIndex.toEpochSecond(event.getStartDateTime()) - EVENT_LEAD_MINUTES * 60L;
+        }
+        return Long.MIN_VALUE;
+    }
+
+    /**
+     * Schedules the reminder of the next open occurrence of a repeating task whose reminder has fired.
+     *
+     * @param fired The reminder that fired
+     */
+    private void scheduleNextOccurrence(Reminder fired) {
+        if (fired.occurrence < 0 || !(fired.task instanceof RepeatableTask repeating)) {
+            return;
+        }
+        Reminder reminder = nextOccurrenceReminder(fired.sequence, repeating, fired.occurrence + 1);
+        if (reminder != null) {
+            reminders.put(reminder.sequence, reminder);
+            schedule(reminder);
+        }
+    }
+
+    /**
+     * Creates the reminder of the first open occurrence of a repeating task, from the given one on,
+     * that is reminded of after the current time. Only that occurrence is computed.
+     *
+     * @param sequence The sequence number of the task
+     * @param task The repeating task
+     * @param from The number of the first occurrence that may be reminded of
+     * @return The reminder, or null if no such occurrence is left
+     */
+    private Reminder nextOccurrenceReminder(long sequence, RepeatableTask task, int from) {
+        Recurrence recurrence = task.getRecurrence();
+        LocalDateTime first = task.getFirstOccurrenceTime();
+        long lead = task instanceof Event ? EVENT_LEAD_MINUTES * 60L : 0;
+        LocalDateTime after = LocalDateTime.ofEpochSecond(currentTime + lead + 1, 0, ZoneOffset.UTC);
+        int occurrence = recurrence.firstOpenFrom(Math.max(from, recurrence.firstAtOrAfter(first, after)));
+        if (occurrence >= recurrence.countOccurrences(first)) {
+            return null;
+        }
+        long time = TimeIndex.toEpochSecond(recurrence.occurrenceAt(first, occurrence)) - lead;
+        return new Reminder(sequence, task, occurrence, time);
+    }
+
+    private void schedule(Reminder reminder) {
+        if (reminder.time <= currentTime + WHEEL_SIZE) {
+            link(reminder);
+        } else {
+            overflow.computeIfAbsent(reminder.time, key -> new ArrayList<>()).add(reminder);
+            earliestOverflow = Math.min(earliestOverflow, reminder.time);
+        }
+    }
+
+    private ArrayList<Reminder> takeEarliestOverflow() {
+        Map.Entry<Long, ArrayList<Reminder>> earliest = overflow.pollFirstEntry();
+        earliestOverflow = overflow.isEmpty() ? Long.MAX_VALUE : overflow.firstKey();
+        return earliest.getValue();
+    }
+
+    private void link(Reminder reminder) {
+        int bucket = (int) (reminder.time & WHEEL_MASK);
+        reminder.isInWheel = true;
+        reminder.previous = null;
+        reminder.next = buckets[bucket];
+        if (reminder.next != null) {
+            reminder.next.previous = reminder;
+        }
+        buckets[bucket] = reminder;
+    }
+
+    private void unlink(Reminder reminder) {
+        if (reminder.previous != null) {
+            reminder.previous.next = reminder.next;
+        } else {
+            buckets[(int) (reminder.time & WHEEL_MASK)] = reminder.next;
+        }
+        if (reminder.next != null) {
+            reminder.next.previous = reminder.previous;
+        }
+    }
+
+    /**
+     * Reminder of one task, or of one occurrence of a repeating task, linked into its bucket while in the wheel.
+     */
+    private static class Reminder {
+        private final long sequence;
+        private final Task task;
+        private final int occurrence; // Number of the occurrence reminded of, or -1 for a task that does not repeat
+        private final long time;
+        private boolean isInWheel;
+        private Reminder previous;
+        private Reminder next;
+
+        Reminder(long sequence, Task task, int occurrence, long time) {
+            this.sequence = sequence;
+            this.task = task;
+            this.occurrence = occurrence;
+            this.time = time;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package alden;
+
+import java.time.LocalDateTime;
+
+/**
+ * Represents a task with a time, which can therefore repeat: a deadline or an event.
+ * A repeating task keeps the time of its first occurrence and counts the others from it, so only the
+ * occurrences asked for are ever computed.
+ */
+public abstract class RepeatableTask extends Task {
+
+    /**
+     * Constructs a RepeatableTask object with the given description.
+     *
+     * @param description The description of the task.
+     */
+    public RepeatableTask(String description) {
+        super(description);
+    }
+
+    /**
+     * Returns the time of the first occurrence, from which the others are counted:
+     * the due time of a deadline or the start of an event.
+     *
+     * @return The time of the first occurrence
+     */
+    protected abstract LocalDateTime getFirstOccurrenceTime();
+
+    /**
+     * Returns one occurrence of this repeating task as a task of its own, with the ID of the series
+     * and the status of the occurrence.
+     *
+     * @param number The number of the occurrence
+     * @return The occurrence
+     */
+    abstract RepeatableTask getOccurrence(int number);
+
+    @Override
+    abstract RepeatableTask copy();
+
+    /**
+     * Marks one occurrence of this repeating task as done or not done. The task as a whole is done
+     * once every occurrence is, which only a repetition with an end date can reach.
+     *
+     * @param occurrence The number of the occurrence
+     * @param isDone True to mark the occurrence as done
+     */
+    void setOccurrenceDone(int occurrence, boolean isDone) {
+        Recurrence recurrence = getRecurrence();
+        recurrence.setDone(occurrence, isDone);
+        if (recurrence.isComplete(getFirstOccurrenceTime())) {
+            markAsDone();
+        } else {
+            unmarkAsDone();
+        }
+    }
+
+    /**
+     * Gives a task standing for one occurrence of this repeating task the ID of the series and the
+     * status of the occurrence.
+     *
+     * @param occurrence The task standing for the occurrence
+     * @param number The number of the occurrence
+     */
+    protected void copyOccurrenceState(Task occurrence, int number) {
+        if (getId() > 0) {
+            occurrence.setId(getId());
+        }
+        if (getRecurrence().isDone(number)) {
+            occurrence.markAsDone();
+            occurrence.clearDirty();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package alden;
+
+/**
+ * Running latency statistics for storage writes, used to compare durability modes.
+ * Updated by whichever thread performs the writes and safe to read from any thread.
+ */
+public class SaveLatencyStats {
+    private long count;
+    private long totalNanos;
+    private long maxNanos;
+
+    /**
+     * Records the latency of one completed write.
+     *
+     * @param nanos Time the write took, in nanoseconds
+     */
+    public synchronized void record(long nanos) {
+        count++;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getMaxNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * Returns the mean write latency.
+     *
+     * @return Mean latency in nanoseconds, or 0 if nothing has been recorded
+     */
+    public synchronized long getMeanNanos() {
+        return count == 0 ? 0 : totalNanos / count;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d saves, mean %.3f ms, max %.3f ms", count,
+                getMeanNanos() / 1e6, maxNanos / 1e6);
+    }
+}
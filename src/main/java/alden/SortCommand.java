@@ -1,56 +1,40 @@
 package alden;
-import java.util.ArrayList;
-import java.util.Comparator;
 /**
- * A command that sorts the tasks in the task list.
- * Supports sorting chronologically for deadline and event tasks.
+ * A command that shows the tasks in the task list in chronological order.
+ * Deadlines are placed by due time and events by start time, with todos after them.
  */
 public class SortCommand extends Command {
+    private final int page; // Page of the tasks to show, or 0 if none was asked for
+    private final String command; // The command without its page
+
     /**
      * Constructs a SortCommand with the specified sort type.
      *
-     * @param userInput The user input containing the sort command.
+     * @param userInput The user input containing the sort command, which may end with "page N".
      * @throws AldenException If the sort command is invalid.
      */
     public SortCommand(String userInput) throws AldenException {
+        page = pageOf(userInput);
+        command = withoutPage(userInput);
         // Remove "sort" from the input and trim
-        String sortType = userInput.substring(4).trim().toLowerCase();
+        String sortType = command.substring(4).trim().toLowerCase();
         // Validate sort type
         if (!sortType.equals("date") && !sortType.equals("chronological")) {
             throw new AldenException("Invalid sort type. Use 'sort date' or 'sort chronological'.");
         }
     }
     /**
-     * Executes the sort command on the task list.
+     * Executes the sort command by showing the tasks earliest first.
+     * The order is read from a view the task list maintains, so the tasks keep their places in the list
+     * and nothing needs to be saved.
      *
-     * @param tasks   The task list to be sorted.
+     * @param tasks   The task list to be shown in order.
      * @param ui      The user interface to show messages.
-     * @param storage The storage handler to save the sorted list.
+     * @param storage The storage handler (not modified in this command).
      * @throws AldenException If sorting fails.
      */
     @Override
     public void execute(TaskList tasks, Ui ui, Storage storage) throws AldenException {
-        // Create a list to hold sortable tasks
-        ArrayList<Task> sortableTasks = new ArrayList<>(tasks.getTasks());
-        // Create a comparator for chronological sorting
-        Comparator<Task> chronologicalComparator = (task1, task2) -> {
-            // Only sort Deadline and Event tasks
-            if (task1 instanceof Deadline && task2 instanceof Deadline) {
-                return ((Deadline) task1).getDateTime().compareTo(((Deadline) task2).getDateTime());
-            } else if (task1 instanceof Event && task2 instanceof Event) {
-                return ((Event) task1).getStartDateTime().compareTo(((Event) task2).getStartDateTime());
-            }
-            // If tasks are different types or not sortable, maintain original order
-            return 0;
-        };
-        sortableTasks.sort(chronologicalComparator);
-        // Clear and repopulate the task list
-        tasks.getTasks().clear();
-        for (Task task : sortableTasks) {
-            tasks.addTask(task);
-        }
-        storage.save(tasks.getTasks());
-        // Show the sorted list to the user
-        ui.printTaskList(tasks);
+        ui.showTasksByDate(tasks, tasks.indexesByDate(), page, command);
     }
 }
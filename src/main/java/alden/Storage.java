@@ -1,35 +1,104 @@
 package alden;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Scanner;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Manages persistent storage for the Alden task management system.
  * Handles reading and writing tasks to/from a file system storage.
  * Provides functionality for loading existing tasks and saving task updates.
+ * In journaled mode, individual mutations are appended to a {@link TaskJournal}
+ * and only folded into the snapshot file once the journal grows large.
+ * Snapshots are replaced atomically, and a {@link DurabilityMode} decides when writes are forced to disk.
+ * A change in a task's completion status is written in place, as a single byte of the task's record
+ * in the snapshot, whenever the location of that record is known.
  */
 public class Storage {
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final String MAPPED_SUFFIX = ".old"; // Mapped snapshot moved aside while it is replaced
+    private static final int COMPACTION_THRESHOLD = 1024; // Journal records before the snapshot is rewritten
+    private static final long UNKNOWN_CHECKSUM = -1;
+    private static final int TEXT_STATUS_OFFSET = 4; // Text records start with "T | " followed by the status
+    private static final long PARALLEL_LOAD_THRESHOLD = 8L << 20; // Text snapshots worth parsing on all cores
+    private static final int MIGRATION_OFFER_THRESHOLD = 10_000; // Text snapshots at least this large
+    private static final long DEFAULT_LAZY_LOAD_THRESHOLD = 256L << 20; // Snapshots too large to decode up front
+    private static final long COLUMNAR_LOAD_THRESHOLD = 4L << 20; // Snapshots decoded into a columnar store
+    private static final String TEXT_HEADER_PREFIX = "# next-id "; // First line of a text snapshot
+    private static final String TEXT_SNAPSHOT_ID_FIELD = " snapshot-id "; // Hexadecimal, after the next ID
+
     private final String filePath;
+    private final boolean isJournaled;
+    private final TaskJournal journal;
+    private volatile long snapshotChecksum = UNKNOWN_CHECKSUM;
+    private LoadStats lastLoadStats;
+    private boolean isBinary;
+    private boolean isSnapshotMapped; // The live snapshot is mapped by a PagedTaskStore
+    // Records in the journal, counted where they are appended and reset where the journal is cleared, which
+    // is on the writer thread when writes are asynchronous while the command thread decides when to compact
+    private final AtomicInteger journalRecordCount = new AtomicInteger();
+    private StorageWriter writer;
+    private DurabilityMode durabilityMode = DurabilityMode.NONE;
+    private ScheduledExecutorService syncScheduler;
+    private volatile boolean hasUnsyncedWrites;
+    private final SaveLatencyStats saveLatencyStats = new SaveLatencyStats();
+    private long lazyLoadThreshold = DEFAULT_LAZY_LOAD_THRESHOLD;
+    private volatile int snapshotGeneration = 1; // Incremented every time the snapshot file is replaced
+    private FileChannel snapshotChannel; // Open while status changes are written in place
 
     /**
-     * Creates a new Storage instance with the specified file path.
+     * Creates a new journaled Storage instance with the specified file path.
      *
      * @param filePath Path to the storage file
      * @throws IllegalArgumentException if filePath is null or empty
      */
     public Storage(String filePath) {
+        this(filePath, true);
+    }
+
+    /**
+     * Creates a new Storage instance with the specified file path and storage mode.
+     *
+     * @param filePath Path to the storage file
+     * @param isJournaled True to append mutations to a journal, false to rewrite the file on every change
+     * @throws IllegalArgumentException if filePath is null or empty
+     */
+    public Storage(String filePath, boolean isJournaled) {
         if (filePath == null || filePath.trim().isEmpty()) {
             throw new IllegalArgumentException("File path cannot be null or empty");
         }
         this.filePath = filePath;
+        this.isJournaled = isJournaled;
+        this.journal = new TaskJournal(filePath + JOURNAL_SUFFIX);
     }
 
     /**
      * Loads tasks from storage and adds them to the provided TaskList.
      * Creates a new storage file if one doesn't exist.
+     * Any journal written against the loaded snapshot is replayed on top of it.
      *
      * @param tasks TaskList to populate with loaded tasks
      * @throws IllegalArgumentException if tasks is null
@@ -40,16 +109,153 @@ public class Storage {
         }
 
         try {
+            recoverMovedSnapshot();
             File file = ensureFileExists();
             if (file == null) {
                 return; // New file was created, nothing to load
             }
-            loadTasksFromFile(file, tasks);
+            boolean hasIds = loadTasksFromFile(file, tasks);
+            replayJournal(tasks);
+            if (!hasIds && file.length() >= lazyLoadThreshold) {
+                save(tasks); // Write the IDs given out while loading, so that later starts can load lazily
+            }
         } catch (IOException e) {
             logError("Error loading tasks", e);
         }
     }
 
+    /**
+     * Replays the journal on top of the freshly loaded snapshot.
+     * A journal that belongs to a different snapshot has already been folded in and is discarded.
+     *
+     * @param tasks TaskList holding the loaded snapshot
+     * @throws IOException if the journal cannot be read or discarded
+     */
+    private void replayJournal(TaskList tasks) throws IOException {
+        if (!journal.exists()) {
+            return;
+        }
+        ArrayList<String> records = journal.readRecords(getSnapshotChecksum());
+        if (records.isEmpty()) {
+            journal.clear();
+            return;
+        }
+        for (String record : records) {
+            applyJournalRecord(record, tasks);
+        }
+        journalRecordCount.set(records.size());
+    }
+
+    /**
+     * Applies a single journal record to the task list.
+     *
+     * @param record Journal record to apply
+     * @param tasks TaskList to apply the record to
+     */
+    private void applyJournalRecord(String record, TaskList tasks) {
+        String operation = TaskJournal.operationOf(record);
+        String payload = TaskJournal.payloadOf(record);
+        if (operation.equals(TaskJournal.ADD)) {
+            processTaskLine(payload, tasks);
+            return;
+        }
+        if (operation.equals(TaskJournal.OCCURRENCE)) {
+            applyOccurrenceRecord(record, payload, tasks);
+            return;
+        }
+
+        int index;
+        try {
+            index = Integer.parseInt(payload);
+        } catch (NumberFormatException e) {
+            logError("Invalid journal record: " + record, null);
+            return;
+        }
+        if (index < 0 || index >= tasks.size()) {
+            logError("Journal record out of range: " + record, null);
+            return;
+        }
+
+        switch (operation) {
+        case TaskJournal.MARK, TaskJournal.UNMARK -> {
+            Task task = tasks.markTask(index, operation.equals(TaskJournal.MARK));
+            // The journal now holds this task's status, so it must not be written in place until the next snapshot
+            task.setRecordLocation(snapshotGeneration, -1);
+            task.clearDirty();
+        }
+        case TaskJournal.DELETE -> tasks.removeTask(index);
+        default -> logError("Unknown journal operation: " + operation, null);
+        }
+    }
+
+    /**
+     * Applies a journal record marking one occurrence of a repeating task.
+     *
+     * @param record Journal record to apply
+     * @param payload Payload of the record: the task's index, the occurrence and its new status
+     * @param tasks TaskList to apply the record to
+     */
+    private void applyOccurrenceRecord(String record, String payload, TaskList tasks) {
+        String[] fields = payload.split(" \\| ");
+        try {
+            int index = Integer.parseInt(fields[0]);
+            int occurrence = Integer.parseInt(fields[1]);
+            if (index < 0 || index >= tasks.size() || occurrence < 0 || tasks.get(index).getRecurrence() == null) {
+                logError("Journal record out of range: " + record, null);
+                return;
+            }
+            Task task = tasks.markOccurrence(index, occurrence, fields[2].equals("1"));
+            task.setRecordLocation(snapshotGeneration, -1);
+            task.clearDirty();
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            logError("Invalid journal record: " + record, null);
+        }
+    }
+
+    /**
+     * Returns the checksum of the snapshot file, computing it from disk if it is not yet known.
+     * The checksum leaves out the status of every record, so status changes written in place keep it unchanged.
+     *
+     * @return Checksum of the snapshot file
+     * @throws IOException if the snapshot cannot be read
+     */
+    private long getSnapshotChecksum() throws IOException {
+        if (snapshotChecksum == UNKNOWN_CHECKSUM) {
+            File file = new File(filePath);
+            snapshotChecksum = isBinary ? BinarySnapshotCodec.fingerprint(file) : TextFingerprint.of(file);
+        }
+        return snapshotChecksum;
+    }
+
+    /**
+     * Returns the generation of the current snapshot file. Record locations stamped on tasks
+     * are only valid while their generation is current.
+     *
+     * @return The snapshot generation
+     */
+    int getSnapshotGeneration() {
+        return snapshotGeneration;
+    }
+
+    /**
+     * Finishes or undoes a replacement of a mapped snapshot that was cut short.
+     * A snapshot moved aside while the live file is missing is still the one the journal belongs to and is
+     * moved back; once the replacement is in place, the snapshot moved aside is no longer needed.
+     *
+     * @throws IOException if the snapshot moved aside cannot be moved back
+     */
+    private void recoverMovedSnapshot() throws IOException {
+        Path movedPath = Path.of(filePath + MAPPED_SUFFIX);
+        if (!Files.exists(movedPath)) {
+            return;
+        }
+        if (Files.exists(Path.of(filePath))) {
+            Files.deleteIfExists(movedPath);
+        } else {
+            replaceAtomically(movedPath, Path.of(filePath));
+        }
+    }
+
     /**
      * Ensures the storage file exists, creating it if necessary.
      *
@@ -87,20 +293,152 @@ public class Storage {
 
     /**
      * Loads tasks from the storage file into the provided TaskList.
+     * The snapshot format is detected from the file itself: binary snapshots are decoded by
+     * {@link BinarySnapshotCodec}, and text files are memory-mapped and parsed in bytes by a
+     * {@link MappedTaskLoader}, or by a {@link ParallelTaskLoader} across all cores when the file is large.
+     * Snapshots at or above the lazy load threshold are not decoded up front at all; the task list is
+     * instead backed by a {@link PagedTaskStore} that decodes tasks as they are accessed.
+     * Smaller snapshots that are still large are decoded into a {@link ColumnarTaskStore}, which holds
+     * the tasks in far less memory than task objects do.
+     * Snapshots written before tasks had stable IDs are always decoded in full, as their tasks only
+     * receive IDs when they join the list. Later saves keep using the detected format.
      *
      * @param file Source file to read tasks from
      * @param tasks TaskList to populate with loaded tasks
+     * @return True if the snapshot stores task IDs
      * @throws IOException if file reading fails
      */
-    private void loadTasksFromFile(File file, TaskList tasks) throws IOException {
-        try (Scanner fileScanner = new Scanner(file)) {
-            while (fileScanner.hasNextLine()) {
-                String line = fileScanner.nextLine().trim();
-                if (!line.isEmpty()) {
-                    processTaskLine(line, tasks);
-                }
-            }
+    private boolean loadTasksFromFile(File file, TaskList tasks) throws IOException {
+        isBinary = BinarySnapshotCodec.isBinarySnapshot(file);
+        long nextId;
+        long snapshotId;
+        if (isBinary) {
+            BinarySnapshotCodec.Header header = BinarySnapshotCodec.readHeader(file);
+            nextId = header.getNextId();
+            snapshotId = header.getSnapshotId();
+        } else {
+            String header = readTextHeader(file);
+            nextId = parseTextHeaderField(header, TEXT_HEADER_PREFIX, 10);
+            snapshotId = parseTextHeaderField(header, TEXT_SNAPSHOT_ID_FIELD, 16);
+        }
+        tasks.reserveIds(nextId);
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        if (tasks.isEmpty() && file.length() >= lazyLoadThreshold && nextId > 0) {
+            long startTime = System.nanoTime();
+            TaskFileIndex index = new TaskFileIndex(new File(filePath + INDEX_SUFFIX));
+            PagedTaskStore store = PagedTaskStore.open(file, isBinary, snapshotId, index, this);
+            isSnapshotMapped = true;
+            tasks.useStore(store);
+            lastLoadStats = new LoadStats(store.size(), file.length(), System.nanoTime() - startTime);
+            return true;
+        }
+        if (tasks.isEmpty() && file.length() >= COLUMNAR_LOAD_THRESHOLD) {
+            tasks.useStore(new ColumnarTaskStore());
         }
+        if (isBinary) {
+            lastLoadStats = BinarySnapshotCodec.read(file, tasks, snapshotGeneration);
+        } else if (file.length() >= PARALLEL_LOAD_THRESHOLD && pool.getParallelism() > 1) {
+            lastLoadStats = new ParallelTaskLoader(this, pool).load(file, tasks);
+        } else {
+            lastLoadStats = new MappedTaskLoader(this).load(file, tasks);
+        }
+        return nextId > 0;
+    }
+
+    /**
+     * Reads the header line of a text snapshot, which holds the next free task ID and the snapshot ID.
+     *
+     * @param file Text snapshot file
+     * @return The header line, or an empty string if the snapshot has no header because it predates task IDs
+     * @throws IOException if the file cannot be read
+     */
+    private static String readTextHeader(File file) throws IOException {
+        byte[] start;
+        try (InputStream in = new FileInputStream(file)) {
+            start = in.readNBytes(TEXT_HEADER_PREFIX.length() + TEXT_SNAPSHOT_ID_FIELD.length() + 40);
+        }
+        String line = new String(start, StandardCharsets.US_ASCII);
+        if (!line.startsWith(TEXT_HEADER_PREFIX)) {
+            return "";
+        }
+        int end = line.indexOf('\n');
+        return end < 0 ? line : line.substring(0, end);
+    }
+
+    /**
+     * Parses the number following a field name in the header line of a text snapshot.
+     *
+     * @param header The header line
+     * @param field The field name, including the spaces around it
+     * @param radix Radix the number is written in
+     * @return The number, or 0 if the header does not hold the field
+     */
+    private static long parseTextHeaderField(String header, String field, int radix) {
+        int start = header.indexOf(field);
+        if (start < 0) {
+            return 0;
+        }
+        start += field.length();
+        int end = start;
+        while (end < header.length() && Character.digit(header.charAt(end), radix) >= 0) {
+            end++;
+        }
+        try {
+            return Long.parseUnsignedLong(header.substring(start, end), radix);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Sets the snapshot size from which tasks are decoded lazily instead of all at load time.
+     * Must be called before {@link #load(TaskList)} to take effect.
+     *
+     * @param lazyLoadThreshold Snapshot size in bytes
+     */
+    public void setLazyLoadThreshold(long lazyLoadThreshold) {
+        this.lazyLoadThreshold = lazyLoadThreshold;
+    }
+
+    /**
+     * Returns whether the snapshot is stored in the binary format.
+     *
+     * @return True if the binary format is in use, false for the text format
+     */
+    public boolean isBinaryFormat() {
+        return isBinary;
+    }
+
+    /**
+     * Returns whether the loaded snapshot is a text file large enough to benefit from migrating to binary.
+     *
+     * @return True if a migration to the binary format should be offered
+     */
+    public boolean shouldOfferMigration() {
+        return !isBinary && lastLoadStats != null && lastLoadStats.getTaskCount() >= MIGRATION_OFFER_THRESHOLD;
+    }
+
+    /**
+     * Rewrites the snapshot in the binary format. All later saves use the binary format.
+     *
+     * @param tasks TaskList to write
+     * @throws AldenException if the snapshot is already binary
+     */
+    public void migrateToBinary(TaskList tasks) throws AldenException {
+        if (isBinary) {
+            throw new AldenException("The data file is already in the binary format.");
+        }
+        isBinary = true;
+        save(tasks);
+    }
+
+    /**
+     * Returns statistics for the most recent snapshot load, including its throughput.
+     *
+     * @return Load statistics, or null if no snapshot has been loaded
+     */
+    public LoadStats getLastLoadStats() {
+        return lastLoadStats;
     }
 
     /**
@@ -111,113 +449,606 @@ public class Storage {
      */
     private void processTaskLine(String line, TaskList tasks) {
         String[] parts = line.split(" \\| ");
-        if (parts.length < 2) {
+        Task task = createTask(parts[0], parts.length, "1".equals(parts.length > 1 ? parts[1] : null),
+                fieldOrNull(parts, 2), fieldOrNull(parts, 3), fieldOrNull(parts, 4),
+                fieldOrNull(parts, idFieldIndex(parts[0])), fieldOrNull(parts, recurrenceFieldIndex(parts[0])));
+        if (task != null) {
+            tasks.addTask(task);
+        }
+    }
+
+    /**
+     * Returns the part at the given index, or null if the line has fewer parts.
+     *
+     * @param parts Array of task data parts from file
+     * @param index Index of the part to return
+     * @return The part at the index, or null if absent
+     */
+    private static String fieldOrNull(String[] parts, int index) {
+        return index < parts.length ? parts[index] : null;
+    }
+
+    /**
+     * Creates a task object from the fields of one record in the storage file.
+     * Errors are logged rather than thrown so that a single bad record does not abort loading.
+     *
+     * @param taskType Type code of the task (T, D or E)
+     * @param fieldCount Number of fields present in the record
+     * @param isDone Whether the record is marked as done
+     * @param description The task description, or null if absent
+     * @param start The deadline or event start time, or null if absent
+     * @param end The event end time, or null if absent
+     * @param id The task ID, or null if the record predates task IDs
+     * @param recurrence The stored repetition, or null if the task happens once
+     * @return Created Task object, or null if creation fails
+     */
+    Task createTask(String taskType, int fieldCount, boolean isDone, String description, String start,
+            String end, String id, String recurrence) {
+        if (fieldCount < 2) {
             logError("Invalid file format: insufficient parts in line", null);
-            return;
+            return null;
         }
 
         try {
-            Task task = createTask(parts);
-            if (task != null) {
-                if ("1".equals(parts[1])) {
-                    task.markAsDone();
-                }
-                tasks.addTask(task);
+            Task task = switch (taskType) {
+            case "T" -> createTodoTask(fieldCount, description);
+            case "D" -> createDeadlineTask(fieldCount, description, start);
+            case "E" -> createEventTask(fieldCount, description, start, end);
+            default -> {
+                logError("Unknown task type: " + taskType, null);
+                yield null;
             }
+            };
+            if (task != null && recurrence != null && !taskType.equals("T")) {
+                task.setRecurrence(Recurrence.fromFileFormat(recurrence));
+            }
+            if (task != null && isDone) {
+                task.markAsDone();
+                task.clearDirty();
+            }
+            if (task != null && id != null) {
+                setIdIfValid(task, id);
+            }
+            return task;
         } catch (AldenException e) {
             logError("Error creating task from file", e);
+            return null;
         }
     }
 
     /**
-     * Creates a task object from parsed file data.
+     * Returns the index of the ID field in records of the given type, which follows the type's other fields.
      *
-     * @param parts Array of task data parts from file
-     * @return Created Task object, or null if creation fails
-     * @throws AldenException if task creation fails
+     * @param taskType Type code of the task (T, D or E)
+     * @return The index of the ID field, or {@code Integer.MAX_VALUE} for an unknown type
      */
-    private Task createTask(String[] parts) throws AldenException {
-        String taskType = parts[0];
+    static int idFieldIndex(String taskType) {
         return switch (taskType) {
-            case "T" -> createTodoTask(parts);
-            case "D" -> createDeadlineTask(parts);
-            case "E" -> createEventTask(parts);
-            default -> {
-                logError("Unknown task type: " + taskType, null);
-                yield null;
-            }
+        case "T" -> 3;
+        case "D" -> 4;
+        case "E" -> 5;
+        default -> Integer.MAX_VALUE;
         };
     }
 
+    /**
+     * Returns the index of the repetition field in records of the given type, which follows the ID field.
+     *
+     * @param taskType Type code of the task (T, D or E)
+     * @return The index of the repetition field, or {@code Integer.MAX_VALUE} for an unknown type
+     */
+    static int recurrenceFieldIndex(String taskType) {
+        int idField = idFieldIndex(taskType);
+        return idField == Integer.MAX_VALUE ? idField : idField + 1;
+    }
+
+    /**
+     * Gives the task the ID stored in its record. A malformed ID is reported and the task is left to
+     * receive a new one when it joins the list.
+     *
+     * @param task Task created from the record
+     * @param id The ID field of the record
+     */
+    private void setIdIfValid(Task task, String id) {
+        try {
+            long value = Long.parseLong(id.trim());
+            if (value > 0) {
+                task.setId(value);
+                return;
+            } else if (value == 0) {
+                return; // A repeating task saved before it had an ID
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        logError("Invalid task ID in file: " + id, null);
+    }
+
     /**
      * Creates a Todo task from file data.
      *
-     * @param parts Array of task data parts
+     * @param fieldCount Number of fields present in the record
+     * @param description The task description
      * @return Created Todo task
      * @throws AldenException if required data is missing
      */
-    private Todo createTodoTask(String[] parts) throws AldenException {
-        if (parts.length < 3) {
+    private Todo createTodoTask(int fieldCount, String description) throws AldenException {
+        if (fieldCount < 3) {
             throw new AldenException("Todo task must have description");
         }
-        return new Todo(parts[2]);
+        return new Todo(description);
     }
 
     /**
      * Creates a Deadline task from file data.
      *
-     * @param parts Array of task data parts
+     * @param fieldCount Number of fields present in the record
+     * @param description The task description
+     * @param by The deadline time
      * @return Created Deadline task
      * @throws AldenException if required data is missing
      */
-    private Deadline createDeadlineTask(String[] parts) throws AldenException {
-        if (parts.length < 4) {
+    private Deadline createDeadlineTask(int fieldCount, String description, String by) throws AldenException {
+        if (fieldCount < 4) {
             throw new AldenException("Deadline task must have description and date");
         }
-        return new Deadline(parts[2], parts[3]);
+        return new Deadline(description, by);
     }
 
     /**
      * Creates an Event task from file data.
      *
-     * @param parts Array of task data parts
+     * @param fieldCount Number of fields present in the record
+     * @param description The task description
+     * @param from The event start time
+     * @param to The event end time
      * @return Created Event task
      * @throws AldenException if required data is missing
      */
-    private Event createEventTask(String[] parts) throws AldenException {
-        if (parts.length < 5) {
+    private Event createEventTask(int fieldCount, String description, String from, String to)
+            throws AldenException {
+        if (fieldCount < 5) {
             throw new AldenException("Event task must have description and two dates");
         }
-        return new Event(parts[2], parts[3], parts[4]);
+        return new Event(description, from, to);
     }
 
     /**
-     * Saves the provided tasks to storage.
+     * Persists a newly added task, which must already be the last task in the list.
      *
-     * @param tasks List of tasks to save
+     * @param tasks TaskList after the addition
+     * @param task The task that was added
+     */
+    public void saveAddedTask(TaskList tasks, Task task) {
+        saveMutation(tasks, TaskJournal.addRecord(task));
+    }
+
+    /**
+     * Persists the current completion status of the task at the given index, if it has changed.
+     * The status byte of the task's record is rewritten in place when the record's location is known;
+     * otherwise the change is saved like any other mutation.
+     *
+     * @param tasks TaskList after the change
+     * @param index Zero-based index of the task whose status changed
+     */
+    public void saveTaskStatus(TaskList tasks, int index) {
+        Task task = tasks.get(index);
+        if (!task.isDirty()) {
+            return; // The status on disk is already current
+        }
+        task.clearDirty();
+        String record = TaskJournal.statusRecord(index, task.isDone());
+        if (writer != null && isJournaled && !isJournalFull()) {
+            writer.submitStatus(task, task.isDone(), record);
+        } else if (writer != null || !writeStatusInPlace(task, task.isDone())) {
+            saveMutation(tasks, record);
+        }
+    }
+
+    /**
+     * Persists the status of one occurrence of the repeating task at the given index. The record of a
+     * repeating task grows with the occurrences done, so the change is saved like any other mutation
+     * rather than written in place.
+     *
+     * @param tasks TaskList after the change
+     * @param index Zero-based index of the repeating task
+     * @param occurrence Number of the occurrence whose status changed
+     * @param isDone The new status of the occurrence
+     */
+    public void saveOccurrence(TaskList tasks, int index, int occurrence, boolean isDone) {
+        Task task = tasks.get(index);
+        task.clearDirty();
+        task.setRecordLocation(snapshotGeneration, -1); // The record on disk no longer holds the whole status
+        saveMutation(tasks, TaskJournal.occurrenceRecord(index, occurrence, isDone));
+    }
+
+    /**
+     * Rewrites the status of a task's record in the current snapshot with a single positioned write.
+     * If the write fails, the task loses its record location, as its status then goes to the journal,
+     * where a later write in place would be overwritten when the journal is replayed.
+     *
+     * @param task Task whose status changed
+     * @param isDone Completion status to write
+     * @return True if the status was written, false if the task has no record in the current snapshot
+     *     or the write failed
+     */
+    boolean writeStatusInPlace(Task task, boolean isDone) {
+        long offset = task.getRecordOffset(snapshotGeneration);
+        if (offset < 0) {
+            return false;
+        }
+
+        long startTime = System.nanoTime();
+        boolean isSyncing = durabilityMode == DurabilityMode.EVERY_SAVE;
+        byte status = isBinary ? BinarySnapshotCodec.tagOf(task, isDone) : (byte) (isDone ? '1' : '0');
+        long position = isBinary ? offset : offset + TEXT_STATUS_OFFSET;
+        try {
+            if (snapshotChannel == null) {
+                snapshotChannel = FileChannel.open(Path.of(filePath), StandardOpenOption.WRITE);
+            }
+            snapshotChannel.write(ByteBuffer.wrap(new byte[] {status}), position);
+            if (isSyncing) {
+                snapshotChannel.force(false);
+            }
+        } catch (IOException e) {
+            logError("Error updating task status", e);
+            closeSnapshotChannel();
+            task.setRecordLocation(snapshotGeneration, -1);
+            return false;
+        }
+        hasUnsyncedWrites = !isSyncing;
+        saveLatencyStats.record(System.nanoTime() - startTime);
+        return true;
+    }
+
+    /**
+     * Closes the channel used for in-place status writes, if it is open.
+     */
+    private void closeSnapshotChannel() {
+        if (snapshotChannel == null) {
+            return;
+        }
+        try {
+            snapshotChannel.close();
+        } catch (IOException e) {
+            logError("Error closing data file", e);
+        }
+        snapshotChannel = null;
+    }
+
+    /**
+     * Persists the deletion of the task that was at the given index.
+     *
+     * @param tasks TaskList after the deletion
+     * @param index Zero-based index the task had before it was deleted
+     */
+    public void saveDeletedTask(TaskList tasks, int index) {
+        saveMutation(tasks, TaskJournal.deleteRecord(index));
+    }
+
+    /**
+     * Persists a single mutation, either by appending it to the journal or,
+     * when journaling is off or the journal has grown too large, by rewriting the snapshot.
+     *
+     * @param tasks TaskList after the mutation
+     * @param record Journal record describing the mutation
+     */
+    private void saveMutation(TaskList tasks, String record) {
+        if (!isJournaled || isJournalFull()) {
+            save(tasks);
+            return;
+        }
+
+        if (writer != null) {
+            writer.submitRecord(record);
+            return;
+        }
+        if (!appendJournalRecords(List.of(record))) {
+            save(tasks);
+        }
+    }
+
+    /**
+     * Returns whether the journal has grown large enough that the next change should rewrite the snapshot.
+     * Records the writer thread has not appended yet are not counted, so the journal may run past the
+     * threshold by the changes of one flush interval.
+     *
+     * @return True if the journal should be compacted
+     */
+    private boolean isJournalFull() {
+        return journalRecordCount.get() >= COMPACTION_THRESHOLD;
+    }
+
+    /**
+     * Saves the provided tasks to storage, replacing the snapshot and discarding the journal.
+     * With asynchronous writes enabled, the tasks are handed to the background writer and
+     * this method returns without touching the disk.
+     *
+     * @param tasks TaskList to save
      * @throws IllegalArgumentException if tasks is null
      */
-    public void save(ArrayList<Task> tasks) {
+    public void save(TaskList tasks) {
         if (tasks == null) {
             throw new IllegalArgumentException("Tasks list cannot be null");
         }
 
-        try (FileWriter writer = new FileWriter(filePath)) {
-            for (Task task : tasks) {
-                if (task == null) {
-                    logError("Null task in tasks list", null);
-                    continue;
+        if (writer != null) {
+            writer.submitSnapshot(tasks.getTasks(), tasks.getNextId(), isBinary);
+        } else {
+            writeSnapshot(tasks.getTasks(), tasks.getNextId(), isBinary);
+        }
+    }
+
+    /**
+     * Turns on asynchronous writes. Saves are then queued for a background writer thread, which
+     * waits up to the flush interval after the first queued save so that a burst of saves is
+     * written out together.
+     *
+     * @param flushIntervalMillis Longest time a save may wait before it is written, in milliseconds
+     */
+    public void enableAsyncWrites(long flushIntervalMillis) {
+        if (writer == null) {
+            writer = new StorageWriter(this, flushIntervalMillis);
+        }
+    }
+
+    /**
+     * Blocks until every save made so far has been written and forced to disk.
+     * Returns immediately when asynchronous writes are not enabled, as saves are then already written.
+     */
+    public void flush() {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    /**
+     * Sets when written data is forced to disk.
+     *
+     * @param mode The durability mode to use for later saves
+     * @param syncIntervalMillis Interval between forced writes in {@link DurabilityMode#PERIODIC} mode,
+     *     in milliseconds; ignored by the other modes
+     */
+    public void setDurability(DurabilityMode mode, long syncIntervalMillis) {
+        if (mode == DurabilityMode.PERIODIC && syncIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Sync interval must be positive");
+        }
+        if (syncScheduler != null) {
+            syncScheduler.shutdownNow();
+            syncScheduler = null;
+        }
+        durabilityMode = mode;
+        if (mode == DurabilityMode.PERIODIC) {
+            syncScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "alden-storage-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            syncScheduler.scheduleAtFixedRate(() -> {
+                if (hasUnsyncedWrites) {
+                    syncToDisk();
                 }
-                String fileFormat = task.toFileFormat();
-                if (fileFormat == null || fileFormat.isEmpty()) {
-                    logError("Invalid file format for task: " + task, null);
-                    continue;
+            }, syncIntervalMillis, syncIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Returns latency statistics for the snapshot writes and journal appends performed so far.
+     *
+     * @return Save latency statistics
+     */
+    public SaveLatencyStats getSaveLatencyStats() {
+        return saveLatencyStats;
+    }
+
+    /**
+     * Writes a complete snapshot of the tasks and discards the journal it supersedes.
+     * The snapshot is written to a temporary file which then atomically replaces the live file,
+     * so a crash part-way through a save leaves the previous snapshot intact.
+     * The written tasks are stamped with the locations of their records in the new snapshot.
+     * A live snapshot that is still mapped is first moved aside rather than replaced, as some platforms
+     * refuse to replace or delete a mapped file for as long as the mapping is reachable, and Java offers no
+     * way to release it; the mapping keeps reading the moved file.
+     *
+     * @param tasks List of tasks to write
+     * @param nextId The next free task ID, recorded so that IDs are never handed out twice
+     * @param isBinarySnapshot True to write the binary format, false for the text format
+     */
+    void writeSnapshot(List<Task> tasks, long nextId, boolean isBinarySnapshot) {
+        long startTime = System.nanoTime();
+        boolean isSyncing = durabilityMode == DurabilityMode.EVERY_SAVE;
+        Path livePath = Path.of(filePath);
+        Path tempPath = Path.of(filePath + TEMP_SUFFIX);
+        int generation = snapshotGeneration + 1;
+        long snapshotId = newSnapshotId();
+        long fingerprint;
+        try {
+            try (FileOutputStream out = new FileOutputStream(tempPath.toFile())) {
+                if (isBinarySnapshot) {
+                    fingerprint = BinarySnapshotCodec.write(tasks, nextId, snapshotId, out, generation);
+                } else {
+                    fingerprint = writeTextSnapshot(tasks, nextId, snapshotId, out, generation);
                 }
-                writer.write(fileFormat + System.lineSeparator());
+                if (isSyncing) {
+                    out.getFD().sync();
+                }
+            }
+            closeSnapshotChannel();
+            Path movedPath = Path.of(filePath + MAPPED_SUFFIX);
+            if (isSnapshotMapped) {
+                replaceAtomically(livePath, movedPath);
+            }
+            replaceAtomically(tempPath, livePath);
+            if (isSyncing) {
+                syncDirectory(livePath.toAbsolutePath().getParent());
+            }
+            if (isSnapshotMapped) {
+                isSnapshotMapped = false;
+                deleteMovedSnapshot(movedPath);
             }
         } catch (IOException e) {
             logError("Error saving tasks", e);
+            if (isSnapshotMapped && !Files.exists(livePath)) {
+                try {
+                    replaceAtomically(Path.of(filePath + MAPPED_SUFFIX), livePath);
+                } catch (IOException moveError) {
+                    logError("Error restoring data file", moveError); // The next load moves it back
+                }
+            }
+            return;
+        }
+
+        snapshotGeneration = generation;
+        snapshotChecksum = fingerprint;
+        try {
+            journal.clear();
+            journalRecordCount.set(0);
+        } catch (IOException e) {
+            logError("Error clearing journal", e);
+        }
+        hasUnsyncedWrites = !isSyncing;
+        saveLatencyStats.record(System.nanoTime() - startTime);
+    }
+
+    /**
+     * Returns a random ID for a new snapshot, never 0, which stands for a snapshot without an ID.
+     *
+     * @return The snapshot ID
+     */
+    private static long newSnapshotId() {
+        long snapshotId;
+        do {
+            snapshotId = ThreadLocalRandom.current().nextLong();
+        } while (snapshotId == 0);
+        return snapshotId;
+    }
+
+    /**
+     * Deletes a snapshot that was moved aside while it was mapped. Where the platform refuses because the
+     * mapping is still reachable, the file is left for the next load to delete.
+     *
+     * @param movedPath The snapshot moved aside
+     */
+    private static void deleteMovedSnapshot(Path movedPath) {
+        try {
+            Files.deleteIfExists(movedPath);
+        } catch (IOException e) {
+            // Still mapped; the next load deletes it
+        }
+    }
+
+    /**
+     * Moves the source file over the target in a single atomic step where the file system allows it.
+     *
+     * @param source File to move
+     * @param target File to replace
+     * @throws IOException if the move fails
+     */
+    private static void replaceAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Forces a directory's entries to disk so that a completed rename survives a crash.
+     * Not every platform can open a directory for syncing, in which case this does nothing.
+     *
+     * @param directory Directory to sync
+     */
+    private static void syncDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Directories cannot be synced on this platform; the rename is still atomic
+        }
+    }
+
+    /**
+     * Appends journal records in a single write.
+     *
+     * @param records Journal records to append, in order
+     * @return True if the records were written, false if the write failed
+     */
+    boolean appendJournalRecords(List<String> records) {
+        long startTime = System.nanoTime();
+        boolean isSyncing = durabilityMode == DurabilityMode.EVERY_SAVE;
+        try {
+            journal.append(records, getSnapshotChecksum(), isSyncing);
+        } catch (IOException e) {
+            logError("Error appending to journal", e);
+            return false;
+        }
+        journalRecordCount.addAndGet(records.size());
+        hasUnsyncedWrites = !isSyncing;
+        saveLatencyStats.record(System.nanoTime() - startTime);
+        return true;
+    }
+
+    /**
+     * Forces the snapshot and journal files to disk.
+     */
+    void syncToDisk() {
+        hasUnsyncedWrites = false;
+        for (File file : new File[] {new File(filePath), journal.getFile()}) {
+            if (!file.exists()) {
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                channel.force(true);
+            } catch (IOException e) {
+                logError("Error syncing " + file.getPath(), e);
+            }
+        }
+    }
+
+    /**
+     * Writes the tasks to the stream in the line-based text format, one task per line,
+     * after a header line holding the next free task ID and the snapshot ID.
+     * Each task is stamped with the location of its record under the given snapshot generation.
+     *
+     * @param tasks List of tasks to write
+     * @param nextId The next free task ID
+     * @param snapshotId Random ID of the snapshot
+     * @param out Stream to write to
+     * @param generation Generation the written snapshot will have once it is in place
+     * @return Fingerprint of the written snapshot
+     * @throws IOException if writing fails
+     */
+    private long writeTextSnapshot(List<Task> tasks, long nextId, long snapshotId, OutputStream out,
+            int generation) throws IOException {
+        OutputStream buffered = new BufferedOutputStream(out, 1 << 16);
+        TextFingerprint fingerprint = new TextFingerprint();
+        Charset charset = Charset.defaultCharset();
+        byte[] header = (TEXT_HEADER_PREFIX + nextId + TEXT_SNAPSHOT_ID_FIELD
+                + Long.toHexString(snapshotId) + System.lineSeparator()).getBytes(charset);
+        buffered.write(header);
+        fingerprint.update(header, 0, header.length);
+        long offset = header.length;
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            if (task == null) {
+                logError("Null task in tasks list", null);
+                continue;
+            }
+            String fileFormat = task.toFileFormat();
+            if (fileFormat == null || fileFormat.isEmpty()) {
+                logError("Invalid file format for task: " + task, null);
+                continue;
+            }
+            byte[] line = (fileFormat + System.lineSeparator()).getBytes(charset);
+            TaskStore.setRecordLocation(tasks, i, task, generation, offset);
+            buffered.write(line);
+            fingerprint.update(line, 0, line.length);
+            offset += line.length;
         }
+        buffered.flush();
+        return fingerprint.getValue();
     }
 
     /**
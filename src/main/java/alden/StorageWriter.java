@@ -0,0 +1,211 @@
+package alden;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Background writer that takes saves off the thread running the command.
+ * Queued saves are coalesced: a snapshot supersedes everything queued before it, and journal
+ * records queued within one flush interval are appended in a single write (group commit).
+ * Status changes are written in place where possible and otherwise join the journal records in order.
+ */
+public class StorageWriter {
+    private final Storage storage;
+    private final long flushIntervalMillis;
+    private final Object lock = new Object();
+    private final Thread thread;
+
+    // Work queued since the last batch was taken, guarded by lock
+    private List<Task> pendingSnapshot;
+    private long pendingSnapshotNextId;
+    private boolean isPendingSnapshotBinary;
+    private ArrayList<Mutation> pendingMutations = new ArrayList<>();
+    private long submittedCount; // Saves queued so far
+    private long syncedCount; // Saves known to be written and forced to disk
+    private boolean isSyncRequested;
+
+    /**
+     * Creates a writer for the given storage and starts its background thread.
+     *
+     * @param storage Storage that performs the actual file writes
+     * @param flushIntervalMillis Longest time a queued save waits before being written, in milliseconds
+     */
+    public StorageWriter(Storage storage, long flushIntervalMillis) {
+        if (flushIntervalMillis < 0) {
+            throw new IllegalArgumentException("Flush interval cannot be negative");
+        }
+        this.storage = storage;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.thread = new Thread(this::run, "alden-storage-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queues a full snapshot, discarding any queued work it supersedes.
+     *
+     * @param tasks Copy of the task list to write
+     * @param nextId The next free task ID to record in the snapshot
+     * @param isBinary True to write the binary format, false for the text format
+     */
+    public void submitSnapshot(List<Task> tasks, long nextId, boolean isBinary) {
+        synchronized (lock) {
+            pendingSnapshot = tasks;
+            pendingSnapshotNextId = nextId;
+            isPendingSnapshotBinary = isBinary;
+            pendingMutations.clear();
+            submittedCount++;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Queues a journal record to be appended after any queued snapshot.
+     *
+     * @param record Journal record to append
+     */
+    public void submitRecord(String record) {
+        submit(new Mutation(record, null, false));
+    }
+
+    /**
+     * Queues a change in a task's completion status. The change is written in place in the snapshot
+     * if the task's record can be located when the batch is written, and appended to the journal otherwise.
+     *
+     * @param task Task whose status changed
+     * @param isDone The new completion status
+     * @param record Journal record to append if the status cannot be written in place
+     */
+    public void submitStatus(Task task, boolean isDone, String record) {
+        submit(new Mutation(record, task, isDone));
+    }
+
+    private void submit(Mutation mutation) {
+        synchronized (lock) {
+            pendingMutations.add(mutation);
+            submittedCount++;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Blocks until every save queued before this call has been written and forced to disk.
+     */
+    public void flush() {
+        synchronized (lock) {
+            long target = submittedCount;
+            if (syncedCount >= target) {
+                return;
+            }
+            isSyncRequested = true;
+            lock.notifyAll();
+            try {
+                while (syncedCount < target) {
+                    lock.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Returns whether there is queued work. Must be called while holding the lock.
+     *
+     * @return True if a snapshot or journal records are waiting to be written
+     */
+    private boolean hasPendingWork() {
+        return pendingSnapshot != null || !pendingMutations.isEmpty();
+    }
+
+    /**
+     * Main loop of the writer thread: waits for work, lets a burst accumulate for up to the
+     * flush interval, then writes the whole batch at once.
+     */
+    private void run() {
+        while (true) {
+            List<Task> snapshot;
+            long nextId;
+            boolean isBinary;
+            ArrayList<Mutation> mutations;
+            boolean isSync;
+            long batchCount;
+            synchronized (lock) {
+                try {
+                    while (!hasPendingWork() && !isSyncRequested) {
+                        lock.wait();
+                    }
+                    long deadline = System.currentTimeMillis() + flushIntervalMillis;
+                    long remaining = flushIntervalMillis;
+                    while (!isSyncRequested && remaining > 0) {
+                        lock.wait(remaining);
+                        remaining = deadline - System.currentTimeMillis();
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                snapshot = pendingSnapshot;
+                nextId = pendingSnapshotNextId;
+                isBinary = isPendingSnapshotBinary;
+                mutations = pendingMutations;
+                isSync = isSyncRequested;
+                batchCount = submittedCount;
+                pendingSnapshot = null;
+                pendingMutations = new ArrayList<>();
+                isSyncRequested = false;
+            }
+
+            writeBatch(snapshot, nextId, isBinary, mutations, isSync);
+
+            if (isSync) {
+                synchronized (lock) {
+                    syncedCount = batchCount;
+                    lock.notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes one coalesced batch.
+     *
+     * @param snapshot Snapshot to write first, or null if none was queued
+     * @param nextId The next free task ID to record in the snapshot
+     * @param isBinary True if the snapshot uses the binary format
+     * @param mutations Mutations to apply after the snapshot, in the order they were made
+     * @param isSync True to force the written data to disk
+     */
+    private void writeBatch(List<Task> snapshot, long nextId, boolean isBinary, List<Mutation> mutations,
+            boolean isSync) {
+        if (snapshot != null) {
+            storage.writeSnapshot(snapshot, nextId, isBinary);
+        }
+        ArrayList<String> records = new ArrayList<>();
+        for (Mutation mutation : mutations) {
+            if (mutation.task == null || !storage.writeStatusInPlace(mutation.task, mutation.isDone)) {
+                records.add(mutation.record);
+            }
+        }
+        if (!records.isEmpty()) {
+            storage.appendJournalRecords(records);
+        }
+        if (isSync) {
+            storage.syncToDisk();
+        }
+    }
+
+    /**
+     * A queued journal record, optionally tied to a status change that may be written in place instead.
+     */
+    private static class Mutation {
+        private final String record;
+        private final Task task;
+        private final boolean isDone;
+
+        Mutation(String record, Task task, boolean isDone) {
+            this.record = record;
+            this.task = task;
+            this.isDone = isDone;
+        }
+    }
+}
@@ -7,6 +7,11 @@ package alden;
 public abstract class Task {
     protected String description;
     protected boolean isDone;
+    private long id; // Stable identifier handed out by the task list, or 0 until the task joins one
+    private boolean isDirty; // Status changed since it was last persisted
+    private int recordGeneration; // Snapshot generation the record offset refers to
+    private long recordOffset = -1; // Offset of this task's record in that snapshot, or -1 if none
+    private Recurrence recurrence; // How a deadline or event repeats, or null if it happens once
 
     /**
      * Constructs a Task object with the given description.
@@ -26,7 +31,7 @@ public abstract class Task {
      * Marks the task as done.
      */
     public void markAsDone() {
-
+        isDirty |= !isDone;
         isDone = true;
     }
 
@@ -34,10 +39,154 @@ public abstract class Task {
      * Marks the task as not done.
      */
     public void unmarkAsDone() {
-
+        isDirty |= isDone;
         isDone = false;
     }
 
+    /**
+     * Returns the task's stable ID, which unlike its position in the list never changes.
+     *
+     * @return The ID, or 0 if the task has not been given one yet
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Gives the task its stable ID.
+     *
+     * @param id A positive ID, unique within the task list
+     */
+    void setId(long id) {
+        assert id > 0 : "Task IDs must be positive";
+        this.id = id;
+    }
+
+    /**
+     * Returns the trailing ID field of the task's file format, which is left out until the task has an ID.
+     * A repeating task is followed by its repetition, so it always has the field, with 0 standing for no ID.
+     *
+     * @return The fields with their leading delimiters, or an empty string
+     */
+    protected String idField() {
+        if (recurrence != null) {
+            return " | " + id + " | " + recurrence.toFileFormat();
+        }
+        return id == 0 ? "" : " | " + id;
+    }
+
+    /**
+     * Returns how the task repeats.
+     *
+     * @return The repetition, or null if the task happens once
+     */
+    public Recurrence getRecurrence() {
+        return recurrence;
+    }
+
+    /**
+     * Makes the task repeat. Only deadlines and events can repeat, and only before they join a list.
+     *
+     * @param recurrence The repetition, or null for a task that happens once
+     */
+    void setRecurrence(Recurrence recurrence) {
+        assert recurrence == null || this instanceof RepeatableTask : "Only deadlines and events can repeat";
+        this.recurrence = recurrence;
+    }
+
+    /**
+     * Returns a copy of this task with the same ID, status, repetition and record location.
+     * The task list changes the copy and puts it in place of this task, so that versions of the list
+     * already handed out, which share this task, keep the status they had.
+     *
+     * @return The copy
+     */
+    abstract Task copy();
+
+    /**
+     * Gives a copy of this task the state besides its description and times: the status, ID, record
+     * location and a copy of the repetition, so that marking occurrences of the copy leaves this task alone.
+     *
+     * @param copy A new task with the same description and times
+     * @param <T> The type of task
+     * @return The copy
+     */
+    protected <T extends Task> T copyStateTo(T copy) {
+        Task target = copy;
+        target.isDone = isDone;
+        target.isDirty = isDirty;
+        target.id = id;
+        target.recordGeneration = recordGeneration;
+        target.recordOffset = recordOffset;
+        target.recurrence = recurrence == null ? null : recurrence.copy();
+        return copy;
+    }
+
+    /**
+     * Returns whether the task's completion status has changed since it was last persisted.
+     *
+     * @return True if the status has unsaved changes
+     */
+    public boolean isDirty() {
+        return isDirty;
+    }
+
+    /**
+     * Records that the task's current completion status has been persisted.
+     */
+    public void clearDirty() {
+        isDirty = false;
+    }
+
+    /**
+     * Sets whether the task's completion status has changed since it was last persisted,
+     * as when a task is rebuilt from a store that kept the flag.
+     *
+     * @param isDirty True if the status has unsaved changes
+     */
+    void setDirty(boolean isDirty) {
+        this.isDirty = isDirty;
+    }
+
+    /**
+     * Records where this task's record lies in a snapshot file.
+     *
+     * @param generation Generation of the snapshot the offset refers to
+     * @param offset Byte offset of the record in the snapshot
+     */
+    void setRecordLocation(int generation, long offset) {
+        recordGeneration = generation;
+        recordOffset = offset;
+    }
+
+    /**
+     * Returns the generation of the snapshot that the task's record offset refers to.
+     *
+     * @return The snapshot generation
+     */
+    int getRecordGeneration() {
+        return recordGeneration;
+    }
+
+    /**
+     * Returns the offset of this task's record in the snapshot of the given generation.
+     *
+     * @param generation Generation of the current snapshot
+     * @return Byte offset of the record, or -1 if the task has no record in that snapshot
+     */
+    long getRecordOffset(int generation) {
+        return recordGeneration == generation ? recordOffset : -1;
+    }
+
+    /**
+     * Returns whether the task has been marked as done.
+     *
+     * @return True if the task is done, otherwise false.
+     */
+    public boolean isDone() {
+        return isDone;
+    }
+
     /**
      * Returns a string representation of the task's completion status.
      *
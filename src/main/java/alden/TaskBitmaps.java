@@ -0,0 +1,168 @@
+package alden;
+
+import java.util.Arrays;
+
+/**
+ * Bitmaps over the positions of the task list, one bit per task, recording which tasks are done and
+ * which are todos, deadlines and events. Each bitmap keeps its number of set bits, so counting a group
+ * is O(1), and listing it walks 64 tasks per word instead of reading every task.
+ *
+ * <p>The bitmaps follow positions rather than sequence numbers so that they stay dense. Inserting or
+ * removing a task shifts the bits after it, which costs one pass over n / 64 words.</p>
+ */
+public class TaskBitmaps {
+    private final Bitmap done = new Bitmap();
+    private final Bitmap todos = new Bitmap();
+    private final Bitmap deadlines = new Bitmap();
+    private final Bitmap events = new Bitmap();
+    private int size;
+
+    /**
+     * Records a task inserted at the given position.
+     *
+     * @param position Position of the new task
+     * @param task The task
+     */
+    public void insert(int position, Task task) {
+        assert position >= 0 && position <= size : "Position must be within bounds";
+        done.insert(position, size, task.isDone());
+        todos.insert(position, size, task instanceof Todo);
+        deadlines.insert(position, size, task instanceof Deadline);
+        events.insert(position, size, task instanceof Event);
+        size++;
+    }
+
+    /**
+     * Records the removal of the task at the given position.
+     *
+     * @param position Position of the removed task
+     */
+    public void remove(int position) {
+        assert position >= 0 && position < size : "Position must be within bounds";
+        done.remove(position, size);
+        todos.remove(position, size);
+        deadlines.remove(position, size);
+        events.remove(position, size);
+        size--;
+    }
+
+    /**
+     * Records the completion status of the task at the given position.
+     *
+     * @param position Position of the task
+     * @param isDone True if the task is done
+     */
+    public void setDone(int position, boolean isDone) {
+        assert position >= 0 && position < size : "Position must be within bounds";
+        done.set(position, isDone);
+    }
+
+    /**
+     * Removes every task.
+     */
+    public void clear() {
+        done.clear();
+        todos.clear();
+        deadlines.clear();
+        events.clear();
+        size = 0;
+    }
+
+    /**
+     * Returns the number of tasks in a group.
+     *
+     * @param filter The group
+     * @return The number of tasks
+     */
+    public int count(TaskFilter filter) {
+        return filter == TaskFilter.OPEN ? size - done.cardinality : bitmapOf(filter).cardinality;
+    }
+
+    /**
+     * Returns the positions of the tasks in a group, in list order.
+     *
+     * @param filter The group
+     * @return Zero-based positions of the tasks
+     */
+    public int[] positions(TaskFilter filter) {
+        boolean isComplement = filter == TaskFilter.OPEN;
+        long[] words = bitmapOf(filter).words;
+        int[] positions = new int[count(filter)];
+        int found = 0;
+        for (int w = 0; w * 64 < size; w++) {
+            long word = isComplement ? ~words[w] : words[w];
+            if (size - w * 64 < 64) {
+                word &= (1L << (size - w * 64)) - 1; // Ignore the unused bits past the last task
+            }
+            while (word != 0) {
+                positions[found++] = w * 64 + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return positions;
+    }
+
+    private Bitmap bitmapOf(TaskFilter filter) {
+        return switch (filter) {
+        case DONE, OPEN -> done;
+        case TODOS -> todos;
+        case DEADLINES -> deadlines;
+        case EVENTS -> events;
+        };
+    }
+
+    /**
+     * Growable array of bits that can have bits inserted and removed in the middle.
+     */
+    private static class Bitmap {
+        private long[] words = new long[4];
+        private int cardinality;
+
+        void insert(int position, int size, boolean bit) {
+            if (size + 1 > words.length * 64) {
+                words = Arrays.copyOf(words, words.length * 2);
+            }
+            int first = position >>> 6;
+            for (int w = size >>> 6; w > first; w--) {
+                words[w] = words[w] << 1 | words[w - 1] >>> 63;
+            }
+            long below = (1L << (position & 63)) - 1;
+            long word = words[first];
+            words[first] = word & below | (word & ~below) << 1;
+            if (bit) {
+                words[first] |= 1L << (position & 63);
+                cardinality++;
+            }
+        }
+
+        void remove(int position, int size) {
+            int first = position >>> 6;
+            long mask = 1L << (position & 63);
+            if ((words[first] & mask) != 0) {
+                cardinality--;
+            }
+            long below = mask - 1;
+            long word = words[first];
+            words[first] = word & below | word >>> 1 & ~below;
+            int last = (size - 1) >>> 6;
+            for (int w = first; w < last; w++) {
+                words[w] |= words[w + 1] << 63;
+                words[w + 1] >>>= 1;
+            }
+        }
+
+        void set(int position, boolean bit) {
+            long mask = 1L << (position & 63);
+            long word = words[position >>> 6];
+            if (((word & mask) != 0) != bit) {
+                words[position >>> 6] = word ^ mask;
+                cardinality += bit ? 1 : -1;
+            }
+        }
+
+        void clear() {
+            Arrays.fill(words, 0);
+            cardinality = 0;
+        }
+    }
+}
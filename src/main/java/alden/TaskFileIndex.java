@@ -0,0 +1,87 @@
+package alden;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Persisted table of record offsets into a snapshot file, kept beside the snapshot so that
+ * a lazily opened task list does not have to rescan the snapshot on every start.
+ * The index remembers the length and the random ID of the snapshot it was built from, which a rewrite changes
+ * but an in-place status write does not, and is ignored once they differ. For a snapshot written before
+ * snapshots had IDs, the modification time stands in for the ID.
+ */
+public class TaskFileIndex {
+    private static final int MAGIC = 0x41494458; // "AIDX"
+    private static final int VERSION = 2;
+
+    private final File indexFile;
+
+    /**
+     * Creates an index backed by the given file.
+     *
+     * @param indexFile File the offsets are persisted in
+     */
+    public TaskFileIndex(File indexFile) {
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * Reads the persisted offsets if they were built from the given snapshot as it is now.
+     *
+     * @param snapshot Snapshot file the offsets point into
+     * @param snapshotId ID from the header of the snapshot, or 0 if it has none
+     * @param isBinary True if the snapshot is in the binary format
+     * @return The record offsets, or null if there is no usable index
+     */
+    public long[] read(File snapshot, long snapshotId, boolean isBinary) {
+        if (!indexFile.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != snapshot.length()
+                    || in.readLong() != versionOf(snapshot, snapshotId) || in.readBoolean() != isBinary) {
+                return null;
+            }
+            long[] offsets = new long[in.readInt()];
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = in.readLong();
+            }
+            return offsets;
+        } catch (IOException e) {
+            return null; // A damaged index is simply rebuilt
+        }
+    }
+
+    /**
+     * Persists the offsets for the given snapshot.
+     *
+     * @param snapshot Snapshot file the offsets point into
+     * @param snapshotId ID from the header of the snapshot, or 0 if it has none
+     * @param isBinary True if the snapshot is in the binary format
+     * @param offsets The record offsets
+     * @throws IOException if the index cannot be written
+     */
+    public void write(File snapshot, long snapshotId, boolean isBinary, long[] offsets) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(snapshot.length());
+            out.writeLong(versionOf(snapshot, snapshotId));
+            out.writeBoolean(isBinary);
+            out.writeInt(offsets.length);
+            for (long offset : offsets) {
+                out.writeLong(offset);
+            }
+        }
+    }
+
+    private static long versionOf(File snapshot, long snapshotId) {
+        return snapshotId != 0 ? snapshotId : snapshot.lastModified();
+    }
+}
@@ -0,0 +1,65 @@
+package alden;
+
+/**
+ * Groups of tasks that can be listed and counted without looking at every task.
+ */
+public enum TaskFilter {
+    /** Tasks marked as done. */
+    DONE("done", "done tasks"),
+    /** Tasks not yet marked as done. */
+    OPEN("open", "open tasks"),
+    /** Tasks without a date. */
+    TODOS("todos", "todos"),
+    /** Tasks due by a certain time. */
+    DEADLINES("deadlines", "deadlines"),
+    /** Tasks taking place over a span of time. */
+    EVENTS("events", "events");
+
+    private final String keyword;
+    private final String label;
+
+    TaskFilter(String keyword, String label) {
+        this.keyword = keyword;
+        this.label = label;
+    }
+
+    /**
+     * Returns the filter named by a keyword of the list command.
+     *
+     * @param keyword The keyword, in any case.
+     * @return The filter, or null if no filter has that keyword.
+     */
+    public static TaskFilter fromKeyword(String keyword) {
+        for (TaskFilter filter : values()) {
+            if (filter.keyword.equalsIgnoreCase(keyword)) {
+                return filter;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether a task belongs to the group.
+     *
+     * @param task The task.
+     * @return True if the task is in the group.
+     */
+    public boolean matches(Task task) {
+        return switch (this) {
+        case DONE -> task.isDone();
+        case OPEN -> !task.isDone();
+        case TODOS -> task instanceof Todo;
+        case DEADLINES -> task instanceof Deadline;
+        case EVENTS -> task instanceof Event;
+        };
+    }
+
+    /**
+     * Returns how the tasks in the group are referred to when shown to the user.
+     *
+     * @return The label.
+     */
+    public String getLabel() {
+        return label;
+    }
+}
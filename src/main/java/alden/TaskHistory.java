@@ -0,0 +1,314 @@
+package alden;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Undo and redo history of a task list.
+ *
+ * <p>For tasks held in a {@link PersistentTaskTree}, each entry keeps the version of the tree from before
+ * a command, which shares all but the changed paths with the versions after it, so an entry costs O(log n)
+ * memory per task the command added, removed or replaced. A task whose status changes is replaced by a
+ * changed copy, so the tasks of the version kept by an entry still have the statuses they had before the
+ * command.</p>
+ *
+ * <p>Stores that do not keep versions, such as the columnar and paged stores of large lists, get a log of
+ * the operations of each command instead, every one holding the task it put in and the task it took out.
+ * Undoing a command applies the opposite operations in reverse order and redoing it applies the operations
+ * again, so an entry costs O(1) memory per operation whatever the size of the list.</p>
+ *
+ * <p>Entries are recorded from an undo point set before each command, and only once the command
+ * changes something. The oldest entries are dropped when the history grows beyond its depth or its
+ * memory budget, which is measured in estimated bytes of tree nodes and operations the entries keep
+ * alive.</p>
+ */
+public class TaskHistory {
+    private static final int OPERATION_BYTES = 96; // Estimated size of an operation and the task it keeps alive
+
+    private final ArrayDeque<Entry> undoEntries = new ArrayDeque<>(); // Newest first
+    private final ArrayDeque<Entry> redoEntries = new ArrayDeque<>(); // Next to redo first
+    private int maxDepth;
+    private long memoryBudget;
+    private long usedBytes;
+    private boolean isAtUndoPoint; // An undo point was set and nothing has changed since
+    private PersistentTaskTree undoPoint; // Version at the last undo point, if the tasks are held in a tree
+    private Entry recording; // Entry collecting the changes of the current command
+
+    /**
+     * Creates an empty history.
+     *
+     * @param maxDepth Largest number of commands that can be undone
+     * @param memoryBudget Largest estimated number of bytes the history may keep alive
+     */
+    public TaskHistory(int maxDepth, long memoryBudget) {
+        setLimits(maxDepth, memoryBudget);
+    }
+
+    /**
+     * Changes the depth and memory budget of the history, dropping the oldest entries if needed.
+     *
+     * @param maxDepth Largest number of commands that can be undone
+     * @param memoryBudget Largest estimated number of bytes the history may keep alive
+     */
+    public void setLimits(int maxDepth, long memoryBudget) {
+        assert maxDepth >= 0 && memoryBudget >= 0 : "History limits cannot be negative";
+        this.maxDepth = maxDepth;
+        this.memoryBudget = memoryBudget;
+        trim();
+    }
+
+    /**
+     * Marks the start of a command. Changes made from now on are undone together.
+     *
+     * @param current The current version of the tasks, or null if they are not held in a tree
+     */
+    public void markUndoPoint(PersistentTaskTree current) {
+        isAtUndoPoint = true;
+        undoPoint = current;
+        recording = null;
+    }
+
+    /**
+     * Records that tasks held in a tree were added, removed or replaced.
+     *
+     * @param before The version before the change
+     * @param after The version after the change
+     */
+    public void recordStructuralChange(PersistentTaskTree before, PersistentTaskTree after) {
+        Entry entry = startRecording();
+        if (entry instanceof VersionEntry) {
+            // Clearing the list leaves the whole old tree to the history; otherwise one path was copied
+            long cost = after.size() == 0 ? before.estimatedBytes() : after.pathBytes();
+            long limit = Math.max(before.estimatedBytes(), after.estimatedBytes()) - entry.bytes;
+            addCost(entry, Math.max(0, Math.min(cost, limit)));
+        }
+    }
+
+    /**
+     * Records that a task was inserted, removed or replaced in a store that does not keep versions.
+     *
+     * @param index Zero-based position of the task
+     * @param before The task that was at that position, or null if a task was inserted
+     * @param after The task that is now at that position, or null if the task was removed
+     */
+    public void recordOperation(int index, Task before, Task after) {
+        assert before != null || after != null : "An operation must insert, remove or replace a task";
+        if (startRecording() instanceof OperationEntry entry) {
+            entry.operations.add(new Operation(index, before, after, null));
+            addCost(entry, OPERATION_BYTES);
+        }
+    }
+
+    /**
+     * Records that every task was removed from a store that does not keep versions.
+     *
+     * @param cleared The tasks as they were before they were removed
+     */
+    public void recordClear(List<Task> cleared) {
+        if (startRecording() instanceof OperationEntry entry) {
+            entry.operations.add(new Operation(-1, null, null, cleared));
+            addCost(entry, (long) OPERATION_BYTES * cleared.size());
+        }
+    }
+
+    /**
+     * Undoes the most recent recorded command by bringing the store back to how it was before it.
+     *
+     * @param store The store holding the tasks
+     * @return True if a command was undone, false if there is nothing to undo
+     */
+    public boolean undo(TaskStore store) {
+        return step(undoEntries, redoEntries, store, true);
+    }
+
+    /**
+     * Redoes the most recently undone command by bringing the store back to how it was after it.
+     *
+     * @param store The store holding the tasks
+     * @return True if a command was redone, false if there is nothing to redo
+     */
+    public boolean redo(TaskStore store) {
+        return step(redoEntries, undoEntries, store, false);
+    }
+
+    /**
+     * Forgets every entry, as when the tasks are replaced by ones the history knows nothing about.
+     */
+    public void clear() {
+        undoEntries.clear();
+        redoEntries.clear();
+        usedBytes = 0;
+        isAtUndoPoint = false;
+        undoPoint = null;
+        recording = null;
+    }
+
+    /**
+     * Returns the number of commands that can be undone.
+     *
+     * @return The number of undo entries
+     */
+    public int getUndoDepth() {
+        return undoEntries.size();
+    }
+
+    /**
+     * Returns the estimated number of bytes the history keeps alive.
+     *
+     * @return The estimated size of the history
+     */
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+
+    private boolean step(ArrayDeque<Entry> from, ArrayDeque<Entry> to, TaskStore store, boolean isUndo) {
+        isAtUndoPoint = false;
+        undoPoint = null;
+        recording = null;
+        Entry entry = from.pollFirst();
+        if (entry == null) {
+            return false;
+        }
+        entry.apply(store, isUndo);
+        to.addFirst(entry);
+        return true;
+    }
+
+    /**
+     * Returns the entry for the current command, starting it on the first change after an undo point.
+     * A new change makes the undone commands impossible to redo.
+     *
+     * @return The entry, or null if changes are not being recorded
+     */
+    private Entry startRecording() {
+        if (recording == null && isAtUndoPoint) {
+            for (Entry entry : redoEntries) {
+                usedBytes -= entry.bytes;
+            }
+            redoEntries.clear();
+            recording = undoPoint != null ? new VersionEntry(undoPoint) : new OperationEntry();
+            undoEntries.addFirst(recording);
+            isAtUndoPoint = false;
+            undoPoint = null;
+        }
+        return recording;
+    }
+
+    private void addCost(Entry entry, long bytes) {
+        entry.bytes += bytes;
+        usedBytes += bytes;
+        trim();
+    }
+
+    /**
+     * Drops the oldest entries until the history fits its depth and memory budget. The entry of the
+     * current command goes too if it alone is over budget, which leaves that command impossible to undo.
+     */
+    private void trim() {
+        while (!undoEntries.isEmpty() && (undoEntries.size() > maxDepth || usedBytes > memoryBudget)) {
+            Entry dropped = undoEntries.pollLast();
+            usedBytes -= dropped.bytes;
+            if (dropped == recording) {
+                recording = null;
+            }
+        }
+    }
+
+    /**
+     * One undoable command.
+     */
+    private abstract static class Entry {
+        private long bytes;
+
+        /**
+         * Brings the store to the other side of the command.
+         *
+         * @param store The store holding the tasks
+         * @param isUndo True to go back to before the command, false to go forward to after it
+         */
+        abstract void apply(TaskStore store, boolean isUndo);
+    }
+
+    /**
+     * Command on tasks held in a tree: the version on the other side of it.
+     */
+    private static class VersionEntry extends Entry {
+        private PersistentTaskTree tree;
+
+        VersionEntry(PersistentTaskTree tree) {
+            this.tree = tree;
+        }
+
+        @Override
+        void apply(TaskStore store, boolean isUndo) {
+            TreeTaskStore treeStore = (TreeTaskStore) store;
+            PersistentTaskTree current = treeStore.getTree();
+            treeStore.setTree(tree);
+            tree = current;
+        }
+    }
+
+    /**
+     * Command on a store that does not keep versions: the operations it made, in order.
+     */
+    private static class OperationEntry extends Entry {
+        private final ArrayList<Operation> operations = new ArrayList<>();
+
+        @Override
+        void apply(TaskStore store, boolean isUndo) {
+            if (isUndo) {
+                for (int i = operations.size() - 1; i >= 0; i--) {
+                    operations.get(i).undo(store);
+                }
+            } else {
+                for (Operation operation : operations) {
+                    operation.redo(store);
+                }
+            }
+        }
+    }
+
+    /**
+     * Insertion, removal or replacement of the task at one position, or removal of every task.
+     */
+    private static class Operation {
+        private final int index;
+        private final Task before;
+        private final Task after;
+        private final List<Task> cleared; // Tasks before every task was removed, or null
+
+        Operation(int index, Task before, Task after, List<Task> cleared) {
+            this.index = index;
+            this.before = before;
+            this.after = after;
+            this.cleared = cleared;
+        }
+
+        void undo(TaskStore store) {
+            if (cleared != null) {
+                for (Task task : cleared) {
+                    store.add(task);
+                }
+            } else if (before == null) {
+                store.remove(index);
+            } else if (after == null) {
+                store.add(index, before);
+            } else {
+                store.set(index, before);
+            }
+        }
+
+        void redo(TaskStore store) {
+            if (cleared != null) {
+                store.clear();
+            } else if (before == null) {
+                store.add(index, after);
+            } else if (after == null) {
+                store.remove(index);
+            } else {
+                store.set(index, after);
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package alden;
+
+import java.util.Arrays;
+
+/**
+ * Hash index from stable task IDs to the sequence numbers of the tasks, in an open-addressing table of
+ * primitive longs, so that a task can be found by ID with one probe sequence and no boxing.
+ * The index holds sequence numbers rather than the tasks themselves because a lazily loaded list may
+ * decode a task afresh each time it is read; the list turns the sequence number into a position.
+ */
+public class TaskIdIndex implements TaskIndex {
+    /** Returned by {@link #sequenceOf(long)} for an ID that is not in the index. */
+    public static final long NO_SEQUENCE = Long.MIN_VALUE;
+
+    private static final long EMPTY = 0; // Tasks in the index always have positive IDs
+    private static final long REMOVED = -1;
+
+    private long[] ids = new long[16];
+    private long[] sequences = new long[16];
+    private int count; // Live entries
+    private int used; // Live and removed entries, which both lengthen probe sequences
+
+    @Override
+    public void add(long sequence, Task task) {
+        long id = task.getId();
+        if (id <= 0) {
+            return;
+        }
+        if ((used + 1) * 4 > ids.length * 3) {
+            resize(count * 2 >= ids.length / 2 ? ids.length * 2 : ids.length);
+        }
+        int slot = findSlot(id);
+        if (ids[slot] != id) {
+            if (ids[slot] == EMPTY) {
+                used++;
+            }
+            ids[slot] = id;
+            count++;
+        }
+        sequences[slot] = sequence;
+    }
+
+    @Override
+    public void remove(long sequence, Task task) {
+        long id = task.getId();
+        if (id <= 0) {
+            return;
+        }
+        int slot = findSlot(id);
+        if (ids[slot] == id && sequences[slot] == sequence) {
+            ids[slot] = REMOVED;
+            count--;
+        }
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(ids, EMPTY);
+        count = 0;
+        used = 0;
+    }
+
+    /**
+     * Returns the sequence number of the task with the given ID.
+     *
+     * @param id ID of the task
+     * @return The sequence number, or {@link #NO_SEQUENCE} if no task in the list has the ID
+     */
+    public long sequenceOf(long id) {
+        if (id <= 0) {
+            return NO_SEQUENCE;
+        }
+        int slot = findSlot(id);
+        return ids[slot] == id ? sequences[slot] : NO_SEQUENCE;
+    }
+
+    /**
+     * Returns the slot holding the ID, or else the slot a new entry for it should take:
+     * the first removed slot passed on the way, or the empty slot that ended the search.
+     *
+     * @param id A positive ID
+     * @return Index into the table
+     */
+    private int findSlot(long id) {
+        int mask = ids.length - 1;
+        int slot = hash(id) & mask;
+        int firstRemoved = -1;
+        while (ids[slot] != EMPTY) {
+            if (ids[slot] == id) {
+                return slot;
+            }
+            if (ids[slot] == REMOVED && firstRemoved < 0) {
+                firstRemoved = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return firstRemoved >= 0 ? firstRemoved : slot;
+    }
+
+    private void resize(int capacity) {
+        long[] oldIds = ids;
+        long[] oldSequences = sequences;
+        ids = new long[capacity];
+        sequences = new long[capacity];
+        used = count;
+        for (int i = 0; i < oldIds.length; i++) {
+            if (oldIds[i] > 0) {
+                int slot = findSlot(oldIds[i]);
+                ids[slot] = oldIds[i];
+                sequences[slot] = oldSequences[i];
+            }
+        }
+    }
+
+    private static int hash(long id) {
+        long mixed = id * 0x9E3779B97F4A7C15L; // Fibonacci hashing spreads consecutive IDs across the table
+        return (int) (mixed >>> 32);
+    }
+}
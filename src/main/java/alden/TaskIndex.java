@@ -0,0 +1,31 @@
+package alden;
+
+/**
+ * Secondary index over the tasks of a {@link TaskList}, kept up to date incrementally as the list changes.
+ * Tasks are identified by sequence numbers, which the list hands out in increasing order along the list,
+ * so sorting sequence numbers puts tasks in list order. A task keeps its number until it is removed,
+ * except when the list runs out of room between two numbers and rebuilds its indexes from scratch.
+ */
+public interface TaskIndex {
+
+    /**
+     * Records a task that was added to the list.
+     *
+     * @param sequence Sequence number of the task
+     * @param task The added task
+     */
+    void add(long sequence, Task task);
+
+    /**
+     * Forgets a task that was removed from the list.
+     *
+     * @param sequence Sequence number of the task
+     * @param task The removed task
+     */
+    void remove(long sequence, Task task);
+
+    /**
+     * Forgets every task.
+     */
+    void clear();
+}
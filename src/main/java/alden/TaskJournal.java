@@ -0,0 +1,177 @@
+package alden;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only log of task mutations kept beside the snapshot file.
+ * Each line records a single add, mark, unmark, occurrence change or delete so that a mutation
+ * costs the same regardless of how many tasks are in the list.
+ * The first line of the journal names the snapshot it applies to, which lets
+ * a journal that was already folded into a newer snapshot be recognised and discarded.
+ */
+public class TaskJournal {
+    public static final String ADD = "+";
+    public static final String MARK = "M";
+    public static final String UNMARK = "U";
+    public static final String DELETE = "X";
+    public static final String OCCURRENCE = "O";
+
+    private static final String HEADER_PREFIX = "# snapshot ";
+    private static final String SEPARATOR = " | ";
+
+    private final File file;
+
+    /**
+     * Creates a journal backed by the given file path.
+     *
+     * @param filePath Path to the journal file
+     */
+    public TaskJournal(String filePath) {
+        this.file = new File(filePath);
+    }
+
+    /**
+     * Returns whether the journal file currently exists on disk.
+     *
+     * @return True if the journal file exists
+     */
+    public boolean exists() {
+        return file.exists();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Appends records to the journal in a single write, writing the header first if the journal is new.
+     *
+     * @param records The records to append, without trailing line separators
+     * @param snapshotChecksum Checksum of the snapshot this journal applies to
+     * @param isSyncing True to force the records to disk before returning
+     * @throws IOException if writing fails
+     */
+    public void append(List<String> records, long snapshotChecksum, boolean isSyncing) throws IOException {
+        StringBuilder batch = new StringBuilder();
+        if (!file.exists()) {
+            batch.append(HEADER_PREFIX).append(Long.toHexString(snapshotChecksum)).append(System.lineSeparator());
+        }
+        for (String record : records) {
+            batch.append(record).append(System.lineSeparator());
+        }
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(batch.toString().getBytes(Charset.defaultCharset()));
+            if (isSyncing) {
+                out.getFD().sync();
+            }
+        }
+    }
+
+    /**
+     * Reads all records in the journal if it applies to the snapshot with the given checksum.
+     * A journal written against a different snapshot is stale and yields no records.
+     *
+     * @param snapshotChecksum Checksum of the snapshot that was just loaded
+     * @return The journal records in the order they were appended
+     * @throws IOException if reading fails
+     */
+    public ArrayList<String> readRecords(long snapshotChecksum) throws IOException {
+        ArrayList<String> records = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String header = reader.readLine();
+            if (header == null || !header.equals(HEADER_PREFIX + Long.toHexString(snapshotChecksum))) {
+                return records;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    records.add(line);
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Deletes the journal once its records have been folded into a new snapshot.
+     *
+     * @throws IOException if the journal file cannot be deleted
+     */
+    public void clear() throws IOException {
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Failed to delete journal: " + file.getPath());
+        }
+    }
+
+    /**
+     * Builds a journal record for a newly added task.
+     *
+     * @param task The task that was added
+     * @return The journal record
+     */
+    public static String addRecord(Task task) {
+        return ADD + SEPARATOR + task.toFileFormat();
+    }
+
+    /**
+     * Builds a journal record for a change in completion status.
+     *
+     * @param index Zero-based index of the task at the time of the change
+     * @param isDone The new completion status
+     * @return The journal record
+     */
+    public static String statusRecord(int index, boolean isDone) {
+        return (isDone ? MARK : UNMARK) + SEPARATOR + index;
+    }
+
+    /**
+     * Builds a journal record for a change in the status of one occurrence of a repeating task.
+     *
+     * @param index Zero-based index of the task at the time of the change
+     * @param occurrence Number of the occurrence
+     * @param isDone The new status of the occurrence
+     * @return The journal record
+     */
+    public static String occurrenceRecord(int index, int occurrence, boolean isDone) {
+        return OCCURRENCE + SEPARATOR + index + SEPARATOR + occurrence + SEPARATOR + (isDone ? "1" : "0");
+    }
+
+    /**
+     * Builds a journal record for a deleted task.
+     *
+     * @param index Zero-based index of the task at the time of deletion
+     * @return The journal record
+     */
+    public static String deleteRecord(int index) {
+        return DELETE + SEPARATOR + index;
+    }
+
+    /**
+     * Returns the operation code of a journal record.
+     *
+     * @param record A journal record
+     * @return The operation code
+     */
+    public static String operationOf(String record) {
+        int end = record.indexOf(SEPARATOR);
+        return end < 0 ? record : record.substring(0, end);
+    }
+
+    /**
+     * Returns the payload of a journal record, i.e. everything after the operation code.
+     *
+     * @param record A journal record
+     * @return The payload, or an empty string if the record has none
+     */
+    public static String payloadOf(String record) {
+        int end = record.indexOf(SEPARATOR);
+        return end < 0 ? "" : record.substring(end + SEPARATOR.length());
+    }
+}
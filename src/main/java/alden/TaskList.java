@@ -1,24 +1,272 @@
 package alden;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 
 /**
  * Represents a list of tasks. This class provides methods to add, remove, and retrieve tasks.
  * It also provides methods to get the size of the list and check if it is empty.
+ * The tasks themselves are held by a {@link TaskStore}, which keeps them in memory in a tree
+ * unless a large data file is opened lazily; either way, positional access takes O(log n).
+ * Secondary {@link TaskIndex} structures are built the first time they are needed and from then on
+ * kept up to date as tasks are added and removed.
+ *
+ * <p>The list is safe to share between threads. Changes and index lookups are serialized on the list's
+ * monitor, while {@link #getTasks()} hands out an immutable version of the list without taking it: the
+ * version is published once after each change and then read by any number of threads. With the in-memory
+ * store a version is a {@link PersistentTaskTree}, so publishing it costs O(1). A task whose status changes
+ * is replaced by a changed copy rather than changed in place, so the tasks of a version keep their statuses
+ * too. Only the bookkeeping of what has been saved, which readers never see, is updated in place.</p>
  */
 public class TaskList {
-    private final ArrayList<Task> tasks = new ArrayList<>(); // List of tasks
+    private static final int SCAN_FRACTION = 4; // Scan instead when more than 1/4 of the tasks are candidates
+    private static final long SEQUENCE_GAP = 1L << 20; // Room left between the sequence numbers of appended tasks
+    private static final int DEFAULT_HISTORY_DEPTH = 100; // Commands that can be undone
+    private static final long DEFAULT_HISTORY_BUDGET = 16L << 20; // Estimated bytes the undo history may keep
+
+    private TaskStore tasks; // Store holding the tasks
+    private final ArrayList<TaskIndex> indexes = new ArrayList<>(); // Indexes built so far
+    private IndexedLongList sequences; // Sequence number of the task at each position, once an index exists
+    private long nextSequence;
+    private long nextId = 1; // ID for the next task that joins the list without one
+    private TokenIndex tokenIndex;
+    private TrigramIndex trigramIndex;
+    private FuzzyTermIndex fuzzyTermIndex;
+    private TimeIndex timeIndex;
+    private IntervalTree intervalTree;
+    private ChronologicalIndex chronologicalIndex;
+    private UpcomingHeap upcomingHeap;
+    private ReminderWheel reminderWheel;
+    private long reminderClock = Long.MIN_VALUE; // Last second reminders were polled for, once they are
+    private TaskIdIndex idIndex;
+    private TaskBitmaps bitmaps; // Status and type of the task at each position, once first needed
+    private volatile List<Task> version; // Read-only copy of the tasks as they are now, or null after a change
+    private final TaskHistory history = new TaskHistory(DEFAULT_HISTORY_DEPTH, DEFAULT_HISTORY_BUDGET);
+
+    /**
+     * Creates an empty task list held in memory.
+     */
+    public TaskList() {
+        this(new TreeTaskStore());
+    }
+
+    /**
+     * Creates a task list backed by the given store.
+     *
+     * @param store Store holding the tasks
+     */
+    public TaskList(TaskStore store) {
+        assert store != null : "Task store cannot be null";
+        this.tasks = store;
+    }
+
+    /**
+     * Replaces the store behind this list. Only allowed while the list is empty.
+     *
+     * @param store Store holding the tasks
+     */
+    synchronized void useStore(TaskStore store) {
+        assert tasks.size() == 0 : "Store can only be replaced while the list is empty";
+        this.tasks = store;
+        history.clear();
+        discardDerivedState();
+    }
+
+    /**
+     * Drops the published version and every index, to be rebuilt from the tasks when next needed.
+     */
+    private void discardDerivedState() {
+        version = null;
+        indexes.clear();
+        sequences = null;
+        tokenIndex = null;
+        trigramIndex = null;
+        fuzzyTermIndex = null;
+        timeIndex = null;
+        intervalTree = null;
+        chronologicalIndex = null;
+        upcomingHeap = null;
+        reminderWheel = null; // Rebuilt from the last poll, so that reminders due meanwhile still fire
+        idIndex = null;
+        bitmaps = null;
+    }
+
+    /**
+     * Sets how many commands can be undone and how much memory the undo history may keep alive.
+     * Tasks held in memory by a {@link TreeTaskStore} share structure between the versions kept by the
+     * history; other stores have their operations logged instead.
+     *
+     * @param maxDepth The largest number of commands that can be undone.
+     * @param memoryBudget The largest estimated number of bytes the history may keep alive.
+     */
+    public synchronized void setHistoryLimits(int maxDepth, long memoryBudget) {
+        history.setLimits(maxDepth, memoryBudget);
+    }
+
+    /**
+     * Marks the start of a command, so that the changes it makes can be undone together.
+     */
+    public synchronized void markUndoPoint() {
+        history.markUndoPoint(currentTree());
+    }
+
+    /**
+     * Undoes the changes made by the most recent command that changed the list.
+     *
+     * @return True if a command was undone, false if there is nothing to undo.
+     */
+    public synchronized boolean undo() {
+        return restore(history.undo(tasks));
+    }
+
+    /**
+     * Makes the changes of the most recently undone command again.
+     *
+     * @return True if a command was redone, false if there is nothing to redo.
+     */
+    public synchronized boolean redo() {
+        return restore(history.redo(tasks));
+    }
+
+    private boolean restore(boolean isRestored) {
+        if (isRestored) {
+            discardDerivedState(); // Positions and statuses may all have changed
+        }
+        return isRestored;
+    }
+
+    /**
+     * Records a change to the tasks in the undo history.
+     *
+     * @param before The tasks before the change, if held in a tree.
+     * @param index Zero-based position of the changed task.
+     * @param removed The task taken out of that position, or null if a task was inserted.
+     * @param inserted The task put in that position, or null if the task was removed.
+     */
+    private void recordStructuralChange(PersistentTaskTree before, int index, Task removed, Task inserted) {
+        if (before != null) {
+            history.recordStructuralChange(before, ((TreeTaskStore) tasks).getTree());
+        } else {
+            history.recordOperation(index, removed, inserted);
+        }
+    }
+
+    private PersistentTaskTree currentTree() {
+        return tasks instanceof TreeTaskStore store ? store.getTree() : null;
+    }
 
     /**
-     * Adds a task to the list.
+     * Adds a task to the list. A task without an ID is given the next one.
      *
      * @param task The task to be added to the list.
      */
-    public void addTask(Task task) {
+    public synchronized void addTask(Task task) {
         assert task != null : "Cannot add null task";
-        int sizeBefore = tasks.size();
+        assignId(task);
+        PersistentTaskTree before = currentTree();
         tasks.add(task);
+        version = null;
+        recordStructuralChange(before, tasks.size() - 1, null, task);
         assert tasks.get(tasks.size() - 1).equals(task) : "Added task must be in list";
+        if (bitmaps != null) {
+            bitmaps.insert(tasks.size() - 1, task);
+        }
+        if (sequences != null) {
+            long sequence = nextSequence;
+            nextSequence += SEQUENCE_GAP;
+            sequences.add(sequence);
+            for (TaskIndex index : indexes) {
+                index.add(sequence, task);
+            }
+        }
+    }
+
+    /**
+     * Inserts a task at the specified index, moving the tasks from that index onwards down by one.
+     *
+     * @param index The index the task will have, at most the size of the list.
+     * @param task The task to be inserted.
+     */
+    public synchronized void insertTask(int index, Task task) {
+        assert task != null : "Cannot insert null task";
+        assert index >= 0 && index <= tasks.size() : "Index must be within bounds";
+        if (index == tasks.size()) {
+            addTask(task);
+            return;
+        }
+        assignId(task);
+        PersistentTaskTree before = currentTree();
+        tasks.add(index, task);
+        version = null;
+        recordStructuralChange(before, index, null, task);
+        if (bitmaps != null) {
+            bitmaps.insert(index, task);
+        }
+        if (sequences != null) {
+            // Take a sequence number between the neighbours' so that sequence order stays list order
+            long next = sequences.get(index);
+            long previous = index > 0 ? sequences.get(index - 1) : next - 2 * SEQUENCE_GAP;
+            if (next - previous < 2) {
+                renumber(index);
+                next = sequences.get(index);
+                previous = index > 0 ? sequences.get(index - 1) : next - 2 * SEQUENCE_GAP;
+            }
+            long sequence = previous + (next - previous) / 2;
+            sequences.add(index, sequence);
+            for (TaskIndex taskIndex : indexes) {
+                taskIndex.add(sequence, task);
+            }
+        }
+    }
+
+    /**
+     * Gives a task without an ID the next one, or makes sure later IDs are handed out above the task's own.
+     *
+     * @param task The task joining the list.
+     */
+    private void assignId(Task task) {
+        if (task.getId() == 0) {
+            task.setId(nextId++);
+        } else {
+            nextId = Math.max(nextId, task.getId() + 1);
+        }
+    }
+
+    /**
+     * Returns the ID the next task added without one will receive.
+     * IDs are never handed out twice, even after the task holding the highest one is deleted.
+     *
+     * @return The next ID.
+     */
+    public synchronized long getNextId() {
+        return nextId;
+    }
+
+    /**
+     * Makes sure IDs below the given one are never handed out, as they were already used before.
+     *
+     * @param firstFreeId The lowest ID that may still be handed out.
+     */
+    synchronized void reserveIds(long firstFreeId) {
+        nextId = Math.max(nextId, firstFreeId);
+    }
+
+    /**
+     * Returns the position of the task with the given ID.
+     * The ID is resolved through a hash index, and its position found by one descent of the sequence list.
+     *
+     * @param id The ID of the task.
+     * @return The index of the task, or -1 if no task in the list has the ID.
+     */
+    public synchronized int indexOfId(long id) {
+        if (idIndex == null) {
+            idIndex = buildIndex(new TaskIdIndex());
+        }
+        long sequence = idIndex.sequenceOf(id);
+        return sequence == TaskIdIndex.NO_SEQUENCE ? -1 : positionOf(sequence);
     }
 
     /**
@@ -27,35 +275,137 @@ public class TaskList {
      * @param index The index of the task to remove.
      * @return The task that was removed.
      */
-    public Task removeTask(int index) {
+    public synchronized Task removeTask(int index) {
         Task taskToRemove = tasks.get(index);
+        PersistentTaskTree before = currentTree();
         Task removed = tasks.remove(index);
+        version = null;
+        recordStructuralChange(before, index, removed, null);
         assert removed.equals(taskToRemove) : "Removed task should match requested task";
         assert tasks.size() >= 0 : "Task list size cannot be negative";
-        // Check that the removed task is no longer in the list
-        for (Task t : tasks) {
-            assert !t.equals(removed) : "Removed task should not be in list";
+        if (bitmaps != null) {
+            bitmaps.remove(index);
+        }
+        if (sequences != null) {
+            long sequence = sequences.remove(index);
+            for (TaskIndex taskIndex : indexes) {
+                taskIndex.remove(sequence, removed);
+            }
         }
         return removed;
     }
 
+    /**
+     * Sets the completion status of the task at the specified index.
+     * The task is replaced by a copy with the new status, so that versions of the list already handed out
+     * keep the old one. The copy records that its status changed, so that unchanged tasks are not saved again.
+     *
+     * @param index The index of the task to update.
+     * @param isDone True to mark the task as done, false to mark it as not done.
+     * @return The updated task, which is now the one in the list.
+     */
+    public synchronized Task markTask(int index, boolean isDone) {
+        Task task = get(index);
+        if (task.isDone() == isDone) {
+            return task;
+        }
+        PersistentTaskTree before = currentTree();
+        Task changed = task.copy();
+        if (isDone) {
+            changed.markAsDone();
+        } else {
+            changed.unmarkAsDone();
+        }
+        tasks.set(index, changed);
+        recordStructuralChange(before, index, task, changed);
+        version = null;
+        if (bitmaps != null) {
+            bitmaps.setDone(index, isDone);
+        }
+        // Only open tasks are in these indexes, so taking the task out and offering the copy settles its place
+        reoffer(upcomingHeap, index, task, changed);
+        reoffer(reminderWheel, index, task, changed);
+        return changed;
+    }
+
+    /**
+     * Marks one occurrence of the repeating task at the specified index as done or not done.
+     * No other occurrence is touched, and the task is done as a whole only once every occurrence is.
+     * As with {@link #markTask(int, boolean)}, the task is replaced by a changed copy.
+     *
+     * @param index The index of the repeating task.
+     * @param occurrence The number of the occurrence.
+     * @param isDone True to mark the occurrence as done, false to mark it as not done.
+     * @return The updated task, which is now the one in the list.
+     */
+    public synchronized RepeatableTask markOccurrence(int index, int occurrence, boolean isDone) {
+        if (!(get(index) instanceof RepeatableTask task) || task.getRecurrence() == null) {
+            throw new IllegalArgumentException("Only a repeating task has occurrences");
+        }
+        if (task.getRecurrence().isDone(occurrence) == isDone) {
+            return task;
+        }
+        PersistentTaskTree before = currentTree();
+        RepeatableTask changed = task.copy();
+        changed.setOccurrenceDone(occurrence, isDone);
+        tasks.set(index, changed);
+        recordStructuralChange(before, index, task, changed);
+        // The occurrence the task stands for may move, so take it out of every index and offer the copy instead
+        long sequence = sequences == null ? 0 : sequences.get(index);
+        for (TaskIndex taskIndex : indexes) {
+            taskIndex.remove(sequence, task);
+            taskIndex.add(sequence, changed);
+        }
+        version = null;
+        if (bitmaps != null) {
+            bitmaps.setDone(index, changed.isDone());
+        }
+        return changed;
+    }
+
+    private void reoffer(TaskIndex index, int position, Task task, Task changed) {
+        if (index != null) {
+            long sequence = sequences.get(position);
+            index.remove(sequence, task);
+            index.add(sequence, changed);
+        }
+    }
+
     /**
      * Retrieves the task at the specified index.
      *
      * @param index The index of the task to retrieve.
      * @return The task at the specified index.
      */
-    public Task get(int index) {
+    public synchronized Task get(int index) {
         assert index >= 0 && index < tasks.size() : "Index must be within bounds";
         return tasks.get(index);
     }
 
+    /**
+     * Returns a copy of the tasks in one window of the list, read under one lock so that they all come
+     * from the same version. Only the tasks in the window are read, so the cost does not grow with the list.
+     *
+     * @param from The zero-based index of the first task in the window.
+     * @param to The zero-based index after the last task in the window, which may lie past the end of the list.
+     * @return The tasks in the window, which is empty if it starts past the end of the list.
+     */
+    public synchronized List<Task> getWindow(int from, int to) {
+        assert from >= 0 && from <= to : "Window must start at a valid index and not end before it starts";
+        int end = Math.min(to, tasks.size());
+        ArrayList<Task> window = new ArrayList<>(Math.max(0, end - from));
+        for (int i = from; i < end; i++) {
+            window.add(tasks.get(i));
+        }
+        return window;
+    }
+
     /**
      * Returns the number of tasks in the list.
      *
      * @return The size of the task list.
      */
-    public int size() {
+    public synchronized int size() {
         return tasks.size();
     }
 
@@ -64,40 +414,465 @@ public class TaskList {
      *
      * @return True if the list contains no tasks, otherwise false.
      */
-    public boolean isEmpty() {
+    public synchronized boolean isEmpty() {
+
+        return tasks.size() == 0;
+    }
+
+    /**
+     * Removes every task from the list.
+     */
+    public synchronized void clear() {
+        PersistentTaskTree before = currentTree();
+        List<Task> cleared = before == null ? tasks.snapshot() : null;
+        tasks.clear();
+        version = null;
+        if (before != null) {
+            history.recordStructuralChange(before, PersistentTaskTree.EMPTY);
+        } else {
+            history.recordClear(cleared);
+        }
+        if (sequences != null) {
+            sequences.clear();
+        }
+        for (TaskIndex index : indexes) {
+            index.clear();
+        }
+        if (bitmaps != null) {
+            bitmaps.clear();
+        }
+    }
+
+    /**
+     * Returns the number of tasks in a group, read from the {@link TaskBitmaps} without visiting the tasks.
+     *
+     * @param filter The group of tasks to count.
+     * @return The number of tasks in the group.
+     */
+    public synchronized int count(TaskFilter filter) {
+        return getBitmaps().count(filter);
+    }
+
+    /**
+     * Returns the positions of the tasks in a group, found through the {@link TaskBitmaps}.
+     *
+     * @param filter The group of tasks to list.
+     * @return The zero-based indexes of the tasks in the group, in list order.
+     */
+    public synchronized int[] indexesOf(TaskFilter filter) {
+        return getBitmaps().positions(filter);
+    }
+
+    /**
+     * Returns the positions of every task in chronological order: deadlines by due time and events by
+     * start time, with todos after them, and tasks at the same time in list order.
+     * The order is read from a {@link ChronologicalIndex} kept up to date as tasks come and go,
+     * so the tasks are neither compared nor moved, and the positions are filled in by one walk over the
+     * sequence numbers in list order, which takes O(n).
+     *
+     * @return The zero-based indexes of the tasks, earliest first.
+     */
+    public synchronized int[] indexesByDate() {
+        if (chronologicalIndex == null) {
+            chronologicalIndex = buildIndex(new ChronologicalIndex());
+        }
+        return chronologicalIndex.positions(sequences.toArray());
+    }
+
+    /**
+     * Returns the positions of the earliest open deadlines and events, by due time and start time.
+     * They are read from an {@link UpcomingHeap} kept up to date as tasks are added, removed and marked,
+     * so the cost grows with the number of tasks asked for rather than with the size of the list.
+     *
+     * @param count The largest number of tasks to return.
+     * @return The zero-based indexes of the tasks, earliest first.
+     */
+    public synchronized int[] indexesOfNext(int count) {
+        assert count > 0 : "Number of tasks must be positive";
+        if (upcomingHeap == null) {
+            upcomingHeap = buildIndex(new UpcomingHeap());
+        }
+        long[] earliest = upcomingHeap.earliest(count);
+        int[] positions = new int[earliest.length];
+        for (int i = 0; i < earliest.length; i++) {
+            positions[i] = positionOf(earliest[i]);
+        }
+        return positions;
+    }
+
+    /**
+     * Moves the reminders on to the given time and returns the tasks whose reminders came due.
+     * The first call sets up a {@link ReminderWheel} over the tasks, holding only reminders after that time;
+     * from then on it is kept up to date as tasks are added, removed and marked, so later calls cost O(1)
+     * besides the reminders they return, however many tasks there are.
+     *
+     * @param now The current time.
+     * @return The deadlines that came due and the events about to start since the last call, with the
+     *     occurrence reminded of standing in for a repeating task.
+     */
+    public synchronized ArrayList<Task> pollReminders(LocalDateTime now) {
+        long time = TimeIndex.toEpochSecond(now);
+        if (reminderWheel == null) {
+            reminderWheel = buildIndex(new ReminderWheel(reminderClock == Long.MIN_VALUE ? time : reminderClock));
+        }
+        ArrayList<Task> due = reminderWheel.advance(time);
+        reminderClock = reminderWheel.getCurrentTime();
+        return due;
+    }
 
-        return tasks.isEmpty();
+    private TaskBitmaps getBitmaps() {
+        if (bitmaps == null) {
+            bitmaps = new TaskBitmaps();
+            for (int i = 0; i < tasks.size(); i++) {
+                bitmaps.insert(i, tasks.get(i));
+            }
+        }
+        return bitmaps;
     }
 
     /**
-     * Returns the list of tasks.
+     * Returns a read-only copy of the tasks as they are now, which later changes to the list leave untouched.
+     * Only the first call after a change takes the list's monitor; later calls return the same copy without
+     * locking, so readers on other threads do not hold up each other or the writer.
      *
      * @return The list of tasks.
      */
-    public ArrayList<Task> getTasks() {
-        return tasks;
+    public List<Task> getTasks() {
+        List<Task> current = version;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (version == null) {
+                version = tasks.snapshot();
+            }
+            return version;
+        }
     }
 
     /**
      * Finds and returns a list of tasks that contain the specified keyword in their description.
-     * The search is case-insensitive.
+     * The search is case-insensitive, and is run as a {@link Query} of that one keyword, so the planner
+     * narrows it down with an index unless the keyword is too unselective for one to help.
      *
      * @param keyword The keyword to search for in task descriptions.
      * @return An ArrayList of tasks that match the given keyword.
      */
-    public ArrayList<Task> findTasks(String keyword) {
+    public synchronized ArrayList<Task> findTasks(String keyword) {
         assert keyword != null && !keyword.trim().isEmpty() : "Search keyword cannot be null or empty";
+        return query(Query.matching(keyword));
+    }
+
+    /**
+     * Runs a compiled query and returns the matching tasks.
+     * Each predicate has an access path: a group is counted in O(1) by the {@link TaskBitmaps}, a due range is
+     * counted from the {@link TimeIndex}, and the candidates of a keyword are looked up in the
+     * {@link TrigramIndex} or, for keywords shorter than a trigram, the {@link TokenIndex}. The predicate with
+     * the fewest candidates drives the search and the query is only tested on those; when no predicate narrows
+     * the list below a quarter of its tasks, the whole list is scanned instead.
+     *
+     * @param query The compiled query.
+     * @return The matching tasks, in list order.
+     */
+    public synchronized ArrayList<Task> query(Query query) {
+        Query.Predicate driver = null;
+        int driverCount = tasks.size() / SCAN_FRACTION + 1; // A path must yield fewer candidates than this
+        for (Query.Predicate predicate : query.getPredicates()) {
+            int count = countCandidates(predicate);
+            if (count < driverCount) {
+                driver = predicate;
+                driverCount = count;
+            }
+        }
+        // Keywords cannot be counted without looking up their candidates, so they only have the best count to beat
+        long[] keywordCandidates = null;
+        for (Query.Predicate predicate : query.getPredicates()) {
+            if (driverCount > 0 && predicate instanceof Query.TextPredicate text) {
+                long[] candidates = keywordCandidates(text.getKeyword(), driverCount - 1);
+                if (candidates != null) {
+                    driver = predicate;
+                    driverCount = candidates.length;
+                    keywordCandidates = candidates;
+                }
+            }
+        }
+
+        int[] positions = driver == null ? null : candidatePositions(driver, keywordCandidates);
+        int count = positions == null ? tasks.size() : positions.length;
         ArrayList<Task> matchingTasks = new ArrayList<>();
-        String lowerCaseKeyword = keyword.toLowerCase(); // Convert keyword to lowercase for case-insensitive search
+        for (int i = 0; i < count; i++) {
+            // The driving predicate is tested again too, as keyword candidates may not all contain the keyword
+            Task task = tasks.get(positions == null ? i : positions[i]);
+            if (query.test(task)) {
+                matchingTasks.add(task);
+            }
+        }
+        return matchingTasks;
+    }
+
+    /**
+     * Finds the tasks whose descriptions hold words close to those of the query, allowing for typos.
+     * The words are looked up in a {@link FuzzyTermIndex}, a BK-tree over the distinct words of the
+     * descriptions, so only a small part of the vocabulary is compared with the query.
+     *
+     * @param query The words to search for.
+     * @return The matching tasks, closest first, and in list order among equally close ones.
+     */
+    public synchronized ArrayList<Task> findTasksFuzzy(String query) {
+        assert query != null && !query.trim().isEmpty() : "Search query cannot be null or empty";
+        if (fuzzyTermIndex == null) {
+            fuzzyTermIndex = buildIndex(new FuzzyTermIndex());
+        }
+        long[] closest = fuzzyTermIndex.closest(query.toLowerCase());
+        ArrayList<Task> matchingTasks = new ArrayList<>(closest.length);
+        for (long sequence : closest) {
+            matchingTasks.add(tasks.get(positionOf(sequence)));
+        }
+        return matchingTasks;
+    }
+
+    /**
+     * Returns the deadlines due within the given range, earliest first.
+     * The deadlines are looked up in a {@link TimeIndex}, so the cost grows with the number of
+     * matches rather than with the size of the list. A repeating deadline is expanded into its occurrences
+     * in the range, computed only for the range; without a lower bound they start from the occurrence it
+     * currently stands for, and without an upper bound it is listed once, at that occurrence.
+     *
+     * @param from The start of the range, inclusive, or null for no lower bound.
+     * @param to The end of the range, exclusive, or null for no upper bound.
+     * @return The deadlines in order of due time.
+     */
+    public synchronized ArrayList<Task> getDeadlinesBetween(LocalDateTime from, LocalDateTime to) {
+        TimeIndex index = getTimeIndex();
+        long[] matches = index.deadlinesBetween(toKey(from, Long.MIN_VALUE), toKey(to, Long.MAX_VALUE));
+        ArrayList<Task> deadlines = new ArrayList<>(matches.length);
+        for (long sequence : matches) {
+            deadlines.add(tasks.get(positionOf(sequence)));
+        }
+        long[] repeating = index.repeatingDeadlines();
+        for (long sequence : repeating) {
+            Deadline deadline = (Deadline) tasks.get(positionOf(sequence));
+            if (to != null) {
+                deadlines.addAll(deadline.occurrencesBetween(from, to));
+            } else if (from == null || !deadline.getDateTime().isBefore(from)) {
+                deadlines.add(deadline);
+            }
+        }
+        if (repeating.length > 0) {
+            deadlines.sort(Comparator.comparing(task -> ((Deadline) task).getDateTime()));
+        }
+        return deadlines;
+    }
+
+    /**
+     * Returns the events taking place at any time within the given range, ordered by start time.
+     * Only events starting less than the longest event duration before the range can reach into it,
+     * so those are looked up in a {@link TimeIndex} and then checked against the range.
+     * A repeating event is expanded into its occurrences in the range, computed only for the range.
+     *
+     * @param from The start of the range, inclusive.
+     * @param to The end of the range, exclusive.
+     * @return The overlapping events in order of start time.
+     */
+    public synchronized ArrayList<Task> getEventsBetween(LocalDateTime from, LocalDateTime to) {
+        assert from != null && to != null : "Event range must be bounded";
+        TimeIndex index = getTimeIndex();
+        long start = TimeIndex.toEpochSecond(from);
+        long end = TimeIndex.toEpochSecond(to);
+        ArrayList<Task> events = new ArrayList<>();
+        for (long sequence : index.eventsStartingBetween(start - index.getLongestEventDuration(), end)) {
+            Event event = (Event) tasks.get(positionOf(sequence));
+            long eventStart = TimeIndex.toEpochSecond(event.getStartDateTime());
+            long eventEnd = TimeIndex.toEpochSecond(event.getEndDateTime());
+            if (eventEnd > start || eventStart >= start) {
+                events.add(event);
+            }
+        }
+        long[] repeating = index.repeatingEvents();
+        for (long sequence : repeating) {
+            events.addAll(((Event) tasks.get(positionOf(sequence))).occurrencesBetween(from, to));
+        }
+        if (repeating.length > 0) {
+            events.sort(Comparator.comparing(task -> ((Event) task).getStartDateTime()));
+        }
+        return events;
+    }
+
+    /**
+     * Returns the events overlapping the given span, ordered by start time.
+     * An event overlaps the span when each starts before the other ends.
+     * The events are looked up in an {@link IntervalTree}, so events far from the span are never visited.
+     *
+     * @param from The start of the span.
+     * @param to The end of the span.
+     * @return The overlapping events in order of start time.
+     */
+    public synchronized ArrayList<Task> getOverlappingEvents(LocalDateTime from, LocalDateTime to) {
+        long[] matches = getIntervalTree().overlapping(TimeIndex.toEpochSecond(from), TimeIndex.toEpochSecond(to));
+        ArrayList<Task> events = new ArrayList<>(matches.length);
+        for (long sequence : matches) {
+            events.add(tasks.get(positionOf(sequence)));
+        }
+        return events;
+    }
+
+    /**
+     * Returns every pair of events that overlap each other.
+     *
+     * @return The pairs, each with the earlier-starting event first.
+     */
+    public synchronized ArrayList<Task[]> getConflictingEvents() {
+        ArrayList<Task[]> conflicts = new ArrayList<>();
+        for (long[] pair : getIntervalTree().overlappingPairs()) {
+            conflicts.add(new Task[] {tasks.get(positionOf(pair[0])), tasks.get(positionOf(pair[1]))});
+        }
+        return conflicts;
+    }
+
+    private IntervalTree getIntervalTree() {
+        if (intervalTree == null) {
+            intervalTree = buildIndex(new IntervalTree());
+        }
+        return intervalTree;
+    }
+
+    private TimeIndex getTimeIndex() {
+        if (timeIndex == null) {
+            timeIndex = buildIndex(new TimeIndex());
+        }
+        return timeIndex;
+    }
+
+    private static long toKey(LocalDateTime dateTime, long unbounded) {
+        return dateTime == null ? unbounded : TimeIndex.toEpochSecond(dateTime);
+    }
+
+    /**
+     * Counts the candidates of a predicate answered by the bitmaps or the time index, without listing them.
+     *
+     * @param predicate The predicate.
+     * @return The number of candidates, or {@link Integer#MAX_VALUE} if the predicate cannot be counted.
+     */
+    private int countCandidates(Query.Predicate predicate) {
+        if (predicate instanceof Query.FilterPredicate filter) {
+            return getBitmaps().count(filter.getFilter());
+        } else if (predicate instanceof Query.DuePredicate due) {
+            TimeIndex index = getTimeIndex();
+            long from = toKey(due.getFrom(), Long.MIN_VALUE);
+            long to = toKey(due.getTo(), Long.MAX_VALUE);
+            return index.countDeadlinesBetween(from, to) + index.countRepeatingDeadlines();
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Looks up the tasks that may contain a keyword, if there are few enough of them.
+     *
+     * @param lowerCaseKeyword The lowercased keyword.
+     * @param limit The largest useful number of candidates.
+     * @return Sorted sequence numbers of the candidates, or null if there are more than the limit.
+     */
+    private long[] keywordCandidates(String lowerCaseKeyword, int limit) {
+        if (lowerCaseKeyword.length() >= TrigramIndex.GRAM_LENGTH) {
+            if (trigramIndex == null) {
+                trigramIndex = buildIndex(new TrigramIndex());
+            }
+            long[] candidates = trigramIndex.candidates(lowerCaseKeyword);
+            return candidates.length <= limit ? candidates : null;
+        }
+        if (tokenIndex == null) {
+            tokenIndex = buildIndex(new TokenIndex());
+        }
+        return tokenIndex.candidates(lowerCaseKeyword, limit);
+    }
+
+    /**
+     * Lists the candidates of the predicate chosen to drive a query.
+     *
+     * @param driver The driving predicate.
+     * @param keywordCandidates The candidates already looked up if the driver is a keyword.
+     * @return The positions of the candidates, in list order.
+     */
+    private int[] candidatePositions(Query.Predicate driver, long[] keywordCandidates) {
+        if (driver instanceof Query.FilterPredicate filter) {
+            return getBitmaps().positions(filter.getFilter());
+        }
+        long[] candidates = keywordCandidates;
+        if (driver instanceof Query.DuePredicate due) {
+            TimeIndex index = getTimeIndex();
+            long from = toKey(due.getFrom(), Long.MIN_VALUE);
+            long[] dated = index.deadlinesBetween(from, toKey(due.getTo(), Long.MAX_VALUE));
+            long[] repeating = index.repeatingDeadlines();
+            candidates = Arrays.copyOf(dated, dated.length + repeating.length);
+            System.arraycopy(repeating, 0, candidates, dated.length, repeating.length);
+        }
+        // Sequence numbers follow list order, so each position is found by one descent of the sequence list
+        int[] positions = new int[candidates.length];
+        for (int i = 0; i < candidates.length; i++) {
+            positions[i] = positionOf(candidates[i]);
+        }
+        if (driver instanceof Query.DuePredicate) {
+            Arrays.sort(positions); // The time index lists deadlines by due time
+        }
+        return positions;
+    }
+
+    /**
+     * Builds an index over the current tasks and registers it to be kept up to date from now on.
+     *
+     * @param index An empty index.
+     * @param <T> The type of index.
+     * @return The populated index.
+     */
+    private <T extends TaskIndex> T buildIndex(T index) {
+        if (sequences == null) {
+            sequences = new IndexedLongList(spacedSequences(tasks.size()), tasks.size());
+        }
+        for (int i = 0; i < tasks.size(); i++) {
+            index.add(sequences.get(i), tasks.get(i));
+        }
+        indexes.add(index);
+        return index;
+    }
 
-        for (Task task : tasks) {
-            if (task.getDescription() != null) {
-                String lowerCaseDescription = task.getDescription().toLowerCase(); // Convert description to lowercase
-                if (lowerCaseDescription.contains(lowerCaseKeyword)) {
-                    matchingTasks.add(task);
+    /**
+     * Hands out evenly spaced sequence numbers again and rebuilds every index with them.
+     * Only needed once repeated insertions at one place have used up the gap between two neighbours.
+     *
+     * @param insertedIndex The index of a task inserted into the store but not yet numbered.
+     */
+    private void renumber(int insertedIndex) {
+        nextSequence = 0;
+        long[] spaced = spacedSequences(tasks.size() - 1);
+        sequences = new IndexedLongList(spaced, spaced.length);
+        for (TaskIndex index : indexes) {
+            index.clear();
+            for (int i = 0; i < tasks.size(); i++) {
+                if (i != insertedIndex) {
+                    index.add(sequences.get(i < insertedIndex ? i : i - 1), tasks.get(i));
                 }
             }
         }
-        return matchingTasks; // Return the list of matching tasks
+    }
+
+    private long[] spacedSequences(int count) {
+        long[] spaced = new long[count];
+        for (int i = 0; i < count; i++) {
+            spaced[i] = nextSequence;
+            nextSequence += SEQUENCE_GAP;
+        }
+        return spaced;
+    }
+
+    /**
+     * Returns the current position of the task with the given sequence number.
+     *
+     * @param sequence The sequence number of a task in the list.
+     * @return The index of the task.
+     */
+    private int positionOf(long sequence) {
+        int position = sequences.indexOf(sequence);
+        assert position >= 0 : "Sequence number must belong to a task in the list";
+        return position;
     }
 }
@@ -0,0 +1,103 @@
+package alden;
+
+import java.util.List;
+
+/**
+ * Storage engine behind a {@link TaskList}.
+ * Implementations decide how tasks are held in memory, from a plain array to a lazily decoded file.
+ */
+public interface TaskStore {
+
+    /**
+     * Returns the task at the given position.
+     *
+     * @param index Zero-based position of the task
+     * @return The task at that position
+     */
+    Task get(int index);
+
+    /**
+     * Appends a task to the end of the store.
+     *
+     * @param task The task to append
+     */
+    void add(Task task);
+
+    /**
+     * Inserts a task at the given position, shifting later tasks up by one.
+     *
+     * @param index Zero-based position of the new task, at most the size of the store
+     * @param task The task to insert
+     */
+    void add(int index, Task task);
+
+    /**
+     * Puts a task in place of the one at the given position, as when a task is replaced by a changed copy.
+     *
+     * @param index Zero-based position of the task
+     * @param task The task to put there
+     */
+    void set(int index, Task task);
+
+    /**
+     * Removes the task at the given position, shifting later tasks down by one.
+     *
+     * @param index Zero-based position of the task
+     * @return The removed task
+     */
+    Task remove(int index);
+
+    /**
+     * Returns the number of tasks in the store.
+     *
+     * @return The number of tasks
+     */
+    int size();
+
+    /**
+     * Removes every task from the store.
+     */
+    void clear();
+
+    /**
+     * Returns a read-only view of the tasks as they are now, unaffected by later additions, removals and
+     * replacements.
+     * The view may be read from another thread while the store keeps changing.
+     *
+     * @return A point-in-time list of the tasks
+     */
+    List<Task> snapshot();
+
+    /**
+     * Records where the record of a task in a version of the tasks lies in a snapshot file. The location
+     * is given to the version when it implements {@link LocatedSnapshot}, and to the task otherwise.
+     *
+     * @param tasks Version of the tasks being saved
+     * @param index Zero-based position of the task in the version
+     * @param task The task at that position
+     * @param generation Generation of the snapshot the offset refers to
+     * @param offset Byte offset of the record in the snapshot
+     */
+    static void setRecordLocation(List<Task> tasks, int index, Task task, int generation, long offset) {
+        if (tasks instanceof LocatedSnapshot located) {
+            located.setRecordLocation(index, generation, offset);
+        } else {
+            task.setRecordLocation(generation, offset);
+        }
+    }
+
+    /**
+     * Version of the tasks that may build a task afresh on each read, so that a location recorded on a task
+     * it returned could be lost before the store sees it. Locations are recorded through the version instead.
+     */
+    interface LocatedSnapshot {
+        /**
+         * Records where the record of the task at the given position lies in a snapshot file.
+         *
+         * @param index Zero-based position of the task in the version
+         * @param generation Generation of the snapshot the offset refers to
+         * @param offset Byte offset of the record in the snapshot
+         */
+        void setRecordLocation(int index, int generation, long offset);
+    }
+}
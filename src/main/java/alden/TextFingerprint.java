@@ -0,0 +1,72 @@
+package alden;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+
+/**
+ * CRC32 fingerprint of a text snapshot that ignores the status field of every record.
+ * Marking a task rewrites that single byte of its record in place, so leaving it out keeps
+ * the fingerprint, and with it the journal written against the snapshot, valid.
+ * Bytes are fed in file order; the status field is the fifth byte after the first non-blank byte of a line.
+ */
+public class TextFingerprint {
+    private static final int STATUS_COLUMN = 4;
+
+    private final CRC32 crc = new CRC32();
+    private byte[] scratch = new byte[8192];
+    private int column = -1; // Bytes since the first non-blank byte of the current line, or -1 before it
+
+    /**
+     * Computes the fingerprint of a text snapshot on disk.
+     *
+     * @param file Text snapshot file
+     * @return The fingerprint
+     * @throws IOException if the file cannot be read
+     */
+    public static long of(File file) throws IOException {
+        TextFingerprint fingerprint = new TextFingerprint();
+        byte[] buffer = new byte[1 << 16];
+        try (InputStream in = new FileInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                fingerprint.update(buffer, 0, read);
+            }
+        }
+        return fingerprint.getValue();
+    }
+
+    /**
+     * Feeds the next bytes of the snapshot into the fingerprint.
+     *
+     * @param bytes Array holding the bytes
+     * @param offset Offset of the first byte
+     * @param length Number of bytes
+     */
+    public void update(byte[] bytes, int offset, int length) {
+        if (scratch.length < length) {
+            scratch = new byte[length];
+        }
+        System.arraycopy(bytes, offset, scratch, 0, length);
+        for (int i = 0; i < length; i++) {
+            byte b = scratch[i];
+            if (b == '\n') {
+                column = -1;
+            } else if (column >= 0) {
+                column = Math.min(column + 1, STATUS_COLUMN + 1);
+            } else if ((b & 0xff) > ' ') {
+                column = 0;
+            }
+            if (column == STATUS_COLUMN) {
+                scratch[i] = '0';
+            }
+        }
+        crc.update(scratch, 0, length);
+    }
+
+    public long getValue() {
+        return crc.getValue();
+    }
+}
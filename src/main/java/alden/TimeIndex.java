@@ -0,0 +1,182 @@
+package alden;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Index of deadlines by due time and of events by start time, kept in sorted maps keyed by epoch second
+ * so that every task in a time range is found with one tree descent plus a walk over the matches.
+ * Times are wall-clock times, so they are converted at UTC purely to get a comparable number.
+ *
+ * <p>Events are keyed by their start only. To find the events overlapping a range, the caller searches
+ * starts from the range start minus the {@linkplain #getLongestEventDuration() longest event duration},
+ * which no overlapping event can start before, and then checks the ends of those candidates.</p>
+ *
+ * <p>Repeating deadlines and events have no single time to be keyed by, so they are only listed apart,
+ * for the caller to expand the occurrences that fall in a range.</p>
+ */
+public class TimeIndex implements TaskIndex {
+    private final TreeMap<Long, PostingList> deadlines = new TreeMap<>();
+    private final TreeMap<Long, PostingList> eventStarts = new TreeMap<>();
+    private final TreeMap<Long, Integer> eventDurations = new TreeMap<>(); // Count of events with each duration
+    private PostingList repeatingDeadlines = new PostingList();
+    private PostingList repeatingEvents = new PostingList();
+
+    @Override
+    public void add(long sequence, Task task) {
+        if (task.getRecurrence() != null) {
+            (task instanceof Deadline ? repeatingDeadlines : repeatingEvents).add(sequence);
+        } else if (task instanceof Deadline deadline) {
+            deadlines.computeIfAbsent(toEpochSecond(deadline.getDateTime()), key -> new PostingList()).add(sequence);
+        } else if (task instanceof Event event) {
+            eventStarts.computeIfAbsent(toEpochSecond(event.getStartDateTime()), key -> new PostingList())
+                    .add(sequence);
+            eventDurations.merge(durationOf(event), 1, Integer::sum);
+        }
+    }
+
+    @Override
+    public void remove(long sequence, Task task) {
+        if (task.getRecurrence() != null) {
+            (task instanceof Deadline ? repeatingDeadlines : repeatingEvents).remove(sequence);
+        } else if (task instanceof Deadline deadline) {
+            removeFrom(deadlines, toEpochSecond(deadline.getDateTime()), sequence);
+        } else if (task instanceof Event event) {
+            removeFrom(eventStarts, toEpochSecond(event.getStartDateTime()), sequence);
+            eventDurations.computeIfPresent(durationOf(event), (key, count) -> count == 1 ? null : count - 1);
+        }
+    }
+
+    @Override
+    public void clear() {
+        deadlines.clear();
+        eventStarts.clear();
+        eventDurations.clear();
+        repeatingDeadlines = new PostingList();
+        repeatingEvents = new PostingList();
+    }
+
+    /**
+     * Returns the deadlines due in the given range, earliest first.
+     *
+     * @param from Start of the range in epoch seconds, inclusive
+     * @param to End of the range in epoch seconds, exclusive
+     * @return Sequence numbers of the deadlines
+     */
+    public long[] deadlinesBetween(long from, long to) {
+        return collect(deadlines, from, to);
+    }
+
+    /**
+     * Counts the deadlines due in the given range without listing them, walking only the distinct times.
+     *
+     * @param from Start of the range in epoch seconds, inclusive
+     * @param to End of the range in epoch seconds, exclusive
+     * @return The number of deadlines
+     */
+    public int countDeadlinesBetween(long from, long to) {
+        return from >= to ? 0 : sizeOf(deadlines.subMap(from, true, to, false));
+    }
+
+    /**
+     * Returns the events starting in the given range, earliest first.
+     *
+     * @param from Start of the range in epoch seconds, inclusive
+     * @param to End of the range in epoch seconds, exclusive
+     * @return Sequence numbers of the events
+     */
+    public long[] eventsStartingBetween(long from, long to) {
+        return collect(eventStarts, from, to);
+    }
+
+    /**
+     * Returns the repeating deadlines, whatever their times.
+     *
+     * @return Sequence numbers of the repeating deadlines
+     */
+    public long[] repeatingDeadlines() {
+        return toArray(repeatingDeadlines);
+    }
+
+    /**
+     * Returns the number of repeating deadlines.
+     *
+     * @return The number of repeating deadlines
+     */
+    public int countRepeatingDeadlines() {
+        return repeatingDeadlines.size();
+    }
+
+    /**
+     * Returns the repeating events, whatever their times.
+     *
+     * @return Sequence numbers of the repeating events
+     */
+    public long[] repeatingEvents() {
+        return toArray(repeatingEvents);
+    }
+
+    /**
+     * Returns the duration of the longest indexed event that does not repeat.
+     *
+     * @return The duration in seconds, or 0 if there are no events
+     */
+    public long getLongestEventDuration() {
+        return eventDurations.isEmpty() ? 0 : eventDurations.lastKey();
+    }
+
+    /**
+     * Converts a wall-clock time to the key used by the index.
+     *
+     * @param dateTime The time
+     * @return The time in epoch seconds, read as UTC
+     */
+    static long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static long durationOf(Event event) {
+        long duration = toEpochSecond(event.getEndDateTime()) - toEpochSecond(event.getStartDateTime());
+        return Math.max(0, duration);
+    }
+
+    private static long[] toArray(PostingList list) {
+        long[] result = new long[list.size()];
+        list.copyTo(result, 0);
+        return result;
+    }
+
+    private static void removeFrom(TreeMap<Long, PostingList> map, long key, long sequence) {
+        PostingList list = map.get(key);
+        if (list != null) {
+            list.remove(sequence);
+            if (list.isEmpty()) {
+                map.remove(key);
+            }
+        }
+    }
+
+    private static long[] collect(TreeMap<Long, PostingList> map, long from, long to) {
+        if (from >= to) {
+            return new long[0];
+        }
+        NavigableMap<Long, PostingList> range = map.subMap(from, true, to, false);
+        long[] result = new long[sizeOf(range)];
+        int offset = 0;
+        for (PostingList list : range.values()) {
+            list.copyTo(result, offset);
+            offset += list.size();
+        }
+        return result;
+    }
+
+    private static int sizeOf(NavigableMap<Long, PostingList> range) {
+        int size = 0;
+        for (PostingList list : range.values()) {
+            size += list.size();
+        }
+        return size;
+    }
+}
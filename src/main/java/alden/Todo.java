@@ -15,6 +15,11 @@ public class Todo extends Task {
         super(description);
     }
 
+    @Override
+    Todo copy() {
+        return copyStateTo(new Todo(description));
+    }
+
     /**
      * Returns a string representation of the Todo task.
      * The format is: "[T][X] description" where "X" is the task's status icon.
@@ -29,13 +34,13 @@ public class Todo extends Task {
 
     /**
      * Returns the Todo task in a format suitable for saving to a file.
-     * The format is: "T | status | description".
+     * The format is: "T | status | description | id", where the ID is left out if the task has none.
      *
      * @return A string representing the Todo task in a file-compatible format.
      */
     @Override
     public String toFileFormat() {
 
-        return "T | " + (isDone ? "1" : "0") + " | " + description;
+        return "T | " + (isDone ? "1" : "0") + " | " + description + idField();
     }
 }
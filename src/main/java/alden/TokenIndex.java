@@ -0,0 +1,237 @@
+package alden;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Inverted index from the lowercased words of task descriptions to the tasks containing them.
+ * A word is a maximal run of letters and digits.
+ *
+ * <p>The index narrows a substring search to a set of candidate tasks without changing its results.
+ * A query word that appears in full in a description only needs a map lookup; the first and last
+ * words of a query may be cut off by the match, so for those the vocabulary of distinct words is
+ * searched instead of the descriptions themselves.</p>
+ */
+public class TokenIndex implements TaskIndex {
+    private final HashMap<String, PostingList> postings = new HashMap<>();
+    private final Vocabulary vocabulary = new Vocabulary();
+
+    @Override
+    public void add(long sequence, Task task) {
+        for (String token : tokenize(task.getDescription().toLowerCase())) {
+            PostingList list = postings.get(token);
+            if (list == null) {
+                list = new PostingList();
+                postings.put(token, list);
+                vocabulary.add(token, list);
+            }
+            list.add(sequence);
+        }
+    }
+
+    @Override
+    public void remove(long sequence, Task task) {
+        for (String token : tokenize(task.getDescription().toLowerCase())) {
+            PostingList list = postings.get(token);
+            if (list != null) {
+                list.remove(sequence);
+                if (list.isEmpty()) {
+                    postings.remove(token);
+                    vocabulary.forget();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        postings.clear();
+        vocabulary.clear();
+    }
+
+    /**
+     * Returns the tasks that may contain the lowercased keyword, in list order.
+     * Every task that does contain it is among the candidates, but candidates must still be checked.
+     *
+     * @param keyword Lowercased search keyword
+     * @param limit Largest useful number of candidates; beyond it a plain scan is cheaper
+     * @return Sorted sequence numbers of the candidates, or null if the keyword is better answered by a scan
+     */
+    public long[] candidates(String keyword, int limit) {
+        List<String> words = tokenize(keyword);
+        if (words.isEmpty()) {
+            return null; // Only punctuation and spaces; every description could match
+        }
+
+        // A word with separators on both sides must appear in full
+        boolean isFirstCut = isWordChar(keyword.charAt(0));
+        boolean isLastCut = isWordChar(keyword.charAt(keyword.length() - 1));
+        List<PostingList> best = null;
+        int bestSize = Integer.MAX_VALUE;
+        for (int i = 0; i < words.size(); i++) {
+            boolean isStartCut = i == 0 && isFirstCut;
+            boolean isEndCut = i == words.size() - 1 && isLastCut;
+            if (isStartCut || isEndCut) {
+                continue;
+            }
+            PostingList list = postings.get(words.get(i));
+            if (list == null) {
+                return new long[0];
+            }
+            if (list.size() < bestSize) {
+                best = List.of(list);
+                bestSize = list.size();
+            }
+        }
+        if (best == null) {
+            // Every word may be cut off, so match them against the vocabulary instead
+            vocabulary.compactIfStale(postings);
+            for (int i = 0; i < words.size(); i++) {
+                ArrayList<PostingList> matches = new ArrayList<>();
+                int matchSize = vocabulary.match(words.get(i), i == 0 && isFirstCut,
+                        i == words.size() - 1 && isLastCut, Math.min(limit, bestSize), matches);
+                if (matchSize < bestSize) {
+                    best = matches;
+                    bestSize = matchSize;
+                }
+            }
+        }
+        return best == null || bestSize > limit ? null : union(best, bestSize);
+    }
+
+    /**
+     * Merges posting lists into one sorted array without duplicates.
+     *
+     * @param lists Posting lists to merge
+     * @param totalSize Combined size of the lists
+     * @return Sorted, distinct sequence numbers
+     */
+    private static long[] union(List<PostingList> lists, int totalSize) {
+        long[] merged = new long[totalSize];
+        int offset = 0;
+        for (PostingList list : lists) {
+            list.copyTo(merged, offset);
+            offset += list.size();
+        }
+        if (lists.size() == 1) {
+            return merged;
+        }
+        Arrays.sort(merged);
+        int distinct = 0;
+        for (int i = 0; i < merged.length; i++) {
+            if (distinct == 0 || merged[distinct - 1] != merged[i]) {
+                merged[distinct++] = merged[i];
+            }
+        }
+        return Arrays.copyOf(merged, distinct);
+    }
+
+    /**
+     * Splits lowercased text into its words.
+     *
+     * @param text Lowercased text
+     * @return The words in order of appearance
+     */
+    static List<String> tokenize(String text) {
+        ArrayList<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean isWord = i < text.length() && isWordChar(text.charAt(i));
+            if (isWord && start < 0) {
+                start = i;
+            } else if (!isWord && start >= 0) {
+                tokens.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c);
+    }
+
+    /**
+     * Distinct indexed words laid out in one space-separated buffer, so that all words holding
+     * a piece of a query word can be found with fast substring searches over the buffer.
+     * Words whose postings become empty stay in the buffer until enough of them pile up to compact it.
+     */
+    private static class Vocabulary {
+        private final StringBuilder text = new StringBuilder();
+        private int[] starts = new int[64];
+        private PostingList[] lists = new PostingList[64];
+        private int count;
+        private int forgottenCount;
+
+        void add(String token, PostingList list) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                lists = Arrays.copyOf(lists, count * 2);
+            }
+            starts[count] = text.length();
+            lists[count++] = list;
+            text.append(token).append(' ');
+        }
+
+        void forget() {
+            forgottenCount++;
+        }
+
+        void clear() {
+            text.setLength(0);
+            Arrays.fill(lists, 0, count, null);
+            count = 0;
+            forgottenCount = 0;
+        }
+
+        /**
+         * Rebuilds the buffer from the live words once most of its words have been forgotten.
+         *
+         * @param postings The live words and their postings
+         */
+        void compactIfStale(HashMap<String, PostingList> postings) {
+            if (forgottenCount <= count / 2) {
+                return;
+            }
+            clear();
+            postings.forEach(this::add);
+        }
+
+        /**
+         * Collects the postings of every live word that can hold the given query word.
+         *
+         * @param word Lowercased query word
+         * @param isStartCut True if the match may begin inside a word rather than at its start
+         * @param isEndCut True if the match may end inside a word rather than at its end
+         * @param limit Number of postings beyond which collecting stops
+         * @param matches Receiver of the matching postings
+         * @return The combined size of the matching postings, or {@code Integer.MAX_VALUE} if it exceeds the limit
+         */
+        int match(String word, boolean isStartCut, boolean isEndCut, int limit, List<PostingList> matches) {
+            int total = 0;
+            int from = 0;
+            int at;
+            while ((at = text.indexOf(word, from)) >= 0) {
+                int i = tokenAt(at);
+                int end = (i + 1 < count ? starts[i + 1] : text.length()) - 1;
+                boolean isMatch = (isStartCut || at == starts[i]) && (isEndCut || at + word.length() == end);
+                if (isMatch && !lists[i].isEmpty()) {
+                    matches.add(lists[i]);
+                    total += lists[i].size();
+                    if (total > limit) {
+                        return Integer.MAX_VALUE;
+                    }
+                }
+                from = end + 1;
+            }
+            return total;
+        }
+
+        private int tokenAt(int offset) {
+            int position = Arrays.binarySearch(starts, 0, count, offset);
+            return position >= 0 ? position : -position - 2;
+        }
+    }
+}
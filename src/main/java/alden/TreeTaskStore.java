@@ -0,0 +1,73 @@
+package alden;
+
+import java.util.List;
+
+/**
+ * Task store that keeps every task in memory.
+ * The tasks are held in a {@link PersistentTaskTree}, so that tasks can be read, inserted and removed at
+ * any position in O(log n) rather than shifting the rest, and a snapshot is just the current version
+ * of the tree, taken in O(1) and unaffected by later changes.
+ */
+public class TreeTaskStore implements TaskStore {
+    private PersistentTaskTree tree = PersistentTaskTree.EMPTY;
+
+    @Override
+    public Task get(int index) {
+        return tree.get(index);
+    }
+
+    @Override
+    public void add(Task task) {
+        tree = tree.insert(tree.size(), task);
+    }
+
+    @Override
+    public void add(int index, Task task) {
+        tree = tree.insert(index, task);
+    }
+
+    @Override
+    public void set(int index, Task task) {
+        tree = tree.set(index, task);
+    }
+
+    @Override
+    public Task remove(int index) {
+        Task task = tree.get(index);
+        tree = tree.remove(index);
+        return task;
+    }
+
+    @Override
+    public int size() {
+        return tree.size();
+    }
+
+    @Override
+    public void clear() {
+        tree = PersistentTaskTree.EMPTY;
+    }
+
+    @Override
+    public List<Task> snapshot() {
+        return tree.asList();
+    }
+
+    /**
+     * Returns the current version of the tasks.
+     *
+     * @return The tree holding the tasks
+     */
+    PersistentTaskTree getTree() {
+        return tree;
+    }
+
+    /**
+     * Replaces the tasks with an earlier or later version of them.
+     *
+     * @param tree The tree holding the tasks
+     */
+    void setTree(PersistentTaskTree tree) {
+        this.tree = tree;
+    }
+}
@@ -0,0 +1,108 @@
+package alden;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+
+/**
+ * Index from every three-character sequence of the lowercased task descriptions to the tasks containing it.
+ * Any description that contains a keyword also contains each of the keyword's trigrams, so intersecting
+ * their posting lists yields every match, plus occasional false positives that the caller must filter out.
+ */
+public class TrigramIndex implements TaskIndex {
+    public static final int GRAM_LENGTH = 3;
+
+    private final HashMap<Long, PostingList> postings = new HashMap<>();
+
+    @Override
+    public void add(long sequence, Task task) {
+        String text = task.getDescription().toLowerCase();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            postings.computeIfAbsent(trigramAt(text, i), key -> new PostingList()).add(sequence);
+        }
+    }
+
+    @Override
+    public void remove(long sequence, Task task) {
+        String text = task.getDescription().toLowerCase();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            Long trigram = trigramAt(text, i);
+            PostingList list = postings.get(trigram);
+            if (list != null) {
+                list.remove(sequence);
+                if (list.isEmpty()) {
+                    postings.remove(trigram);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        postings.clear();
+    }
+
+    /**
+     * Returns the tasks whose descriptions contain every trigram of the lowercased keyword, in list order.
+     *
+     * @param keyword Lowercased search keyword of at least {@link #GRAM_LENGTH} characters
+     * @return Sorted sequence numbers of the candidates
+     */
+    public long[] candidates(String keyword) {
+        assert keyword.length() >= GRAM_LENGTH : "Keyword must be at least one trigram long";
+        ArrayList<PostingList> lists = new ArrayList<>();
+        for (int i = 0; i + GRAM_LENGTH <= keyword.length(); i++) {
+            PostingList list = postings.get(trigramAt(keyword, i));
+            if (list == null) {
+                return new long[0];
+            }
+            lists.add(list);
+        }
+
+        // Start from the rarest trigram so the running intersection stays small
+        lists.sort(Comparator.comparingInt(PostingList::size));
+        long[] result = new long[lists.get(0).size()];
+        lists.get(0).copyTo(result, 0);
+        int size = result.length;
+        for (int i = 1; i < lists.size() && size > 0; i++) {
+            size = intersect(result, size, lists.get(i));
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Keeps only the values of the sorted array prefix that also appear in the posting list.
+     *
+     * @param values Sorted values, intersected in place
+     * @param size Number of values in use
+     * @param list Posting list to intersect with
+     * @return Number of values left
+     */
+    private static int intersect(long[] values, int size, PostingList list) {
+        int kept = 0;
+        if (list.size() > size * 8) {
+            // Much longer list: look each value up instead of walking the whole list
+            for (int i = 0; i < size; i++) {
+                if (list.contains(values[i])) {
+                    values[kept++] = values[i];
+                }
+            }
+            return kept;
+        }
+        int j = 0;
+        for (int i = 0; i < size && j < list.size(); i++) {
+            while (j < list.size() && list.get(j) < values[i]) {
+                j++;
+            }
+            if (j < list.size() && list.get(j) == values[i]) {
+                values[kept++] = values[i];
+            }
+        }
+        return kept;
+    }
+
+    private static Long trigramAt(String text, int index) {
+        return ((long) text.charAt(index) << 32) | ((long) text.charAt(index + 1) << 16) | text.charAt(index + 2);
+    }
+}
@@ -1,7 +1,10 @@
 package alden;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
 
+import javafx.application.Platform;
 import javafx.scene.image.Image;
 import javafx.scene.layout.VBox;
 
@@ -10,6 +13,10 @@ import javafx.scene.layout.VBox;
  * It manages displaying messages to the user, both in GUI and (optionally) console modes.
  */
 public class Ui {
+    /** Number of tasks shown on one page of the list. */
+    public static final int PAGE_SIZE = 20;
+    private static final int FULL_LIST_LIMIT = 1000; // Longest list shown in full rather than from its first page
+
     private VBox dialogContainer;
     private boolean isGuiMode = false;
     private final StringBuilder currentBotResponse = new StringBuilder(); // Accumulate bot's response
@@ -98,11 +105,36 @@ public class Ui {
      */
     public void showTaskAdded(Task task, int size) {
         appendToOutput(" Got it. I've added this task:", false);
-        appendToOutput("   " + task, false);
+        appendToOutput("   " + withId(task), false);
         appendToOutput(" Now you have " + size + " tasks in the list.", false);
         flushBotResponse();
     }
 
+    /**
+     * Displays a reminder that a deadline has come due or an event is about to start.
+     * Reminders arrive from a background thread, so in GUI mode the message is handed to the JavaFX
+     * application thread rather than added to the dialog directly.
+     *
+     * @param task The task being reminded of.
+     */
+    public void showReminder(Task task) {
+        if (isGuiMode) {
+            Platform.runLater(() -> appendReminder(task));
+        } else {
+            appendReminder(task);
+        }
+    }
+
+    private void appendReminder(Task task) {
+        if (task instanceof Event) {
+            appendToOutput(" Reminder! This event starts in " + ReminderWheel.EVENT_LEAD_MINUTES + " minutes:", false);
+        } else {
+            appendToOutput(" Reminder! This deadline is due now:", false);
+        }
+        appendToOutput("   " + withId(task), false);
+        flushBotResponse();
+    }
+
     /**
      * Displays the task marked as done message.
      *
@@ -110,7 +142,7 @@ public class Ui {
      */
     public void showTaskMarkedAsDone(Task task) {
         appendToOutput(" Nice! I've marked this task as done:", false);
-        appendToOutput("   " + task, false);
+        appendToOutput("   " + withId(task), false);
         flushBotResponse();
     }
 
@@ -121,7 +153,7 @@ public class Ui {
      */
     public void showTaskUnmarked(Task task) {
         appendToOutput(" OK, I've marked this task as not done yet:", false);
-        appendToOutput("   " + task, false);
+        appendToOutput("   " + withId(task), false);
         flushBotResponse();
     }
 
@@ -133,45 +165,328 @@ public class Ui {
      */
     public void showTaskRemoved(Task task, int size) {
         appendToOutput(" Noted. I've removed this task:", false);
-        appendToOutput("   " + task, false);
+        appendToOutput("   " + withId(task), false);
         appendToOutput(" Now you have " + size + " tasks in the list.", false);
         flushBotResponse();
     }
 
     /**
-     * Displays the task list.
+     * Displays the task list. A list too long to read through is shown from its first page only,
+     * so that only the visible tasks are read and formatted.
      *
      * @param tasks The list of tasks to display.
      */
     public void printTaskList(TaskList tasks) {
-        if (tasks.isEmpty()) {
+        int size = tasks.size();
+        if (size > FULL_LIST_LIMIT) {
+            appendWindow(tasks.getWindow(0, PAGE_SIZE), 0, size);
+            flushBotResponse();
+            return;
+        }
+        List<Task> version = tasks.getTasks(); // One consistent version, even if the list changes meanwhile
+        if (version.isEmpty()) {
             appendToOutput(" Your task list is empty.", false);
         } else {
             appendToOutput(" Here are the tasks in your list:", false);
-            for (int i = 0; i < tasks.size(); i++) {
-                appendToOutput(" " + (i + 1) + "." + tasks.get(i), false);
+            appendTasksFrom(version, 0);
+        }
+        flushBotResponse();
+    }
+
+    /**
+     * Displays the tasks in one window of the list, such as a page. Only the tasks in the window are read
+     * and formatted, so the cost depends on the size of the window rather than of the list.
+     *
+     * @param tasks The task list.
+     * @param from The zero-based index of the first task in the window.
+     * @param to The zero-based index after the last task in the window, which may lie past the end of the list.
+     */
+    public void showTaskWindow(TaskList tasks, int from, int to) {
+        int size = tasks.size();
+        List<Task> window = tasks.getWindow(from, to);
+        if (size == 0) {
+            appendToOutput(" Your task list is empty.", false);
+        } else if (window.isEmpty()) {
+            appendToOutput(" There are only " + size + " tasks in your list.", false);
+        } else {
+            appendWindow(window, from, size);
+        }
+        flushBotResponse();
+    }
+
+    /**
+     * Displays the task list after a change was undone or redone.
+     *
+     * @param tasks The restored task list.
+     * @param isUndo True if a change was undone, false if one was redone.
+     */
+    public void showUndone(TaskList tasks, boolean isUndo) {
+        appendToOutput(isUndo ? " Undone! Your list is back to how it was:" : " Redone! Your list now reads:", false);
+        int size = tasks.size();
+        if (size > FULL_LIST_LIMIT) {
+            appendWindow(tasks.getWindow(0, PAGE_SIZE), 0, size);
+            flushBotResponse();
+            return;
+        }
+        List<Task> version = tasks.getTasks();
+        if (version.isEmpty()) {
+            appendToOutput(" Your task list is empty.", false);
+        }
+        appendTasksFrom(version, 0);
+        flushBotResponse();
+    }
+
+    /**
+     * Appends the tasks in a non-empty window of the list, with a heading saying where the window lies
+     * and, unless it reaches the end of the list, how to see the tasks after it.
+     *
+     * @param window The tasks in the window.
+     * @param from The zero-based index of the first task in the window.
+     * @param size The number of tasks in the whole list.
+     */
+    private void appendWindow(List<Task> window, int from, int size) {
+        int end = from + window.size();
+        appendToOutput(" Here are tasks " + (from + 1) + " to " + end + " of the " + size + " in your list:", false);
+        appendTasksFrom(window, from);
+        if (end < size && from % PAGE_SIZE == 0 && window.size() == PAGE_SIZE) {
+            appendToOutput(" Type 'list page " + (end / PAGE_SIZE + 1) + "' to see the next page.", false);
+        } else if (end < size) {
+            int nextEnd = (int) Math.min((long) end + window.size(), size);
+            appendToOutput(" Type 'list from " + (end + 1) + " to " + nextEnd + "' to see the next ones.", false);
+        }
+    }
+
+    /**
+     * Appends the given tasks, numbering them on from the position of the first.
+     */
+    private void appendTasksFrom(List<Task> window, int from) {
+        for (int i = 0; i < window.size(); i++) {
+            appendToOutput(" " + (from + i + 1) + "." + withId(window.get(i)), false);
+        }
+    }
+
+    /**
+     * Appends a page of the results of a command that lists tasks, under a heading. Unless a page is asked
+     * for, results short enough to read through are shown in full. Otherwise only the results on the page
+     * are read and formatted, so the cost depends on the size of the page rather than on the number of
+     * results, and a line says how to see the next page.
+     *
+     * @param heading The heading, without its closing colon.
+     * @param count The number of results.
+     * @param page The one-based page asked for, or 0 if none was.
+     * @param command The command that lists the results, without a page, for the user to type again.
+     * @param lineAt Formats the result at a zero-based position among the results.
+     */
+    private void appendPage(String heading, int count, int page, String command, IntFunction<String> lineAt) {
+        int from = 0;
+        int to = count;
+        if (page > 0 || count > FULL_LIST_LIMIT) {
+            from = (int) Math.min((Math.max(page, 1) - 1L) * PAGE_SIZE, count);
+            to = (int) Math.min((long) from + PAGE_SIZE, count);
+            if (from == to) {
+                appendToOutput(" There are only " + count + " to show.", false);
+                return;
             }
+            heading += " (" + (from + 1) + " to " + to + " of " + count + ")";
+        }
+        appendToOutput(heading + ":", false);
+        for (int i = from; i < to; i++) {
+            appendToOutput(lineAt.apply(i), false);
+        }
+        if (to < count) {
+            appendToOutput(" Type '" + command + " page " + (to / PAGE_SIZE + 1) + "' to see the next page.", false);
+        }
+    }
+
+    /**
+     * Displays one group of tasks, numbered by their positions in the whole list.
+     *
+     * @param tasks The task list.
+     * @param indexes The indexes of the tasks in the group.
+     * @param filter The group of tasks.
+     * @param page The one-based page to show, or 0 to show a short group in full.
+     * @param command The command that lists the group, without a page.
+     */
+    public void showFilteredTasks(TaskList tasks, int[] indexes, TaskFilter filter, int page, String command) {
+        if (indexes.length == 0) {
+            appendToOutput(" You have no " + filter.getLabel() + ".", false);
+        } else {
+            appendPage(" Here are the " + filter.getLabel() + " in your list", indexes.length, page, command,
+                    i -> lineAt(tasks, indexes[i]));
+        }
+        flushBotResponse();
+    }
+
+    /**
+     * Displays the tasks in chronological order, each under its number in the list.
+     *
+     * @param tasks The task list.
+     * @param indexes The zero-based indexes of the tasks, earliest first.
+     * @param page The one-based page to show, or 0 to show a short list in full.
+     * @param command The command that lists the tasks by date, without a page.
+     */
+    public void showTasksByDate(TaskList tasks, int[] indexes, int page, String command) {
+        if (indexes.length == 0) {
+            appendToOutput(" Your task list is empty.", false);
+        } else {
+            appendPage(" Here are the tasks in your list by date", indexes.length, page, command,
+                    i -> lineAt(tasks, indexes[i]));
         }
         flushBotResponse();
     }
 
+    /**
+     * Displays the earliest open deadlines and events, each under its number in the list.
+     *
+     * @param tasks The task list.
+     * @param indexes The zero-based indexes of the tasks, earliest first.
+     */
+    public void showNextTasks(TaskList tasks, int[] indexes) {
+        if (indexes.length == 0) {
+            appendToOutput(" You have no open deadlines or events.", false);
+        } else {
+            appendToOutput(" Here are your next " + indexes.length + " deadlines and events:", false);
+            appendTasksAt(tasks, indexes);
+        }
+        flushBotResponse();
+    }
+
+    private void appendTasksAt(TaskList tasks, int[] indexes) {
+        for (int index : indexes) {
+            appendToOutput(lineAt(tasks, index), false);
+        }
+    }
+
+    private static String lineAt(TaskList tasks, int index) {
+        return " " + (index + 1) + "." + withId(tasks.get(index));
+    }
+
+    private static String lineOf(List<Task> results, int i) {
+        return " " + (i + 1) + "." + withId(results.get(i));
+    }
+
+    /**
+     * Displays how many tasks there are of each status and type.
+     *
+     * @param tasks The task list.
+     */
+    public void showTaskCounts(TaskList tasks) {
+        appendToOutput(" You have " + tasks.size() + " tasks in the list.", false);
+        appendToOutput(" Open: " + tasks.count(TaskFilter.OPEN) + ", done: " + tasks.count(TaskFilter.DONE), false);
+        appendToOutput(" Todos: " + tasks.count(TaskFilter.TODOS) + ", deadlines: " + tasks.count(TaskFilter.DEADLINES)
+                + ", events: " + tasks.count(TaskFilter.EVENTS), false);
+        flushBotResponse();
+    }
+
+    /**
+     * Describes a task followed by its ID, which the user can refer to it by with '#'.
+     */
+    private static String withId(Task task) {
+        return task.getId() > 0 ? task + " (#" + task.getId() + ")" : task.toString();
+    }
+
     /**
      * Displays the matching tasks.
      *
      * @param matchingTasks The list of matching tasks.
+     * @param page The one-based page to show, or 0 to show a short list in full.
+     * @param command The command that found the tasks, without a page.
      */
-    public void showMatchingTasks(ArrayList<Task> matchingTasks) {
+    public void showMatchingTasks(ArrayList<Task> matchingTasks, int page, String command) {
         if (matchingTasks.isEmpty()) {
             appendToOutput(" No matching tasks found.", false);
         } else {
-            appendToOutput(" Here are the matching tasks in your list:", false);
-            for (int i = 0; i < matchingTasks.size(); i++) {
-                appendToOutput(" " + (i + 1) + "." + matchingTasks.get(i), false);
+            appendPage(" Here are the matching tasks in your list", matchingTasks.size(), page, command,
+                    i -> lineOf(matchingTasks, i));
+        }
+        flushBotResponse();
+    }
+
+    /**
+     * Displays the deadlines due within a requested range.
+     *
+     * @param dueTasks The deadlines, in order of due time.
+     * @param page The one-based page to show, or 0 to show a short list in full.
+     * @param command The command that looked up the deadlines, without a page.
+     */
+    public void showDueTasks(ArrayList<Task> dueTasks, int page, String command) {
+        if (dueTasks.isEmpty()) {
+            appendToOutput(" No deadlines are due in that period.", false);
+        } else {
+            appendPage(" Here are the deadlines due in that period", dueTasks.size(), page, command,
+                    i -> lineOf(dueTasks, i));
+        }
+        flushBotResponse();
+    }
+
+    /**
+     * Displays the events taking place on a requested day.
+     *
+     * @param events The events, in order of start time.
+     * @param page The one-based page to show, or 0 to show a short list in full.
+     * @param command The command that looked up the events, without a page.
+     */
+    public void showEventsOn(ArrayList<Task> events, int page, String command) {
+        if (events.isEmpty()) {
+            appendToOutput(" No events on that day.", false);
+        } else {
+            appendPage(" Here are the events on that day", events.size(), page, command, i -> lineOf(events, i));
+        }
+        flushBotResponse();
+    }
+
+    /**
+     * Warns that a newly added event overlaps existing events.
+     *
+     * @param overlappingEvents The existing events that overlap it.
+     */
+    public void showOverlapWarning(ArrayList<Task> overlappingEvents) {
+        appendToOutput(" Heads up! This event overlaps with:", false);
+        for (int i = 0; i < overlappingEvents.size(); i++) {
+            appendToOutput(" " + (i + 1) + "." + withId(overlappingEvents.get(i)), false);
+        }
+        flushBotResponse();
+    }
+
+    /**
+     * Displays every pair of overlapping events.
+     *
+     * @param conflicts The pairs of overlapping events.
+     */
+    public void showConflicts(ArrayList<Task[]> conflicts) {
+        if (conflicts.isEmpty()) {
+            appendToOutput(" None of your events overlap.", false);
+        } else {
+            appendToOutput(" These events overlap:", false);
+            for (int i = 0; i < conflicts.size(); i++) {
+                appendToOutput(" " + (i + 1) + "." + withId(conflicts.get(i)[0]), false);
+                appendToOutput("    and " + withId(conflicts.get(i)[1]), false);
             }
         }
         flushBotResponse();
     }
 
+    /**
+     * Suggests migrating a large text data file to the binary format.
+     *
+     * @param size The number of tasks in the data file.
+     */
+    public void showMigrationOffer(int size) {
+        appendToOutput(" Your data file holds " + size + " tasks in the text format.", false);
+        appendToOutput(" Type 'migrate' to convert it to the faster binary format.", false);
+        flushBotResponse();
+    }
+
+    /**
+     * Displays the storage migrated message.
+     *
+     * @param size The number of tasks written in the new format.
+     */
+    public void showStorageMigrated(int size) {
+        appendToOutput(" Done! Your " + size + " tasks are now stored in the binary format.", false);
+        flushBotResponse();
+    }
+
     /**
      * Displays the exit message (same as goodbye).
      */
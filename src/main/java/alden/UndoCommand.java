@@ -0,0 +1,36 @@
+package alden;
+
+/**
+ * Represents the command to undo the most recent change to the task list, or to redo an undone one.
+ */
+public class UndoCommand extends Command {
+    private final boolean isUndo;
+
+    /**
+     * Constructs an UndoCommand.
+     *
+     * @param isUndo True to undo the most recent change, false to redo the most recently undone one.
+     */
+    public UndoCommand(boolean isUndo) {
+        this.isUndo = isUndo;
+    }
+
+    /**
+     * Executes the command by restoring the version of the task list from before the most recent change,
+     * or from after the most recently undone one, and saving it in full.
+     *
+     * @param tasks The task list to restore.
+     * @param ui The user interface used to show the restored list.
+     * @param storage The storage used to save the restored list.
+     * @throws AldenException If there is nothing to undo or redo.
+     */
+    @Override
+    public void execute(TaskList tasks, Ui ui, Storage storage) throws AldenException {
+        boolean isRestored = isUndo ? tasks.undo() : tasks.redo();
+        if (!isRestored) {
+            throw new AldenException(isUndo ? "Nothing to undo." : "Nothing to redo.");
+        }
+        storage.save(tasks);
+        ui.showUndone(tasks, isUndo);
+    }
+}
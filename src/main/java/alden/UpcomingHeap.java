@@ -0,0 +1,137 @@
+package alden;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.PriorityQueue;
+
+/**
+ * Indexed binary min-heap of the open deadlines by due time and the open events by start time.
+ *
+ * <p>The heap lives in two parallel primitive arrays, and a map from sequence number to heap slot lets a
+ * task be removed from the middle in O(log n) when it is deleted or marked as done. Tasks at the same
+ * time are ordered by sequence number, that is in list order, so the order of the heap is total.</p>
+ *
+ * <p>The k earliest tasks are read without disturbing the heap: a second, small heap of candidate slots
+ * starts at the root, and each slot taken from it offers its two children, which cannot be earlier.
+ * That costs O(k log k) whatever the size of the heap.</p>
+ */
+public class UpcomingHeap implements TaskIndex {
+    private long[] times = new long[16]; // Due time or start in epoch seconds of the task in each slot
+    private long[] sequences = new long[16];
+    private int size;
+    private final HashMap<Long, Integer> slots = new HashMap<>(); // Heap slot of each sequence number
+
+    @Override
+    public void add(long sequence, Task task) {
+        if (task.isDone() || !(task instanceof Deadline || task instanceof Event) || slots.containsKey(sequence)) {
+            return;
+        }
+        if (size == times.length) {
+            times = Arrays.copyOf(times, size * 2);
+            sequences = Arrays.copyOf(sequences, size * 2);
+        }
+        times[size] = ChronologicalIndex.keyOf(task);
+        sequences[size] = sequence;
+        slots.put(sequence, size);
+        siftUp(size++);
+    }
+
+    @Override
+    public void remove(long sequence, Task task) {
+        Integer slot = slots.remove(sequence);
+        if (slot == null) {
+            return;
+        }
+        size--;
+        if (slot == size) {
+            return;
+        }
+        moveTo(size, slot);
+        siftDown(slot);
+        siftUp(slot);
+    }
+
+    @Override
+    public void clear() {
+        slots.clear();
+        size = 0;
+    }
+
+    /**
+     * Returns the earliest tasks in the heap.
+     *
+     * @param count Largest number of tasks to return
+     * @return Sequence numbers of the tasks, earliest first
+     */
+    public long[] earliest(int count) {
+        int length = Math.min(count, size);
+        long[] result = new long[length];
+        if (length == 0) {
+            return result;
+        }
+        PriorityQueue<Integer> candidates = new PriorityQueue<>(this::compare);
+        candidates.add(0);
+        for (int i = 0; i < length; i++) {
+            int slot = candidates.poll();
+            result[i] = sequences[slot];
+            for (int child = 2 * slot + 1; child <= 2 * slot + 2 && child < size; child++) {
+                candidates.add(child);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of tasks in the heap.
+     *
+     * @return The number of open deadlines and events
+     */
+    public int size() {
+        return size;
+    }
+
+    private int compare(int slot, int other) {
+        int byTime = Long.compare(times[slot], times[other]);
+        return byTime != 0 ? byTime : Long.compare(sequences[slot], sequences[other]);
+    }
+
+    private void siftUp(int slot) {
+        while (slot > 0) {
+            int parent = (slot - 1) / 2;
+            if (compare(slot, parent) >= 0) {
+                return;
+            }
+            swap(slot, parent);
+            slot = parent;
+        }
+    }
+
+    private void siftDown(int slot) {
+        while (2 * slot + 1 < size) {
+            int child = 2 * slot + 1;
+            if (child + 1 < size && compare(child + 1, child) < 0) {
+                child++;
+            }
+            if (compare(child, slot) >= 0) {
+                return;
+            }
+            swap(slot, child);
+            slot = child;
+        }
+    }
+
+    private void swap(int slot, int other) {
+        long time = times[slot];
+        long sequence = sequences[slot];
+        moveTo(other, slot);
+        times[other] = time;
+        sequences[other] = sequence;
+        slots.put(sequence, other);
+    }
+
+    private void moveTo(int from, int to) {
+        times[to] = times[from];
+        sequences[to] = sequences[from];
+        slots.put(sequences[to], to);
+    }
+}
@@ -0,0 +1,469 @@
+package alden;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class StorageTest {
+    @TempDir
+    Path tempDir;
+
+    private String dataFile() {
+        return tempDir.resolve("Alden.txt").toString();
+    }
+
+    private TaskList reload(Storage storage) {
+        TaskList tasks = new TaskList();
+        storage.load(tasks);
+        return tasks;
+    }
+
+    @Test
+    public void load_journaledMutations_replayedOnSnapshot() throws AldenException {
+        Storage storage = new Storage(dataFile());
+        TaskList tasks = reload(storage);
+
+        Task first = new Todo("read book");
+        tasks.addTask(first);
+        storage.saveAddedTask(tasks, first);
+        Task second = new Deadline("return book", "2099/06/06 1200");
+        tasks.addTask(second);
+        storage.saveAddedTask(tasks, second);
+        tasks.get(1).markAsDone();
+        storage.saveTaskStatus(tasks, 1);
+        tasks.removeTask(0);
+        storage.saveDeletedTask(tasks, 0);
+
+        TaskList loaded = reload(new Storage(dataFile()));
+        assertEquals(1, loaded.size());
+        assertEquals("D | 1 | return book | 2099/06/06 1200 | 2", loaded.get(0).toFileFormat());
+    }
+
+    @Test
+    public void save_fullSnapshot_discardsJournal() {
+        Storage storage = new Storage(dataFile());
+        TaskList tasks = reload(storage);
+        Task task = new Todo("read book");
+        tasks.addTask(task);
+        storage.saveAddedTask(tasks, task);
+        assertTrue(new File(dataFile() + ".journal").exists());
+
+        storage.save(tasks);
+        assertFalse(new File(dataFile() + ".journal").exists());
+        assertEquals(1, reload(new Storage(dataFile())).size());
+    }
+
+    @Test
+    public void load_mappedFile_matchesLineFormat() throws IOException {
+        Files.writeString(Path.of(dataFile()), "T | 1 | read book\r\n"
+                + "\n"
+                + "  D | 0 | return library book | 2099/06/06 1200  \n"
+                + "X | 0 | unknown type\n"
+                + "E | 0 | project meeting | 2099/08/06 1400 | 2099/08/06 1600");
+
+        Storage storage = new Storage(dataFile());
+        TaskList tasks = reload(storage);
+        assertEquals(3, tasks.size());
+        assertEquals("T | 1 | read book | 1", tasks.get(0).toFileFormat());
+        assertEquals("D | 0 | return library book | 2099/06/06 1200 | 2", tasks.get(1).toFileFormat());
+        assertEquals("E | 0 | project meeting | 2099/08/06 1400 | 2099/08/06 1600 | 3", tasks.get(2).toFileFormat());
+        assertEquals(3, storage.getLastLoadStats().getTaskCount());
+    }
+
+    @Test
+    public void migrateToBinary_roundTrip_preservesTasks() throws AldenException, IOException {
+        Storage storage = new Storage(dataFile());
+        TaskList tasks = reload(storage);
+        tasks.addTask(new Todo("read book"));
+        tasks.addTask(new Deadline("return book", "2099/06/06 1200"));
+        tasks.addTask(new Event("project meeting", "2099/08/06 1400", "2099/08/06 1600"));
+        tasks.get(2).markAsDone();
+        storage.save(tasks);
+
+        storage.migrateToBinary(tasks);
+        assertTrue(BinarySnapshotCodec.isBinarySnapshot(new File(dataFile())));
+        Task added = new Todo("journaled after migration");
+        tasks.addTask(added);
+        storage.saveAddedTask(tasks, added);
+
+        Storage reopened = new Storage(dataFile());
+        TaskList loaded = reload(reopened);
+        assertTrue(reopened.isBinaryFormat());
+        assertEquals(4, loaded.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            assertEquals(tasks.get(i).toFileFormat(), loaded.get(i).toFileFormat());
+        }
+    }
+
+    @Test
+    public void flush_asyncWrites_persistsCoalescedSaves() {
+        Storage storage = new Storage(dataFile());
+        TaskList tasks = reload(storage);
+        storage.enableAsyncWrites(10_000);
+        for (int i = 0; i < 100; i++) {
+            Task task = new Todo("task " + i);
+            tasks.addTask(task);
+            storage.saveAddedTask(tasks, task);
+        }
+        tasks.removeTask(0);
+        storage.saveDeletedTask(tasks, 0);
+
+        storage.flush();
+        TaskList loaded = reload(new Storage(dataFile()));
+        assertEquals(99, loaded.size());
+        assertEquals("T | 0 | task 1 | 2", loaded.get(0).toFileFormat());
+    }
+
+    @Test
+    public void saveTaskStatus_asyncStatusesJournaled_compactsJournal() throws IOException {
+        Storage storage = new Storage(dataFile());
+        TaskList tasks = reload(storage);
+        storage.enableAsyncWrites(0);
+        Task task = new Todo("toggled");
+        tasks.addTask(task);
+        storage.saveAddedTask(tasks, task); // Not in the snapshot, so each status goes to the journal
+        for (int i = 1; i <= 1_500; i++) {
+            tasks.markTask(0, i % 2 == 1);
+            storage.saveTaskStatus(tasks, 0);
+            if (i % 100 == 0) {
+                storage.flush();
+            }
+        }
+
+        storage.flush();
+        Path journal = Path.of(dataFile() + ".journal");
+        assertTrue(!Files.exists(journal) || Files.readAllLines(journal).size() <= 1_024);
+        assertFalse(reload(new Storage(dataFile())).get(0).isDone());
+    }
+
+    @Test
+    public void save_syncEverySave_replacesFileAtomically() {
+        Storage storage = new Storage(dataFile());
+        TaskList tasks = reload(storage);
+        storage.setDurability(DurabilityMode.EVERY_SAVE, 0);
+        tasks.addTask(new Todo("read book"));
+        storage.save(tasks);
+
+        assertFalse(new File(dataFile() + ".tmp").exists());
+        assertEquals(1, storage.getSaveLatencyStats().getCount());
+        assertEquals(1, reload(new Storage(dataFile())).size());
+    }
+
+    @Test
+    public void load_parallelChunks_preservesFileOrder() throws IOException {
+        StringBuilder contents = new StringBuilder();
+        for (int i = 0; i < 200_000; i++) {
+            contents.append("T | ").append(i % 2).append(" | task ").append(i).append('\n');
+        }
+        Files.writeString(Path.of(dataFile()), contents);
+
+        TaskList tasks = new TaskList();
+        LoadStats stats = new ParallelTaskLoader(new Storage(dataFile()), new ForkJoinPool(4))
+                .load(new File(dataFile()), tasks);
+        assertEquals(200_000, stats.getTaskCount());
+        for (int i = 0; i < tasks.size(); i++) {
+            assertEquals("T | " + (i % 2) + " | task " + i + " | " + (i + 1), tasks.get(i).toFileFormat());
+        }
+    }
+
+    @Test
+    public void load_lazySnapshot_decodesOnDemandAndKeepsChanges() throws IOException {
+        Files.writeString(Path.of(dataFile()), "# next-id 4\nT | 0 | first | 1\n\n"
+                + "D | 1 | second | 2099/01/01 1000 | 2\nnot a task\nT | 0 | third | 3\n");
+        Storage storage = new Storage(dataFile());
+        storage.setLazyLoadThreshold(0);
+        TaskList tasks = reload(storage);
+
+        assertEquals(3, tasks.size());
+        assertTrue(new File(dataFile() + ".idx").exists());
+        tasks.get(0).markAsDone();
+        storage.saveTaskStatus(tasks, 0);
+        tasks.removeTask(1);
+        storage.saveDeletedTask(tasks, 1);
+        Task added = new Todo("fourth");
+        tasks.addTask(added);
+        storage.saveAddedTask(tasks, added);
+
+        Storage reopened = new Storage(dataFile());
+        reopened.setLazyLoadThreshold(0);
+        TaskList loaded = reload(reopened);
+        assertEquals(3, loaded.size());
+        assertEquals("T | 1 | first | 1", loaded.get(0).toFileFormat());
+        assertEquals("T | 0 | third | 3", loaded.get(1).toFileFormat());
+        assertEquals("T | 0 | fourth | 4", loaded.get(2).toFileFormat());
+
+        reopened.save(loaded);
+        assertEquals("T | 1 | first | 1", reload(new Storage(dataFile())).get(0).toFileFormat());
+    }
+
+    @Test
+    public void undo_lazySnapshot_restoresDeletedAndMarkedTasks() throws IOException {
+        Files.writeString(Path.of(dataFile()), "# next-id 4\nT | 0 | first | 1\nT | 0 | second | 2\n"
+                + "T | 0 | third | 3\n");
+        Storage storage = new Storage(dataFile());
+        storage.setLazyLoadThreshold(0);
+        TaskList tasks = reload(storage);
+        tasks.markUndoPoint();
+        tasks.removeTask(1);
+        tasks.markUndoPoint();
+        tasks.markTask(1, true);
+
+        assertTrue(tasks.undo());
+        assertFalse(tasks.get(1).isDone());
+        assertTrue(tasks.undo());
+        assertFalse(tasks.undo());
+        storage.save(tasks);
+        assertTrue(tasks.redo());
+
+        TaskList loaded = reload(new Storage(dataFile()));
+        assertEquals(3, loaded.size());
+        assertEquals("T | 0 | second | 2", loaded.get(1).toFileFormat());
+        assertEquals(2, tasks.size());
+    }
+
+    @Test
+    public void saveTaskStatus_loadedRecord_rewritesStatusByteInPlace() throws IOException {
+        Files.writeString(Path.of(dataFile()), "T | 0 | first\nT | 0 | second\n");
+        Storage storage = new Storage(dataFile());
+        TaskList tasks = reload(storage);
+
+        Task added = new Todo("third");
+        tasks.addTask(added);
+        storage.saveAddedTask(tasks, added);
+        tasks.markTask(1, true);
+        storage.saveTaskStatus(tasks, 1);
+        tasks.markTask(1, true);
+        storage.saveTaskStatus(tasks, 1);
+
+        assertEquals("T | 0 | first\nT | 1 | second\n", Files.readString(Path.of(dataFile())));
+        assertEquals(1, Files.readAllLines(Path.of(dataFile() + ".journal")).size() - 1);
+        TaskList loaded = reload(new Storage(dataFile()));
+        assertEquals(3, loaded.size());
+        assertTrue(loaded.get(1).isDone());
+    }
+
+    @Test
+    public void saveTaskStatus_columnarTaskOutOfCache_rewritesStatusInPlace() {
+        Storage storage = new Storage(dataFile());
+        TaskList tasks = new TaskList(new ColumnarTaskStore());
+        for (int i = 0; i < 5_000; i++) {
+            tasks.addTask(new Todo("task " + i)); // Only the latest tasks stay cached as objects
+        }
+        storage.save(tasks);
+
+        tasks.markTask(0, true);
+        storage.saveTaskStatus(tasks, 0);
+
+        assertFalse(new File(dataFile() + ".journal").exists());
+        assertTrue(reload(new Storage(dataFile())).get(0).isDone());
+    }
+
+    @Test
+    public void saveTaskStatus_journaledTaskEvictedFromLazyStore_keepsStatusInJournal() throws IOException {
+        StringBuilder snapshot = new StringBuilder("# next-id 20001\n");
+        for (int i = 1; i <= 20_000; i++) {
+            snapshot.append("T | 0 | task ").append(i).append(" | ").append(i).append('\n');
+        }
+        Files.writeString(Path.of(dataFile()), snapshot);
+        Storage storage = new Storage(dataFile());
+        TaskList tasks = reload(storage);
+        for (boolean isDone : new boolean[] {true, false}) {
+            tasks.markTask(0, isDone);
+            tasks.get(0).setRecordLocation(storage.getSnapshotGeneration(), -1); // As when writing in place fails
+            storage.saveTaskStatus(tasks, 0);
+        }
+
+        Storage reopened = new Storage(dataFile());
+        reopened.setLazyLoadThreshold(0);
+        TaskList loaded = reload(reopened);
+        for (int i = 1; i < loaded.size(); i++) {
+            loaded.get(i); // Evicts the task replayed from the journal from the cache
+        }
+        loaded.markTask(0, true);
+        reopened.saveTaskStatus(loaded, 0);
+
+        assertTrue(reload(new Storage(dataFile())).get(0).isDone());
+    }
+
+    @Test
+    public void saveTaskStatus_binarySnapshot_keepsJournalValid() throws AldenException {
+        Storage storage = new Storage(dataFile());
+        TaskList tasks = reload(storage);
+        tasks.addTask(new Todo("first"));
+        tasks.addTask(new Deadline("second", LocalDateTime.of(2099, 1, 1, 10, 0)));
+        storage.migrateToBinary(tasks);
+
+        Task added = new Todo("third");
+        tasks.addTask(added);
+        storage.saveAddedTask(tasks, added);
+        tasks.markTask(1, true);
+        storage.saveTaskStatus(tasks, 1);
+
+        Storage reopened = new Storage(dataFile());
+        TaskList loaded = reload(reopened);
+        assertEquals(3, loaded.size());
+        assertTrue(loaded.get(1).isDone());
+        loaded.markTask(1, false);
+        reopened.saveTaskStatus(loaded, 1);
+        assertFalse(reload(new Storage(dataFile())).get(1).isDone());
+    }
+
+    @Test
+    public void migrateToBinary_snapshotLargerThanBuffer_keepsLocationsAndJournalValid() throws AldenException {
+        Storage storage = new Storage(dataFile());
+        TaskList tasks = reload(storage);
+        tasks.addTask(new Todo("x".repeat(100_000))); // Longer than the encoder's buffer
+        for (int i = 1; i < 5_000; i++) {
+            tasks.addTask(new Todo("task " + i));
+            tasks.markTask(i, i % 3 == 0);
+        }
+        storage.migrateToBinary(tasks);
+
+        tasks.markTask(4_999, true);
+        storage.saveTaskStatus(tasks, 4_999);
+        Task added = new Todo("last");
+        tasks.addTask(added);
+        storage.saveAddedTask(tasks, added);
+
+        TaskList loaded = reload(new Storage(dataFile()));
+        assertEquals(5_001, loaded.size());
+        assertEquals(100_000, loaded.get(0).getDescription().length());
+        assertTrue(loaded.get(3_000).isDone());
+        assertFalse(loaded.get(3_001).isDone());
+        assertTrue(loaded.get(4_999).isDone());
+        assertEquals("last", loaded.get(5_000).getDescription());
+    }
+
+    @Test
+    public void load_deletedHighestId_idNotReused() throws AldenException {
+        Storage storage = new Storage(dataFile());
+        TaskList tasks = reload(storage);
+        tasks.addTask(new Todo("first"));
+        tasks.addTask(new Todo("second"));
+        storage.save(tasks);
+        tasks.removeTask(1);
+        storage.saveDeletedTask(tasks, 1);
+
+        TaskList loaded = reload(new Storage(dataFile()));
+        loaded.addTask(new Todo("third"));
+        assertEquals(3, loaded.get(1).getId());
+        storage.migrateToBinary(loaded);
+        loaded.removeTask(1);
+        storage.saveDeletedTask(loaded, 1);
+
+        TaskList reloaded = reload(new Storage(dataFile()));
+        assertEquals(4, reloaded.getNextId());
+        assertEquals(0, reloaded.indexOfId(1));
+        assertEquals(-1, reloaded.indexOfId(3));
+    }
+
+    @Test
+    public void load_legacyFileAboveLazyThreshold_rewrittenWithIds() throws IOException {
+        Files.writeString(Path.of(dataFile()), "T | 0 | first\nT | 1 | second\n");
+        Storage storage = new Storage(dataFile());
+        storage.setLazyLoadThreshold(0);
+        TaskList tasks = reload(storage);
+
+        assertEquals(2, tasks.get(1).getId());
+        String saved = Files.readString(Path.of(dataFile()));
+        assertTrue(saved.startsWith("# next-id 3 snapshot-id "));
+        assertEquals("T | 0 | first | 1\nT | 1 | second | 2\n", saved.substring(saved.indexOf('\n') + 1));
+    }
+
+    @Test
+    public void load_lazySnapshotAfterStatusWrite_reusesIndex() throws AldenException, IOException {
+        Storage storage = new Storage(dataFile());
+        TaskList tasks = reload(storage);
+        tasks.addTask(new Todo("first"));
+        tasks.addTask(new Todo("second"));
+        storage.save(tasks);
+        Storage lazy = new Storage(dataFile());
+        lazy.setLazyLoadThreshold(0);
+        TaskList loaded = reload(lazy);
+        Path index = Path.of(dataFile() + ".idx");
+        FileTime indexTime = FileTime.fromMillis(1_000_000);
+        Files.setLastModifiedTime(index, indexTime);
+
+        loaded.markTask(1, true);
+        lazy.saveTaskStatus(loaded, 1);
+        Files.setLastModifiedTime(Path.of(dataFile()), FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+        Storage reopened = new Storage(dataFile());
+        reopened.setLazyLoadThreshold(0);
+
+        assertTrue(reload(reopened).get(1).isDone());
+        assertEquals(indexTime, Files.getLastModifiedTime(index));
+    }
+
+    @Test
+    public void save_lazySnapshotMapped_replacesMovedSnapshot() throws AldenException, IOException {
+        Storage storage = new Storage(dataFile());
+        TaskList tasks = reload(storage);
+        tasks.addTask(new Todo("first"));
+        tasks.addTask(new Todo("second"));
+        storage.migrateToBinary(tasks);
+        Storage lazy = new Storage(dataFile());
+        lazy.setLazyLoadThreshold(0);
+        TaskList loaded = reload(lazy);
+
+        loaded.addTask(new Todo("third"));
+        lazy.save(loaded);
+        loaded.markTask(0, true);
+        lazy.saveTaskStatus(loaded, 0);
+
+        assertFalse(new File(dataFile() + ".old").exists());
+        assertEquals("second", loaded.get(1).getDescription());
+        TaskList reloaded = reload(new Storage(dataFile()));
+        assertEquals(3, reloaded.size());
+        assertTrue(reloaded.get(0).isDone());
+    }
+
+    @Test
+    public void load_snapshotMovedAsideBeforeCrash_movedBack() throws IOException {
+        Files.writeString(Path.of(dataFile() + ".old"), "T | 0 | first\nT | 1 | second\n");
+
+        TaskList tasks = reload(new Storage(dataFile()));
+
+        assertEquals(2, tasks.size());
+        assertFalse(new File(dataFile() + ".old").exists());
+    }
+
+    @Test
+    public void saveOccurrence_repeatingTasks_roundTripThroughJournalAndBinary() throws AldenException {
+        Storage storage = new Storage(dataFile());
+        TaskList tasks = reload(storage);
+        Deadline report = new Deadline("report", LocalDateTime.of(2099, 1, 5, 17, 0));
+        report.setRecurrence(Recurrence.parse("weekly /until 2099/02/28"));
+        Event standup = new Event("standup", LocalDateTime.of(2099, 1, 5, 9, 0), LocalDateTime.of(2099, 1, 5, 9, 15));
+        standup.setRecurrence(Recurrence.parse("daily"));
+        tasks.addTask(report);
+        storage.saveAddedTask(tasks, report);
+        tasks.addTask(standup);
+        storage.saveAddedTask(tasks, standup);
+        for (int occurrence : new int[] {0, 1, 3}) {
+            tasks.markOccurrence(0, occurrence, true);
+            storage.saveOccurrence(tasks, 0, occurrence, true);
+        }
+
+        TaskList loaded = reload(new Storage(dataFile()));
+        assertEquals("D | 0 | report | 2099/01/05 1700 | 1 | weekly until 2099/02/28 done 0-1,3",
+                loaded.get(0).toFileFormat());
+        assertEquals(LocalDateTime.of(2099, 1, 19, 17, 0), ((Deadline) loaded.get(0)).getDateTime());
+
+        storage.migrateToBinary(tasks);
+        TaskList migrated = reload(new Storage(dataFile()));
+        for (int i = 0; i < tasks.size(); i++) {
+            assertEquals(tasks.get(i).toFileFormat(), migrated.get(i).toFileFormat());
+        }
+    }
+}
@@ -0,0 +1,804 @@
+package alden;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+public class TaskListTest {
+    private static final String[] WORDS = {"read", "book", "notebook", "meeting", "meet", "Team", "report", "x-ray",
+        "2099", "call", "mom", "bookshelf"};
+
+    private static ArrayList<Task> scan(TaskList tasks, String keyword) {
+        ArrayList<Task> matches = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            if (tasks.get(i).getDescription().toLowerCase().contains(keyword.toLowerCase())) {
+                matches.add(tasks.get(i));
+            }
+        }
+        return matches;
+    }
+
+    private static String randomDescription(Random random, int id) {
+        // Descriptions are kept unique so that tasks can be told apart by value
+        StringBuilder description = new StringBuilder("task" + id + " ");
+        int wordCount = 1 + random.nextInt(4);
+        for (int i = 0; i < wordCount; i++) {
+            if (i > 0) {
+                description.append(random.nextBoolean() ? " " : ", ");
+            }
+            description.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return description.toString();
+    }
+
+    @Test
+    public void findTasks_partialWords_matchSubstringSearch() {
+        TaskList tasks = new TaskList();
+        tasks.addTask(new Todo("Team meeting"));
+        tasks.addTask(new Todo("read notebook"));
+        tasks.addTask(new Todo("book flights"));
+
+        assertEquals(1, tasks.findTasks("meet").size());
+        assertEquals(2, tasks.findTasks("book").size());
+        assertEquals(1, tasks.findTasks("ad note").size());
+        assertEquals(0, tasks.findTasks("read book").size());
+    }
+
+    @Test
+    public void findTasks_afterAddsAndRemovals_matchesScan() {
+        Random random = new Random(42);
+        TaskList tasks = new TaskList();
+        for (int i = 0; i < 400; i++) {
+            tasks.addTask(new Todo(randomDescription(random, i)));
+        }
+        String[] keywords = {"book", "ook", "meet", "team meeting", "x-r", "ray", ", call", "mom, ", "2099", "o"};
+        for (int round = 0; round < 50; round++) {
+            tasks.removeTask(random.nextInt(tasks.size()));
+            tasks.addTask(new Todo(randomDescription(random, 400 + round)));
+            for (String keyword : keywords) {
+                assertEquals(scan(tasks, keyword), tasks.findTasks(keyword));
+            }
+        }
+    }
+
+    @Test
+    public void findTasks_allTrigramsPresentApart_notMatched() {
+        TaskList tasks = new TaskList();
+        tasks.addTask(new Todo("abc bcd"));
+        tasks.addTask(new Todo("xabcdx"));
+
+        assertEquals(1, tasks.findTasks("ABCD").size());
+        assertEquals("xabcdx", tasks.findTasks("abcd").get(0).getDescription());
+    }
+
+    @Test
+    public void getDeadlinesBetween_mixedTasks_returnsDeadlinesInRangeByDueTime() {
+        TaskList tasks = new TaskList();
+        tasks.addTask(new Deadline("file taxes", LocalDateTime.of(2099, 3, 5, 9, 0)));
+        tasks.addTask(new Todo("water plants"));
+        tasks.addTask(new Deadline("pay rent", LocalDateTime.of(2099, 3, 1, 0, 0)));
+        tasks.addTask(new Deadline("renew passport", LocalDateTime.of(2099, 4, 1, 0, 0)));
+
+        ArrayList<Task> due = tasks.getDeadlinesBetween(LocalDateTime.of(2099, 3, 1, 0, 0),
+                LocalDateTime.of(2099, 3, 6, 0, 0));
+        assertEquals(2, due.size());
+        assertEquals("pay rent", due.get(0).getDescription());
+        assertEquals("file taxes", due.get(1).getDescription());
+
+        tasks.removeTask(2);
+        assertEquals(1, tasks.getDeadlinesBetween(null, LocalDateTime.of(2099, 3, 6, 0, 0)).size());
+    }
+
+    @Test
+    public void getEventsBetween_longAndShortEvents_returnsOverlappingEvents() {
+        TaskList tasks = new TaskList();
+        tasks.addTask(new Event("conference", LocalDateTime.of(2099, 5, 1, 9, 0), LocalDateTime.of(2099, 5, 4, 17, 0)));
+        tasks.addTask(new Event("lunch", LocalDateTime.of(2099, 5, 3, 12, 0), LocalDateTime.of(2099, 5, 3, 13, 0)));
+        tasks.addTask(new Event("dinner", LocalDateTime.of(2099, 5, 2, 19, 0), LocalDateTime.of(2099, 5, 2, 21, 0)));
+        tasks.addTask(new Event("brunch", LocalDateTime.of(2099, 5, 5, 10, 0), LocalDateTime.of(2099, 5, 5, 11, 0)));
+
+        ArrayList<Task> events = tasks.getEventsBetween(LocalDateTime.of(2099, 5, 3, 0, 0),
+                LocalDateTime.of(2099, 5, 4, 0, 0));
+        assertEquals(2, events.size());
+        assertEquals("conference", events.get(0).getDescription());
+        assertEquals("lunch", events.get(1).getDescription());
+    }
+
+    @Test
+    public void getConflictingEvents_randomEvents_matchesPairwiseCheck() {
+        Random random = new Random(7);
+        TaskList tasks = new TaskList();
+        LocalDateTime base = LocalDateTime.of(2099, 1, 1, 0, 0);
+        for (int i = 0; i < 300; i++) {
+            LocalDateTime start = base.plusMinutes(30L * random.nextInt(2000));
+            tasks.addTask(new Event("event" + i, start, start.plusMinutes(30L * random.nextInt(8))));
+        }
+        for (int i = 0; i < 30; i++) {
+            tasks.removeTask(random.nextInt(tasks.size()));
+        }
+
+        int expected = 0;
+        for (int i = 0; i < tasks.size(); i++) {
+            for (int j = i + 1; j < tasks.size(); j++) {
+                Event a = (Event) tasks.get(i);
+                Event b = (Event) tasks.get(j);
+                if (a.getStartDateTime().isBefore(b.getEndDateTime())
+                        && b.getStartDateTime().isBefore(a.getEndDateTime())) {
+                    expected++;
+                }
+            }
+        }
+        assertEquals(expected, tasks.getConflictingEvents().size());
+
+        Event probe = (Event) tasks.get(0);
+        int overlapping = 0;
+        for (int i = 0; i < tasks.size(); i++) {
+            Event other = (Event) tasks.get(i);
+            if (other.getStartDateTime().isBefore(probe.getEndDateTime())
+                    && probe.getStartDateTime().isBefore(other.getEndDateTime())) {
+                overlapping++;
+            }
+        }
+        assertEquals(overlapping,
+                tasks.getOverlappingEvents(probe.getStartDateTime(), probe.getEndDateTime()).size());
+    }
+
+    @Test
+    public void insertTask_repeatedlyAtOnePlace_keepsOrderAndIndexes() {
+        TaskList tasks = new TaskList();
+        for (int i = 0; i < 10; i++) {
+            tasks.addTask(new Todo("todo" + i));
+        }
+        assertEquals(10, tasks.findTasks("todo").size());
+
+        // Far more insertions at one spot than the gap between two sequence numbers allows
+        for (int i = 0; i < 40; i++) {
+            tasks.insertTask(5, new Todo("inserted" + i));
+        }
+        tasks.removeTask(0);
+        assertEquals(49, tasks.size());
+        assertEquals("inserted39", tasks.get(4).getDescription());
+        assertEquals("inserted0", tasks.get(43).getDescription());
+        assertEquals("todo5", tasks.get(44).getDescription());
+
+        ArrayList<Task> matches = tasks.findTasks("inserted3");
+        assertEquals(11, matches.size());
+        assertEquals("inserted39", matches.get(0).getDescription());
+        assertEquals("inserted3", matches.get(10).getDescription());
+    }
+
+    @Test
+    public void clear_thenRefilled_indexesMatchNewTasks() {
+        TaskList tasks = new TaskList();
+        tasks.addTask(new Todo("alpha one"));
+        tasks.addTask(new Todo("beta two"));
+        assertEquals(1, tasks.findTasks("alpha").size());
+
+        tasks.clear();
+        tasks.addTask(new Todo("beta three"));
+        assertEquals(1, tasks.findTasks("beta").size());
+        assertEquals("beta three", tasks.findTasks("beta").get(0).getDescription());
+    }
+
+    @Test
+    public void indexOfId_afterRemovalsAndInserts_findsCurrentPosition() {
+        TaskList tasks = new TaskList();
+        for (int i = 0; i < 100; i++) {
+            tasks.addTask(new Todo("task " + i));
+        }
+        assertEquals(41, tasks.indexOfId(42));
+        tasks.removeTask(0);
+        tasks.removeTask(41);
+        tasks.insertTask(0, new Todo("inserted"));
+
+        assertEquals(41, tasks.indexOfId(42));
+        assertEquals(-1, tasks.indexOfId(43));
+        assertEquals(0, tasks.indexOfId(101));
+        assertEquals("inserted", tasks.get(tasks.indexOfId(101)).getDescription());
+    }
+
+    private static Task newTask(int kind, String description, LocalDateTime start) {
+        return switch (kind) {
+        case 0 -> new Todo(description);
+        case 1 -> new Deadline(description, start);
+        default -> new Event(description, start, start.plusHours(2));
+        };
+    }
+
+    @Test
+    public void columnarStore_randomChanges_matchesInMemoryStore() {
+        Random random = new Random(11);
+        TaskList expected = new TaskList();
+        TaskList columnar = new TaskList(new ColumnarTaskStore());
+        LocalDateTime base = LocalDateTime.of(2099, 1, 1, 0, 0);
+        for (int i = 0; i < 20_000; i++) {
+            int choice = random.nextInt(10);
+            if (choice < 3 && !expected.isEmpty()) {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.removeTask(index).toFileFormat(), columnar.removeTask(index).toFileFormat());
+            } else if (choice < 5 && !expected.isEmpty()) {
+                int index = random.nextInt(expected.size());
+                boolean isDone = random.nextBoolean();
+                expected.markTask(index, isDone);
+                columnar.markTask(index, isDone);
+            } else {
+                LocalDateTime start = base.plusMinutes(random.nextInt(1_000_000));
+                String description = "task \u00e9 " + i;
+                int index = random.nextInt(expected.size() + 1);
+                expected.insertTask(index, newTask(choice % 3, description, start));
+                columnar.insertTask(index, newTask(choice % 3, description, start));
+            }
+        }
+
+        assertEquals(expected.size(), columnar.size());
+        List<Task> snapshot = columnar.getTasks();
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).toFileFormat(), columnar.get(i).toFileFormat());
+            assertEquals(expected.get(i).isDirty(), columnar.get(i).isDirty());
+            assertEquals(expected.get(i).toFileFormat(), snapshot.get(i).toFileFormat());
+        }
+    }
+
+    @Test
+    public void columnarStore_changesAfterSnapshot_leaveSnapshotUnchanged() {
+        Random random = new Random(13);
+        TaskList tasks = new TaskList(new ColumnarTaskStore());
+        LocalDateTime base = LocalDateTime.of(2099, 1, 1, 0, 0);
+        for (int i = 0; i < 20_000; i++) {
+            tasks.addTask(newTask(i % 3, "task " + i, base.plusMinutes(i)));
+        }
+        List<Task> snapshot = tasks.getTasks();
+        ArrayList<String> formats = formatsOf(tasks);
+
+        // Enough removals to compact the arena, with changes after each further snapshot
+        for (int i = 0; i < 15_000; i++) {
+            tasks.removeTask(random.nextInt(tasks.size()));
+            tasks.markTask(random.nextInt(tasks.size()), true);
+            tasks.insertTask(random.nextInt(tasks.size()), new Todo("new " + i));
+            tasks.removeTask(random.nextInt(tasks.size()));
+            if (i % 1_000 == 0) {
+                tasks.getTasks();
+            }
+        }
+        tasks.clear();
+        tasks.addTask(new Todo("after clear"));
+
+        assertEquals(formats.size(), snapshot.size());
+        for (int i = 0; i < formats.size(); i++) {
+            assertEquals(formats.get(i), snapshot.get(i).toFileFormat());
+        }
+    }
+
+    @Test
+    public void indexesOf_afterRandomChanges_matchesScan() {
+        Random random = new Random(5);
+        TaskList tasks = new TaskList();
+        LocalDateTime start = LocalDateTime.of(2099, 1, 1, 9, 0);
+        tasks.count(TaskFilter.DONE); // Build the bitmaps up front so that every change goes through them
+        for (int i = 0; i < 3_000; i++) {
+            int choice = random.nextInt(10);
+            if (choice < 3 && !tasks.isEmpty()) {
+                tasks.removeTask(random.nextInt(tasks.size()));
+            } else if (choice < 6 && !tasks.isEmpty()) {
+                tasks.markTask(random.nextInt(tasks.size()), random.nextBoolean());
+            } else {
+                tasks.insertTask(random.nextInt(tasks.size() + 1), newTask(choice % 3, "task " + i, start));
+            }
+        }
+
+        for (TaskFilter filter : TaskFilter.values()) {
+            ArrayList<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < tasks.size(); i++) {
+                Task task = tasks.get(i);
+                boolean isMatch = switch (filter) {
+                case DONE -> task.isDone();
+                case OPEN -> !task.isDone();
+                case TODOS -> task instanceof Todo;
+                case DEADLINES -> task instanceof Deadline;
+                case EVENTS -> task instanceof Event;
+                };
+                if (isMatch) {
+                    expected.add(i);
+                }
+            }
+            int[] actual = tasks.indexesOf(filter);
+            assertEquals(expected.size(), tasks.count(filter));
+            assertEquals(expected.size(), actual.length);
+            for (int i = 0; i < actual.length; i++) {
+                assertEquals((int) expected.get(i), actual[i]);
+            }
+        }
+    }
+
+    @Test
+    public void indexesByDate_afterRandomChanges_matchesStableSort() {
+        Random random = new Random(19);
+        TaskList tasks = new TaskList();
+        LocalDateTime start = LocalDateTime.of(2099, 1, 1, 9, 0);
+        tasks.indexesByDate(); // Build the view up front so that every change goes through it
+        for (int i = 0; i < 3_000; i++) {
+            int choice = random.nextInt(10);
+            if (choice < 3 && !tasks.isEmpty()) {
+                tasks.removeTask(random.nextInt(tasks.size()));
+            } else {
+                // Few distinct times, so that many tasks share one and their list order decides
+                Task task = newTask(choice % 3, "task " + i, start.plusHours(random.nextInt(50)));
+                tasks.insertTask(random.nextInt(tasks.size() + 1), task);
+            }
+        }
+        List<Task> before = tasks.getTasks();
+
+        ArrayList<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            expected.add(i);
+        }
+        expected.sort((a, b) -> Long.compare(ChronologicalIndex.keyOf(tasks.get(a)),
+                ChronologicalIndex.keyOf(tasks.get(b))));
+        int[] actual = tasks.indexesByDate();
+        assertEquals(expected.size(), actual.length);
+        for (int i = 0; i < actual.length; i++) {
+            assertEquals((int) expected.get(i), actual[i]);
+        }
+        assertTrue(before == tasks.getTasks()); // Reading the order leaves the list as it was
+    }
+
+    @Test
+    public void indexesOfNext_afterRandomChanges_matchesSortedOpenTasks() {
+        Random random = new Random(21);
+        TaskList tasks = new TaskList();
+        LocalDateTime start = LocalDateTime.of(2099, 1, 1, 9, 0);
+        tasks.indexesOfNext(1); // Build the heap up front so that every change goes through it
+        for (int i = 0; i < 3_000; i++) {
+            int choice = random.nextInt(10);
+            if (choice < 3 && !tasks.isEmpty()) {
+                tasks.removeTask(random.nextInt(tasks.size()));
+            } else if (choice < 6 && !tasks.isEmpty()) {
+                tasks.markTask(random.nextInt(tasks.size()), random.nextBoolean());
+            } else {
+                Task task = newTask(choice % 3, "task " + i, start.plusHours(random.nextInt(50)));
+                tasks.insertTask(random.nextInt(tasks.size() + 1), task);
+            }
+        }
+
+        ArrayList<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            if (!tasks.get(i).isDone() && !(tasks.get(i) instanceof Todo)) {
+                expected.add(i);
+            }
+        }
+        expected.sort((a, b) -> Long.compare(ChronologicalIndex.keyOf(tasks.get(a)),
+                ChronologicalIndex.keyOf(tasks.get(b))));
+        for (int count : new int[] {1, 10, expected.size() + 5}) {
+            int[] actual = tasks.indexesOfNext(count);
+            assertEquals(Math.min(count, expected.size()), actual.length);
+            for (int i = 0; i < actual.length; i++) {
+                assertEquals((int) expected.get(i), actual[i]);
+            }
+        }
+    }
+
+    @Test
+    public void pollReminders_minuteByMinute_firesOpenTasksWhenDue() {
+        LocalDateTime start = LocalDateTime.of(2099, 1, 1, 9, 0);
+        TaskList tasks = new TaskList();
+        tasks.addTask(new Deadline("past", start.minusHours(1)));
+        assertTrue(tasks.pollReminders(start).isEmpty()); // Sets up the wheel at the start time
+
+        tasks.addTask(new Deadline("soon", start.plusMinutes(30)));
+        tasks.addTask(new Event("meeting", start.plusHours(2), start.plusHours(3))); // Reminded at 10:45
+        tasks.addTask(new Deadline("later", start.plusHours(5))); // Beyond the wheel at first
+        tasks.addTask(new Deadline("done", start.plusMinutes(40)));
+        tasks.markTask(4, true);
+        tasks.addTask(new Deadline("deleted", start.plusMinutes(50)));
+        tasks.removeTask(5);
+        tasks.addTask(new Deadline("reopened", start.plusHours(4)));
+        tasks.markTask(5, true);
+        tasks.markTask(5, false);
+        tasks.addTask(new Todo("todo"));
+
+        ArrayList<String> fired = new ArrayList<>();
+        for (int minute = 1; minute <= 6 * 60; minute++) {
+            for (Task task : tasks.pollReminders(start.plusMinutes(minute))) {
+                fired.add(minute + " " + task.getDescription());
+            }
+        }
+        assertEquals(List.of("30 soon", "105 meeting", "240 reopened", "300 later"), fired);
+    }
+
+    @Test
+    public void pollReminders_afterLongPause_firesOverdueInOrder() {
+        LocalDateTime start = LocalDateTime.of(2099, 1, 1, 9, 0);
+        TaskList tasks = new TaskList();
+        tasks.pollReminders(start);
+        tasks.addTask(new Deadline("third", start.plusHours(7)));
+        tasks.addTask(new Deadline("first", start.plusMinutes(10)));
+        tasks.addTask(new Deadline("second", start.plusHours(3)));
+        tasks.addTask(new Deadline("tomorrow", start.plusDays(1)));
+
+        ArrayList<Task> fired = tasks.pollReminders(start.plusHours(8));
+        assertEquals(3, fired.size());
+        assertEquals("first", fired.get(0).getDescription());
+        assertEquals("second", fired.get(1).getDescription());
+        assertEquals("third", fired.get(2).getDescription());
+        assertEquals(1, tasks.pollReminders(start.plusDays(1)).size());
+    }
+
+    @Test
+    public void getDeadlinesBetween_repeatingDeadline_expandsOnlyOccurrencesInRange() throws AldenException {
+        TaskList tasks = new TaskList();
+        Deadline daily = new Deadline("log hours", LocalDateTime.of(2099, 1, 1, 18, 0));
+        daily.setRecurrence(Recurrence.parse("daily"));
+        tasks.addTask(daily);
+        tasks.addTask(new Deadline("once", LocalDateTime.of(2099, 3, 2, 12, 0)));
+        Event weekly = new Event("review", LocalDateTime.of(2099, 1, 2, 23, 0), LocalDateTime.of(2099, 1, 3, 1, 0));
+        weekly.setRecurrence(Recurrence.parse("weekly"));
+        tasks.addTask(weekly);
+        tasks.markOccurrence(0, 59, true); // Mar 1
+
+        ArrayList<String> due = new ArrayList<>();
+        LocalDateTime from = LocalDateTime.of(2099, 3, 1, 0, 0);
+        for (Task task : tasks.getDeadlinesBetween(from, from.plusDays(3))) {
+            due.add(task.toString());
+        }
+        assertEquals(List.of("[D][X] log hours (by: Mar 01 2099 6:00 PM)", "[D][ ] once (by: Mar 02 2099 12:00 PM)",
+                "[D][ ] log hours (by: Mar 02 2099 6:00 PM)", "[D][ ] log hours (by: Mar 03 2099 6:00 PM)"), due);
+        assertEquals(1, tasks.getDeadlinesBetween(null, LocalDateTime.of(2099, 1, 2, 0, 0)).size());
+
+        // The occurrence starting late on Feb 27 runs into Feb 28
+        ArrayList<Task> events = tasks.getEventsBetween(LocalDateTime.of(2099, 2, 28, 0, 0),
+                LocalDateTime.of(2099, 3, 1, 0, 0));
+        assertEquals(1, events.size());
+        assertEquals(LocalDateTime.of(2099, 2, 27, 23, 0), ((Event) events.get(0)).getStartDateTime());
+        assertEquals(weekly.getId(), events.get(0).getId());
+    }
+
+    @Test
+    public void markOccurrence_lastOccurrenceAndUndo_updatesSeriesStatus() throws AldenException {
+        TaskList tasks = new TaskList();
+        Deadline deadline = new Deadline("rent", LocalDateTime.of(2099, 1, 31, 9, 0));
+        deadline.setRecurrence(Recurrence.parse("monthly /until 2099/03/31"));
+        tasks.addTask(deadline);
+        assertEquals(LocalDateTime.of(2099, 1, 31, 9, 0), deadline.getDateTime());
+        assertEquals(1, tasks.indexesOfNext(5).length);
+
+        tasks.markUndoPoint();
+        Deadline marked = (Deadline) tasks.markOccurrence(0, 0, true);
+        assertEquals(LocalDateTime.of(2099, 2, 28, 9, 0), marked.getDateTime()); // Clamped to the month's end
+        tasks.markOccurrence(0, 2, true);
+        tasks.markOccurrence(0, 1, true);
+        assertTrue(tasks.get(0).isDone());
+        assertFalse(deadline.isDone()); // Marking replaces the task, leaving the one added as it was
+        assertEquals(1, tasks.count(TaskFilter.DONE));
+        assertEquals(0, tasks.indexesOfNext(5).length);
+
+        assertTrue(tasks.undo());
+        assertFalse(tasks.get(0).isDone());
+        assertEquals(-1, tasks.get(0).getRecurrence().lastDone());
+        assertEquals(1, tasks.indexesOfNext(5).length);
+    }
+
+    @Test
+    public void pollReminders_repeatingEvent_remindsEachOpenOccurrenceInTurn() throws AldenException {
+        LocalDateTime start = LocalDateTime.of(2099, 1, 1, 0, 0);
+        TaskList tasks = new TaskList();
+        Event event = new Event("standup", start.plusHours(9), start.plusHours(9).plusMinutes(15));
+        event.setRecurrence(Recurrence.parse("daily /until 2099/01/04"));
+        tasks.addTask(event);
+        tasks.markOccurrence(0, 1, true);
+        tasks.pollReminders(start);
+
+        ArrayList<String> fired = new ArrayList<>();
+        for (int minute = 1; minute <= 5 * 24 * 60; minute++) {
+            for (Task task : tasks.pollReminders(start.plusMinutes(minute))) {
+                fired.add(minute + " " + ((Event) task).getStartDateTime().getDayOfMonth());
+            }
+        }
+        assertEquals(List.of("525 1", "3405 3", "4845 4"), fired);
+    }
+
+    @Test
+    public void findTasksFuzzy_typos_rankedByDistance() {
+        TaskList tasks = new TaskList();
+        tasks.addTask(new Todo("plan meeting notes"));
+        tasks.addTask(new Todo("meting with Bob"));
+        tasks.addTask(new Todo("greeting cards"));
+        tasks.addTask(new Todo("Meeting room"));
+        tasks.addTask(new Todo("buy milk"));
+
+        ArrayList<String> found = new ArrayList<>();
+        for (Task task : tasks.findTasksFuzzy("meetng")) {
+            found.add(task.getDescription());
+        }
+        assertEquals(List.of("plan meeting notes", "Meeting room", "meting with Bob"), found);
+        assertEquals("meting with Bob", tasks.findTasksFuzzy("MEETING bob").get(0).getDescription());
+        assertTrue(tasks.findTasksFuzzy("mlik").isEmpty()); // Short words only tolerate one edit
+    }
+
+    @Test
+    public void findTasksFuzzy_afterRandomChanges_matchesBruteForce() {
+        Random random = new Random(24);
+        TaskList tasks = new TaskList();
+        tasks.findTasksFuzzy("warm"); // Build the index up front so that every change goes through it
+        for (int i = 0; i < 4_000; i++) {
+            tasks.insertTask(random.nextInt(tasks.size() + 1), new Todo(randomWord(random) + " " + randomWord(random)));
+        }
+        while (tasks.size() > 300) { // Empties most words, so that the tree is rebuilt
+            tasks.removeTask(random.nextInt(tasks.size()));
+        }
+
+        for (int query = 0; query < 50; query++) {
+            String word = randomWord(random);
+            ArrayList<Task> expected = new ArrayList<>();
+            ArrayList<Integer> distances = new ArrayList<>();
+            for (int i = 0; i < tasks.size(); i++) {
+                int best = Integer.MAX_VALUE;
+                for (String term : tasks.get(i).getDescription().split(" ")) {
+                    int[] rows = new int[word.length() + 1];
+                    best = Math.min(best, FuzzyTermIndex.distance(word, term, rows, new int[rows.length]));
+                }
+                if (best <= FuzzyTermIndex.maxDistanceFor(word)) {
+                    int at = 0;
+                    while (at < distances.size() && distances.get(at) <= best) {
+                        at++;
+                    }
+                    expected.add(at, tasks.get(i));
+                    distances.add(at, best);
+                }
+            }
+            assertEquals(expected, tasks.findTasksFuzzy(word));
+        }
+    }
+
+    private static String randomWord(Random random) {
+        char[] letters = new char[3 + random.nextInt(4)];
+        for (int i = 0; i < letters.length; i++) {
+            letters[i] = (char) ('a' + random.nextInt(6));
+        }
+        return new String(letters);
+    }
+
+    @Test
+    public void query_mixedTerms_matchesEveryTerm() throws AldenException {
+        TaskList tasks = new TaskList();
+        tasks.addTask(new Deadline("write report", LocalDateTime.of(2099, 2, 10, 12, 0)));
+        tasks.addTask(new Deadline("file report", LocalDateTime.of(2099, 3, 1, 0, 0)));
+        tasks.addTask(new Deadline("report card", LocalDateTime.of(2099, 2, 28, 23, 59)));
+        tasks.addTask(new Todo("read report"));
+        tasks.markTask(2, true);
+
+        Query openReports = Query.compile("type:D done:false due<2099/03/01 text:report");
+        assertEquals(List.of(tasks.get(0)), tasks.query(openReports));
+        assertEquals(List.of(tasks.get(0), tasks.get(2)), tasks.query(Query.compile("due<=2099/02/28 REPORT")));
+        assertEquals(List.of(tasks.get(1)), tasks.query(Query.compile("due>2099/02/28")));
+        Query endOfFebruary = Query.compile("due>=2099/02/28 due<=2099/03/01");
+        assertEquals(List.of(tasks.get(1), tasks.get(2)), tasks.query(endOfFebruary));
+        assertEquals(1, Query.compile("due>=2099/02/11 due:2099/03/01").getPredicates().size());
+        assertEquals(List.of(tasks.get(3)), tasks.query(Query.compile("type:todo read")));
+        assertThrows(AldenException.class, () -> Query.compile("  "));
+        assertThrows(AldenException.class, () -> Query.compile("type:note"));
+        assertThrows(AldenException.class, () -> Query.compile("owner:me"));
+        assertThrows(AldenException.class, () -> Query.compile("due<soon"));
+    }
+
+    @Test
+    public void query_randomQueriesAfterChanges_matchesScan() throws AldenException {
+        Random random = new Random(25);
+        TaskList tasks = new TaskList();
+        LocalDateTime start = LocalDateTime.of(2099, 1, 1, 9, 0);
+        String[] terms = {"type:todo", "type:deadline", "type:event", "done:true", "done:false", "text:book",
+            "text:mom", "meet", "o", "due<2099/01/20", "due>=2099/03/01", "due=2099/02/02", "due<=2099/01/01"};
+        for (int i = 0; i < 2_000; i++) {
+            LocalDateTime time = start.plusHours(random.nextInt(2_000));
+            tasks.addTask(newTask(random.nextInt(3), randomDescription(random, i), time));
+        }
+        for (int round = 0; round < 200; round++) {
+            tasks.removeTask(random.nextInt(tasks.size()));
+            tasks.markTask(random.nextInt(tasks.size()), random.nextBoolean());
+            tasks.insertTask(random.nextInt(tasks.size() + 1),
+                    newTask(random.nextInt(3), randomDescription(random, 2_000 + round), start.plusDays(round % 90)));
+
+            StringBuilder text = new StringBuilder();
+            for (int term = 1 + random.nextInt(3); term > 0; term--) {
+                text.append(terms[random.nextInt(terms.length)]).append(' ');
+            }
+            Query query = Query.compile(text.toString());
+            ArrayList<Task> expected = new ArrayList<>();
+            for (int i = 0; i < tasks.size(); i++) {
+                if (query.test(tasks.get(i))) {
+                    expected.add(tasks.get(i));
+                }
+            }
+            assertEquals(expected, tasks.query(query));
+        }
+    }
+
+    @Test
+    public void getWindow_endPastList_returnsTasksUpToEnd() {
+        TaskList tasks = new TaskList(new ColumnarTaskStore());
+        for (int i = 0; i < 50; i++) {
+            tasks.addTask(new Todo("task " + i));
+        }
+
+        List<Task> window = tasks.getWindow(40, 60);
+        assertEquals(10, window.size());
+        assertEquals("task 40", window.get(0).getDescription());
+        assertEquals("task 49", window.get(9).getDescription());
+        assertTrue(tasks.getWindow(50, 70).isEmpty());
+    }
+
+    @Test
+    public void getTasks_concurrentWriter_readersSeeConsistentVersions() throws InterruptedException {
+        TaskList tasks = new TaskList();
+        for (int i = 0; i < 1_000; i++) {
+            tasks.addTask(new Todo("task " + i));
+        }
+        readConcurrently(tasks, 1);
+        readConcurrently(tasks, Math.max(2, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    @Test
+    public void getTasks_markAfterSnapshot_snapshotKeepsStatus() throws AldenException {
+        TaskList tasks = new TaskList();
+        tasks.addTask(new Todo("read book"));
+        Deadline deadline = new Deadline("pay rent", LocalDateTime.of(2099, 1, 1, 9, 0));
+        deadline.setRecurrence(Recurrence.parse("monthly"));
+        tasks.addTask(deadline);
+        List<Task> before = tasks.getTasks();
+
+        tasks.markTask(0, true);
+        tasks.markOccurrence(1, 0, true);
+
+        assertFalse(before.get(0).isDone());
+        assertFalse(before.get(1).getRecurrence().isDone(0));
+        assertTrue(tasks.getTasks().get(0).isDone());
+        assertTrue(tasks.getTasks().get(1).getRecurrence().isDone(0));
+    }
+
+    /**
+     * Reads versions of the list on several threads while another thread keeps appending tasks, marking
+     * them and removing the oldest, and checks that every version holds a contiguous run of IDs whose
+     * statuses do not change while it is read.
+     */
+    private static void readConcurrently(TaskList tasks, int readerCount) throws InterruptedException {
+        AtomicBoolean isRunning = new AtomicBoolean(true);
+        AtomicLong reads = new AtomicLong();
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            int next = 0;
+            while (isRunning.get()) {
+                tasks.addTask(new Todo("task " + next++));
+                tasks.markTask(tasks.size() - 1, true);
+                tasks.removeTask(0);
+                tasks.findTasks("task 1");
+            }
+        });
+        Thread[] readers = new Thread[readerCount];
+        for (int r = 0; r < readerCount; r++) {
+            readers[r] = new Thread(() -> {
+                long count = 0;
+                while (isRunning.get()) {
+                    List<Task> version = tasks.getTasks();
+                    boolean isLastDone = version.get(version.size() - 1).isDone();
+                    long first = version.get(0).getId();
+                    for (int i = 1; i < version.size(); i++) {
+                        if (version.get(i).getId() != first + i) {
+                            failure.set("Version has ID " + version.get(i).getId() + " at " + i + " after " + first);
+                        }
+                    }
+                    if (version.size() != 1_000 && version.size() != 1_001) { // Between an add and a remove
+                        failure.set("Version has " + version.size() + " tasks");
+                    }
+                    if (version.get(version.size() - 1).isDone() != isLastDone) {
+                        failure.set("Task status changed within a version");
+                    }
+                    count++;
+                }
+                reads.addAndGet(count);
+            });
+        }
+        writer.start();
+        for (Thread reader : readers) {
+            reader.start();
+        }
+        Thread.sleep(300);
+        isRunning.set(false);
+        writer.join();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertNull(failure.get());
+        assertTrue(reads.get() > 0);
+    }
+
+    private static ArrayList<String> formatsOf(TaskList tasks) {
+        ArrayList<String> formats = new ArrayList<>();
+        for (Task task : tasks.getTasks()) {
+            formats.add(task.toFileFormat());
+        }
+        return formats;
+    }
+
+    @Test
+    public void undo_randomCommands_restoresEachEarlierVersion() {
+        assertUndoRestoresEachEarlierVersion(new TaskList());
+    }
+
+    @Test
+    public void undo_randomCommandsOnColumnarStore_restoresEachEarlierVersion() {
+        assertUndoRestoresEachEarlierVersion(new TaskList(new ColumnarTaskStore()));
+    }
+
+    private static void assertUndoRestoresEachEarlierVersion(TaskList tasks) {
+        Random random = new Random(3);
+        ArrayList<ArrayList<String>> versions = new ArrayList<>();
+        versions.add(formatsOf(tasks));
+        for (int command = 0; command < 50; command++) {
+            tasks.markUndoPoint();
+            tasks.addTask(new Todo("task " + command)); // Every command changes something, so each can be undone
+            for (int change = 0; change < random.nextInt(20); change++) {
+                int choice = random.nextInt(4);
+                if (choice == 0 && !tasks.isEmpty()) {
+                    tasks.removeTask(random.nextInt(tasks.size()));
+                } else if (choice == 1 && !tasks.isEmpty()) {
+                    tasks.markTask(random.nextInt(tasks.size()), random.nextBoolean());
+                } else {
+                    tasks.insertTask(random.nextInt(tasks.size() + 1), new Todo("task " + command + "." + change));
+                }
+            }
+            versions.add(formatsOf(tasks));
+        }
+
+        for (int i = versions.size() - 2; i >= 0; i--) {
+            assertTrue(tasks.undo());
+            assertEquals(versions.get(i), formatsOf(tasks));
+        }
+        assertFalse(tasks.undo());
+        for (int i = 1; i < versions.size(); i++) {
+            assertTrue(tasks.redo());
+            assertEquals(versions.get(i), formatsOf(tasks));
+        }
+        assertFalse(tasks.redo());
+        assertEquals(versions.get(versions.size() - 1).size(), tasks.findTasks("task").size());
+    }
+
+    @Test
+    public void undo_historyOverBudget_dropsOldestCommands() {
+        TaskList tasks = new TaskList();
+        tasks.setHistoryLimits(3, 1L << 20);
+        for (int i = 0; i < 5; i++) {
+            tasks.markUndoPoint();
+            tasks.addTask(new Todo("task " + i));
+        }
+        tasks.markUndoPoint();
+        tasks.markTask(0, true);
+        tasks.markUndoPoint();
+        tasks.markTask(0, true); // Changes nothing, so there is nothing to undo for it
+
+        assertTrue(tasks.undo());
+        assertFalse(tasks.get(0).isDone());
+        assertTrue(tasks.undo());
+        assertTrue(tasks.undo());
+        assertFalse(tasks.undo());
+        assertEquals(3, tasks.size());
+
+        tasks.setHistoryLimits(100, 64);
+        tasks.markUndoPoint();
+        for (int i = 0; i < 1_000; i++) {
+            tasks.addTask(new Todo("bulk " + i));
+        }
+        assertFalse(tasks.undo());
+    }
+}